@@ -0,0 +1,52 @@
+package com.wordscounter.benchmark;
+
+import com.wordscounter.model.CorpusTypeEnum;
+
+public class BenchmarkParams {
+
+	// Attributes
+	private int filesNumber;
+	private int filesSize;
+	private int vocabularySize;
+	private int threadsNumber;
+	private CorpusTypeEnum corpusType;
+
+
+	// Constructors
+	public BenchmarkParams(int filesNumber,
+			int filesSize,
+			int vocabularySize,
+			int threadsNumber,
+			CorpusTypeEnum corpusType) {
+
+		this.filesNumber = filesNumber;
+		this.filesSize = filesSize;
+		this.vocabularySize = vocabularySize;
+		this.threadsNumber = threadsNumber;
+		this.corpusType = corpusType;
+
+	}
+
+
+	// Getters
+	public int getFilesNumber() {
+		return filesNumber;
+	}
+
+	public int getFilesSize() {
+		return filesSize;
+	}
+
+	public int getVocabularySize() {
+		return vocabularySize;
+	}
+
+	public int getThreadsNumber() {
+		return threadsNumber;
+	}
+
+	public CorpusTypeEnum getCorpusType() {
+		return corpusType;
+	}
+
+}
@@ -0,0 +1,151 @@
+package com.wordscounter.benchmark;
+
+
+/**
+ * Result of a benchmark run with a set of parameters: the average time of an operation
+ * in every measurement iteration, and the memory allocated and the garbage collections
+ * done while they ran.
+ *
+ * <p>The score is the mean of the iterations, and its error is the half width of its
+ * confidence interval at 99.9%, from the Student's t distribution, so two scores whose
+ * intervals don't overlap are different with a high confidence.
+ *
+ * @author Arekku
+ *
+ */
+public class BenchmarkResult {
+
+	// Constants
+	private static final double[] T_VALUES = {
+			636.619, 31.599, 12.924, 8.610, 6.869, 5.959, 5.408, 5.041, 4.781, 4.587,
+			4.437, 4.318, 4.221, 4.140, 4.073, 4.015, 3.965, 3.922, 3.883, 3.850,
+			3.819, 3.792, 3.768, 3.745, 3.725, 3.707, 3.690, 3.674, 3.659, 3.646 };
+	private static final double NORMAL_VALUE = 3.291;
+
+
+	// Attributes
+	private String name;
+	private BenchmarkParams params;
+	private double[] times;
+	private long operationsNumber;
+	private long allocatedBytes;
+	private long gcCount;
+	private long gcTime;
+
+
+	// Constructors
+	/**
+	 * Creates a BenchmarkResult.
+	 *
+	 * @param name the name of the benchmark.
+	 * @param params the parameters of the run.
+	 * @param times the average time of an operation in every iteration, in milliseconds.
+	 * @param operationsNumber the number of operations measured.
+	 * @param allocatedBytes the bytes allocated by all the threads during the
+	 *        measurement, or -1 if the JVM can't measure them.
+	 * @param gcCount the number of garbage collections during the measurement.
+	 * @param gcTime the time of the garbage collections during the measurement, in
+	 *        milliseconds.
+	 */
+	public BenchmarkResult(String name, BenchmarkParams params, double[] times, long operationsNumber, long allocatedBytes, long gcCount, long gcTime) {
+
+		this.name = name;
+		this.params = params;
+		this.times = times;
+		this.operationsNumber = operationsNumber;
+		this.allocatedBytes = allocatedBytes;
+		this.gcCount = gcCount;
+		this.gcTime = gcTime;
+
+	}
+
+
+	// Getters
+	public String getName() {
+		return name;
+	}
+
+	public BenchmarkParams getParams() {
+		return params;
+	}
+
+	public double[] getTimes() {
+		return times;
+	}
+
+	public long getOperationsNumber() {
+		return operationsNumber;
+	}
+
+	public long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+
+	public long getGcCount() {
+		return gcCount;
+	}
+
+	public long getGcTime() {
+		return gcTime;
+	}
+
+
+	// Public Methods
+	/**
+	 * Gets the mean time of an operation.
+	 *
+	 * @return the mean of the iterations, in milliseconds.
+	 */
+	public double getScore() {
+
+		double sum = 0;
+		for (double time : times) {
+			sum += time;
+		}
+
+		return times.length > 0 ? sum / times.length : Double.NaN;
+
+	}
+
+	/**
+	 * Gets the error of the score, at 99.9% of confidence.
+	 *
+	 * @return the half width of the confidence interval, in milliseconds, or NaN if there
+	 *         is a single iteration.
+	 */
+	public double getError() {
+
+		int n = times.length;
+		if (n < 2) {
+			return Double.NaN;
+		}
+
+		double mean = getScore();
+		double squares = 0;
+		for (double time : times) {
+			squares += (time - mean) * (time - mean);
+		}
+
+		double deviation = Math.sqrt(squares / (n - 1));
+		double t = n - 1 <= T_VALUES.length ? T_VALUES[n - 2] : NORMAL_VALUE;
+
+		return t * deviation / Math.sqrt(n);
+
+	}
+
+	/**
+	 * Gets the bytes allocated by an operation, on average.
+	 *
+	 * @return the bytes allocated per operation, or -1 if the JVM can't measure them.
+	 */
+	public long getAllocatedBytesPerOperation() {
+
+		if (allocatedBytes < 0 || operationsNumber == 0) {
+			return -1;
+		}
+
+		return allocatedBytes / operationsNumber;
+
+	}
+
+}
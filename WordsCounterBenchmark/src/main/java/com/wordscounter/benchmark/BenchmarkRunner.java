@@ -0,0 +1,126 @@
+package com.wordscounter.benchmark;
+
+import java.util.concurrent.Callable;
+
+import com.wordscounter.util.ExecutionMetrics;
+
+
+/**
+ * Measures the average time of an operation, like the <i>AverageTime</i> mode of JMH.
+ *
+ * <p>The operation runs first for a number of warm-up iterations, whose results are
+ * discarded, so the JIT compiler reaches a steady state, and then for a number of
+ * measurement iterations. Every iteration calls the operation again and again until a
+ * minimum time passes, and its score is the average time of a call. The result of every
+ * call is consumed, so the JIT compiler can't remove the work as dead code.
+ *
+ * <p>The bytes allocated by all the threads of the JVM, and the number and time of the
+ * garbage collections, are measured during the measurement iterations, like the GC
+ * profiler of JMH.
+ *
+ * @author Arekku
+ *
+ */
+public class BenchmarkRunner {
+
+	// Constants
+	private static final long NANOS_PER_MILLI = 1000000;
+
+
+	// Attributes
+	private int warmupIterations;
+	private int measurementIterations;
+	private long iterationTime;
+
+	private volatile int sink;
+
+
+	// Constructors
+	/**
+	 * Creates a BenchmarkRunner.
+	 *
+	 * @param warmupIterations the number of iterations discarded.
+	 * @param measurementIterations the number of iterations measured.
+	 * @param iterationTime the minimum time of an iteration, in milliseconds.
+	 */
+	public BenchmarkRunner(int warmupIterations, int measurementIterations, long iterationTime) {
+
+		this.warmupIterations = warmupIterations;
+		this.measurementIterations = Math.max(1, measurementIterations);
+		this.iterationTime = iterationTime;
+
+	}
+
+
+	// Public Methods
+	/**
+	 * Runs an operation and measures it.
+	 *
+	 * @param name the name of the benchmark.
+	 * @param params the parameters of the run.
+	 * @param operation the operation to measure. Its result is consumed.
+	 * @return the result of the measurement.
+	 * @throws Exception if the operation fails.
+	 */
+	public BenchmarkResult run(String name, BenchmarkParams params, Callable<?> operation) throws Exception {
+
+		for (int i = 0; i < warmupIterations; i++) {
+			runIteration(operation);
+		}
+
+		long allocatedBytes = ExecutionMetrics.getAllocatedBytes();
+		long gcCount = ExecutionMetrics.getGcCount();
+		long gcTime = ExecutionMetrics.getGcTime();
+
+		double[] times = new double[measurementIterations];
+		long operationsNumber = 0;
+
+		for (int i = 0; i < measurementIterations; i++) {
+			long[] iteration = runIteration(operation);
+			times[i] = (double) iteration[0] / iteration[1] / NANOS_PER_MILLI;
+			operationsNumber += iteration[1];
+		}
+
+		if (allocatedBytes >= 0) {
+			allocatedBytes = ExecutionMetrics.getAllocatedBytes() - allocatedBytes;
+		}
+		gcCount = ExecutionMetrics.getGcCount() - gcCount;
+		gcTime = ExecutionMetrics.getGcTime() - gcTime;
+
+		return new BenchmarkResult(name, params, times, operationsNumber, allocatedBytes, gcCount, gcTime);
+
+	}
+
+
+	// Private Methods
+	/**
+	 * Calls the operation until the iteration time passes.
+	 * @return the time of the iteration, in nanoseconds, and the number of calls.
+	 */
+	private long[] runIteration(Callable<?> operation) throws Exception {
+
+		long minTime = iterationTime * NANOS_PER_MILLI;
+		long operationsNumber = 0;
+		long startTime = System.nanoTime();
+		long elapsedTime;
+
+		do {
+			consume(operation.call());
+			operationsNumber++;
+			elapsedTime = System.nanoTime() - startTime;
+		} while (elapsedTime < minTime);
+
+		return new long[] { elapsedTime, operationsNumber };
+
+	}
+
+	/**
+	 * Consumes a result, so the work that computes it can't be removed.
+	 */
+	private void consume(Object result) {
+
+		sink ^= System.identityHashCode(result);
+
+	}
+
+}
@@ -0,0 +1,497 @@
+package com.wordscounter.benchmark;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.wordscounter.model.CorpusTypeEnum;
+import com.wordscounter.model.ExecutionData;
+import com.wordscounter.model.Frequency;
+import com.wordscounter.model.FrequencyMap;
+import com.wordscounter.model.OrderEnum;
+import com.wordscounter.model.WordsCounterService;
+import com.wordscounter.util.FileUtils;
+import com.wordscounter.util.LogUtils;
+import com.wordscounter.util.MemoryCorpus;
+import com.wordscounter.util.Utils;
+
+
+/**
+ * Benchmarks of the hot paths of the program, that can be run apart from the menu:
+ *
+ * <ul>
+ * <li><b>countWords</b>: {@link Utils#countWords(String, ConcurrentMap)} of a text.</li>
+ * <li><b>read</b>: {@link FileUtils#read(String, String)} of a file.</li>
+ * <li><b>sortedList</b>: {@link FrequencyMap#getSortedList(OrderEnum)} of the words of
+ * a text.</li>
+ * <li><b>singleThread</b> and <b>multithread</b>: a whole count of the working files by
+ * {@link WordsCounterService}.</li>
+ * </ul>
+ *
+ * <p>Every benchmark runs once for every combination of the parameters it uses, given as
+ * lists of values separated by commas: the number of files, their size in kb, the size of
+ * the vocabulary of the texts and the number of threads. The texts are built in memory
+ * with words that follow Zipf's law, with a fixed seed, so every run measures the same
+ * work. For example:
+ *
+ * <pre>
+ * java com.wordscounter.benchmark.WordsCounterBenchmark -benchmarks countWords,multithread
+ *      -files 4,16 -size 1024 -vocabulary 1000,100000 -threads 1,4 -forks 2
+ * </pre>
+ *
+ * <p>Every combination runs in a new JVM by default, so the code compiled and the garbage
+ * left by a benchmark don't change the results of the next one. The scores of all the
+ * forks are merged and printed with their error, the bytes allocated per operation and
+ * the garbage collections done. With <i>-forks 0</i> everything runs in this JVM.
+ *
+ * @author Arekku
+ *
+ */
+public class WordsCounterBenchmark {
+
+	// Constants
+	private static final List<String> BENCHMARKS = Arrays.asList("countWords", "read", "sortedList", "singleThread", "multithread");
+
+	private static final String FORKED_OPTION = "-forked";
+	private static final String RESULT_PREFIX = "#result";
+
+	private static final long TEXT_SEED = 42;
+	private static final int READ_VOCABULARY_SIZE = 100000;
+	private static final double ZIPF_EXPONENT = 1.0;
+	private static final String FILE_ENCODING = "UTF-8";
+
+	private static final String ROW_FORMAT = "%-14s %6s %8s %10s %8s %7s %4s %12s %12s %6s %14s %9s %8s%n";
+
+
+	// Public Methods
+	public static void main(String[] args) {
+
+		try {
+
+			if (args.length > 0 && args[0].equals(FORKED_OPTION)) {
+				runForked(args);
+			} else {
+				run(parseOptions(args));
+			}
+
+		} catch (IllegalArgumentException e) {
+
+			LogUtils.error(e.getMessage());
+			printUsage();
+			System.exit(1);
+
+		} catch (Exception e) {
+
+			LogUtils.error("The benchmark has failed: " + e.toString());
+			System.exit(1);
+
+		}
+
+	}
+
+
+	// Private Methods
+	/**
+	 * Runs every benchmark requested with every combination of its parameters, and prints
+	 * the results.
+	 */
+	private static void run(Map<String, String> options) throws Exception {
+
+		List<String> benchmarks = parseBenchmarks(options.get("-benchmarks"));
+		int[] filesNumbers = parseInts(options, "-files", "4");
+		int[] filesSizes = parseInts(options, "-size", "1024");
+		int[] vocabularySizes = parseInts(options, "-vocabulary", "100000");
+		int[] threadsNumbers = parseInts(options, "-threads", String.valueOf(Runtime.getRuntime().availableProcessors()));
+		CorpusTypeEnum corpusType = CorpusTypeEnum.valueOf(options.getOrDefault("-corpus", CorpusTypeEnum.ZIPF.name()).toUpperCase(Locale.ROOT));
+		int warmupIterations = parseInts(options, "-warmup", "3")[0];
+		int measurementIterations = parseInts(options, "-iterations", "5")[0];
+		int iterationTime = parseInts(options, "-time", "1000")[0];
+		int forks = parseInts(options, "-forks", "1")[0];
+
+		List<BenchmarkResult> results = new ArrayList<BenchmarkResult>();
+
+		for (String benchmark : benchmarks) {
+			for (BenchmarkParams params : getParamsList(benchmark, filesNumbers, filesSizes, vocabularySizes, threadsNumbers, corpusType)) {
+
+				LogUtils.info("# Benchmark: " + benchmark + ", " + describe(params) + ", forks: " + forks);
+
+				BenchmarkResult result;
+				if (forks <= 0) {
+					result = runTrial(benchmark, params, new BenchmarkRunner(warmupIterations, measurementIterations, iterationTime));
+				} else {
+					result = runForks(benchmark, params, forks, warmupIterations, measurementIterations, iterationTime);
+				}
+
+				printRow(result);
+				results.add(result);
+
+			}
+		}
+
+		LogUtils.emptyLine();
+		printHeader();
+		for (BenchmarkResult result : results) {
+			printRow(result);
+		}
+
+	}
+
+	/**
+	 * Runs a benchmark in this JVM, with the arguments given by the parent JVM, and prints
+	 * its result in a line that the parent can parse.
+	 */
+	private static void runForked(String[] args) throws Exception {
+
+		String benchmark = args[1];
+		BenchmarkParams params = new BenchmarkParams(Integer.parseInt(args[2]),
+				Integer.parseInt(args[3]),
+				Integer.parseInt(args[4]),
+				Integer.parseInt(args[5]),
+				CorpusTypeEnum.valueOf(args[6]));
+		BenchmarkRunner runner = new BenchmarkRunner(Integer.parseInt(args[7]), Integer.parseInt(args[8]), Integer.parseInt(args[9]));
+
+		BenchmarkResult result = runTrial(benchmark, params, runner);
+
+		StringBuilder line = new StringBuilder(RESULT_PREFIX);
+		line.append(' ').append(result.getOperationsNumber())
+				.append(' ').append(result.getAllocatedBytes())
+				.append(' ').append(result.getGcCount())
+				.append(' ').append(result.getGcTime());
+		for (double time : result.getTimes()) {
+			line.append(' ').append(time);
+		}
+
+		System.out.println(line);
+
+	}
+
+	/**
+	 * Runs a benchmark in a new JVM for every fork, with the same class path and JVM
+	 * options as this one, and merges the iterations of all of them.
+	 */
+	private static BenchmarkResult runForks(String benchmark, BenchmarkParams params, int forks, int warmupIterations, int measurementIterations, int iterationTime) throws IOException, InterruptedException {
+
+		List<String> command = new ArrayList<String>();
+		command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+		command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(WordsCounterBenchmark.class.getName());
+		command.addAll(Arrays.asList(FORKED_OPTION,
+				benchmark,
+				String.valueOf(params.getFilesNumber()),
+				String.valueOf(params.getFilesSize()),
+				String.valueOf(params.getVocabularySize()),
+				String.valueOf(params.getThreadsNumber()),
+				params.getCorpusType().name(),
+				String.valueOf(warmupIterations),
+				String.valueOf(measurementIterations),
+				String.valueOf(iterationTime)));
+
+		List<Double> times = new ArrayList<Double>();
+		long operationsNumber = 0;
+		long allocatedBytes = 0;
+		long gcCount = 0;
+		long gcTime = 0;
+
+		for (int fork = 1; fork <= forks; fork++) {
+
+			Process process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+			boolean resultFound = false;
+
+			BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8));
+			try {
+
+				String line;
+				while ((line = reader.readLine()) != null) {
+
+					if (!line.startsWith(RESULT_PREFIX)) {
+						System.out.println(line);
+						continue;
+					}
+
+					String[] fields = line.split(" ");
+					operationsNumber += Long.parseLong(fields[1]);
+					long forkAllocatedBytes = Long.parseLong(fields[2]);
+					allocatedBytes = allocatedBytes < 0 || forkAllocatedBytes < 0 ? -1 : allocatedBytes + forkAllocatedBytes;
+					gcCount += Long.parseLong(fields[3]);
+					gcTime += Long.parseLong(fields[4]);
+					for (int i = 5; i < fields.length; i++) {
+						times.add(Double.parseDouble(fields[i]));
+					}
+					resultFound = true;
+
+				}
+
+			} finally {
+				reader.close();
+			}
+
+			int exitValue = process.waitFor();
+			if (exitValue != 0 || !resultFound) {
+				throw new IOException("The fork " + fork + " of " + benchmark + " has failed with exit value " + exitValue + ".");
+			}
+
+		}
+
+		double[] allTimes = new double[times.size()];
+		for (int i = 0; i < allTimes.length; i++) {
+			allTimes[i] = times.get(i);
+		}
+
+		return new BenchmarkResult(benchmark, params, allTimes, operationsNumber, allocatedBytes, gcCount, gcTime);
+
+	}
+
+	/**
+	 * Prepares the state of a benchmark, measures it and releases the state. The messages
+	 * of the program are silenced while the benchmark runs.
+	 */
+	private static BenchmarkResult runTrial(String benchmark, BenchmarkParams params, BenchmarkRunner runner) throws Exception {
+
+		final String text;
+		final ConcurrentMap<String, Frequency> words;
+		final WordsCounterService service;
+		File file = null;
+
+		boolean quiet = LogUtils.isQuiet();
+		LogUtils.setQuiet(true);
+
+		try {
+
+			switch (benchmark) {
+
+				case "countWords":
+					text = newText(params.getFilesSize(), params.getVocabularySize());
+					return runner.run(benchmark, params, () -> {
+						ConcurrentMap<String, Frequency> map = new ConcurrentHashMap<String, Frequency>();
+						Utils.countWords(text, map);
+						return map;
+					});
+
+				case "read":
+					file = File.createTempFile("WordsCounterBenchmark_", ".txt");
+					FileUtils.write(file.getPath(), FILE_ENCODING, newText(params.getFilesSize(), READ_VOCABULARY_SIZE));
+					final String path = file.getPath();
+					return runner.run(benchmark, params, () -> FileUtils.read(path, FILE_ENCODING));
+
+				case "sortedList":
+					words = new ConcurrentHashMap<String, Frequency>();
+					Utils.countWords(newText(params.getFilesSize(), params.getVocabularySize()), words);
+					return runner.run(benchmark, params, () -> {
+						FrequencyMap map = new FrequencyMap();
+						map.setMap(words);
+						return map.getSortedList(OrderEnum.DESC);
+					});
+
+				case "singleThread":
+				case "multithread":
+					service = new WordsCounterService(params.getFilesNumber(), params.getFilesSize());
+					service.setCorpusType(params.getCorpusType());
+					service.setVocabularySize(params.getVocabularySize());
+					service.setThreadsNumber(params.getThreadsNumber());
+					service.createWorkingFiles();
+					try {
+						final boolean singleThread = benchmark.equals("singleThread");
+						return runner.run(benchmark, params, () -> {
+							FrequencyMap map = new FrequencyMap();
+							if (singleThread) {
+								service.countWordsSingleThread(map, new LinkedList<ExecutionData>());
+							} else {
+								service.countWordsMultithread(map, new LinkedList<ExecutionData>());
+							}
+							return map;
+						});
+					} finally {
+						service.deleteWorkingFiles();
+					}
+
+				default:
+					throw new IllegalArgumentException("Unknown benchmark: " + benchmark);
+
+			}
+
+		} finally {
+
+			if (file != null) {
+				file.delete();
+			}
+			LogUtils.setQuiet(quiet);
+
+		}
+
+	}
+
+	/**
+	 * Builds a text of the given size, in kb, with words that follow Zipf's law.
+	 */
+	private static String newText(int textSize, int vocabularySize) {
+
+		MemoryCorpus corpus = MemoryCorpus.fromZipf(1, textSize * 1024L, vocabularySize, ZIPF_EXPONENT, TEXT_SEED);
+
+		try {
+
+			StringBuilder text = new StringBuilder();
+			for (ByteBuffer window : corpus.map(0)) {
+				text.append(StandardCharsets.UTF_8.decode(window));
+			}
+
+			return text.toString();
+
+		} finally {
+			corpus.release();
+		}
+
+	}
+
+	/**
+	 * Gets every combination of the parameters used by a benchmark. The parameters not
+	 * used are 0.
+	 */
+	private static List<BenchmarkParams> getParamsList(String benchmark, int[] filesNumbers, int[] filesSizes, int[] vocabularySizes, int[] threadsNumbers, CorpusTypeEnum corpusType) {
+
+		boolean withFiles = benchmark.equals("singleThread") || benchmark.equals("multithread");
+		boolean withVocabulary = !benchmark.equals("read") && (!withFiles || corpusType == CorpusTypeEnum.ZIPF);
+		boolean withThreads = benchmark.equals("multithread");
+
+		List<BenchmarkParams> paramsList = new ArrayList<BenchmarkParams>();
+
+		for (int filesNumber : withFiles ? filesNumbers : new int[] { 0 }) {
+			for (int filesSize : filesSizes) {
+				for (int vocabularySize : withVocabulary ? vocabularySizes : new int[] { 0 }) {
+					for (int threadsNumber : withThreads ? threadsNumbers : new int[] { 0 }) {
+						paramsList.add(new BenchmarkParams(filesNumber, filesSize, vocabularySize, threadsNumber, withFiles ? corpusType : CorpusTypeEnum.ZIPF));
+					}
+				}
+			}
+		}
+
+		return paramsList;
+
+	}
+
+	/**
+	 * Parses the options given as pairs of name and value.
+	 */
+	private static Map<String, String> parseOptions(String[] args) {
+
+		Map<String, String> options = new LinkedHashMap<String, String>();
+
+		for (int i = 0; i < args.length; i += 2) {
+			if (!args[i].startsWith("-") || i + 1 == args.length) {
+				throw new IllegalArgumentException("Invalid option: " + args[i]);
+			}
+			options.put(args[i], args[i + 1]);
+		}
+
+		return options;
+
+	}
+
+	private static List<String> parseBenchmarks(String value) {
+
+		if (value == null) {
+			return BENCHMARKS;
+		}
+
+		List<String> benchmarks = Arrays.asList(value.split(","));
+		for (String benchmark : benchmarks) {
+			if (!BENCHMARKS.contains(benchmark)) {
+				throw new IllegalArgumentException("Unknown benchmark: " + benchmark);
+			}
+		}
+
+		return benchmarks;
+
+	}
+
+	private static int[] parseInts(Map<String, String> options, String name, String defaultValue) {
+
+		String[] values = options.getOrDefault(name, defaultValue).split(",");
+		int[] ints = new int[values.length];
+
+		for (int i = 0; i < values.length; i++) {
+			if (!Utils.isNumeric(values[i])) {
+				throw new IllegalArgumentException("Invalid value of " + name + ": " + values[i]);
+			}
+			ints[i] = Integer.parseInt(values[i]);
+		}
+
+		return ints;
+
+	}
+
+	private static String describe(BenchmarkParams params) {
+
+		return "files: " + format(params.getFilesNumber())
+				+ ", size: " + format(params.getFilesSize()) + "kb"
+				+ ", vocabulary: " + format(params.getVocabularySize())
+				+ ", threads: " + format(params.getThreadsNumber())
+				+ ", corpus: " + params.getCorpusType();
+
+	}
+
+	private static void printHeader() {
+
+		System.out.printf(ROW_FORMAT, "Benchmark", "files", "size(kb)", "vocabulary", "threads", "corpus", "Cnt", "Score", "Error", "Units", "alloc(B/op)", "gc.count", "gc.time");
+
+	}
+
+	private static void printRow(BenchmarkResult result) {
+
+		BenchmarkParams params = result.getParams();
+
+		System.out.printf(ROW_FORMAT,
+				result.getName(),
+				format(params.getFilesNumber()),
+				format(params.getFilesSize()),
+				format(params.getVocabularySize()),
+				format(params.getThreadsNumber()),
+				params.getCorpusType(),
+				result.getTimes().length,
+				String.format(Locale.ROOT, "%.3f", result.getScore()),
+				Double.isNaN(result.getError()) ? "-" : String.format(Locale.ROOT, "+- %.3f", result.getError()),
+				"ms/op",
+				result.getAllocatedBytesPerOperation() < 0 ? "-" : String.valueOf(result.getAllocatedBytesPerOperation()),
+				result.getGcCount(),
+				result.getGcTime() + "ms");
+
+	}
+
+	private static String format(int param) {
+
+		return param == 0 ? "-" : String.valueOf(param);
+
+	}
+
+	private static void printUsage() {
+
+		LogUtils.info("Usage: WordsCounterBenchmark [option value]...");
+		LogUtils.info("  -benchmarks  benchmarks to run, from: " + String.join(",", BENCHMARKS) + " (default: all)");
+		LogUtils.info("  -files       numbers of working files (default: 4)");
+		LogUtils.info("  -size        sizes of the files or texts, in kb (default: 1024)");
+		LogUtils.info("  -vocabulary  sizes of the vocabulary of the texts (default: 100000)");
+		LogUtils.info("  -threads     numbers of threads (default: available processors)");
+		LogUtils.info("  -corpus      corpus of the working files: FILES, MEMORY or ZIPF (default: ZIPF)");
+		LogUtils.info("  -warmup      warm-up iterations (default: 3)");
+		LogUtils.info("  -iterations  measurement iterations (default: 5)");
+		LogUtils.info("  -time        minimum time of an iteration, in ms (default: 1000)");
+		LogUtils.info("  -forks       JVMs for every benchmark, 0 to run in this JVM (default: 1)");
+		LogUtils.info("The values of -files, -size, -vocabulary and -threads can be lists separated by commas.");
+
+	}
+
+}
@@ -0,0 +1,289 @@
+package com.wordscounter.tools;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.wordscounter.model.Frequency;
+import com.wordscounter.model.FrequencyMap;
+import com.wordscounter.util.LogUtils;
+import com.wordscounter.util.MemoryCorpus;
+import com.wordscounter.util.Utils;
+import com.wordscounter.util.WordTokenizer;
+
+
+/**
+ * Stress check of the counts shared by many threads: it hammers the same map from a
+ * number of threads at once, and checks that every count is exact, with no lost updates.
+ *
+ * <p>Every round runs two checks on a new map, so the first insertion of every word is
+ * contended too:
+ *
+ * <ul>
+ * <li><b>increments</b>: every thread calls {@link FrequencyMap#incrementFrequency(String)}
+ * and {@link FrequencyMap#addFrequency(String, long)} on the same few words.</li>
+ * <li><b>tokenizers</b>: every thread counts the same text into the same map with its own
+ * {@link WordTokenizer}, so the counts must be the ones of a single thread times the
+ * number of threads.</li>
+ * </ul>
+ *
+ * <p>It exits with status 0 if every count is exact, or 1 otherwise. For example:
+ *
+ * <pre>
+ * java com.wordscounter.tools.FrequencyMapStress -threads 8 -rounds 10
+ * </pre>
+ *
+ * @author Arekku
+ *
+ */
+public class FrequencyMapStress {
+
+	// Constants
+	private static final int HOT_WORDS_NUMBER = 16;
+	private static final long TEXT_SEED = 42;
+	private static final double ZIPF_EXPONENT = 1.0;
+
+
+	// Public Methods
+	public static void main(String[] args) {
+
+		try {
+
+			Map<String, String> options = parseOptions(args);
+
+			int threadsNumber = parseInt(options, "-threads", Math.max(4, 2 * Runtime.getRuntime().availableProcessors()));
+			int rounds = parseInt(options, "-rounds", 5);
+			int iterations = parseInt(options, "-iterations", 100000);
+			int textSize = parseInt(options, "-size", 256);
+			int vocabularySize = parseInt(options, "-vocabulary", 1000);
+
+			List<ByteBuffer> text = newText(textSize, vocabularySize);
+			boolean exact = true;
+
+			for (int round = 1; round <= rounds; round++) {
+				exact &= check("Round " + round + " increments", checkIncrements(threadsNumber, iterations));
+				exact &= check("Round " + round + " tokenizers", checkTokenizers(threadsNumber, text));
+			}
+
+			System.exit(exact ? 0 : 1);
+
+		} catch (IllegalArgumentException e) {
+
+			LogUtils.error(e.getMessage());
+			printUsage();
+			System.exit(1);
+
+		} catch (Exception e) {
+
+			LogUtils.error("The stress check has failed: " + e.toString());
+			System.exit(1);
+
+		}
+
+	}
+
+
+	// Private Methods
+	/**
+	 * Increments the same few words from every thread, and compares the counts with the
+	 * ones expected.
+	 * @return the words whose count is wrong, with the count expected and the count found.
+	 */
+	private static List<String> checkIncrements(int threadsNumber, final int iterations) throws Exception {
+
+		final FrequencyMap wordsMap = new FrequencyMap();
+
+		runThreads(threadsNumber, () -> {
+			for (int i = 0; i < iterations; i++) {
+				String word = "word" + (i % HOT_WORDS_NUMBER);
+				if (i % 2 == 0) {
+					wordsMap.incrementFrequency(word);
+				} else {
+					wordsMap.addFrequency(word, 2);
+				}
+			}
+		});
+
+		Map<String, Long> expected = new HashMap<String, Long>();
+		for (int i = 0; i < iterations; i++) {
+			expected.merge("word" + (i % HOT_WORDS_NUMBER), (i % 2 == 0 ? 1L : 2L) * threadsNumber, Long::sum);
+		}
+
+		return compare(expected, wordsMap.getMap());
+
+	}
+
+	/**
+	 * Counts the same text into the same map from every thread, and compares the counts
+	 * with the ones of a single thread times the number of threads.
+	 * @return the words whose count is wrong, with the count expected and the count found.
+	 */
+	private static List<String> checkTokenizers(int threadsNumber, final List<ByteBuffer> text) throws Exception {
+
+		Map<String, Frequency> singleMap = new HashMap<String, Frequency>();
+		WordTokenizer singleTokenizer = new WordTokenizer(singleMap);
+		for (ByteBuffer window : text) {
+			singleTokenizer.countWords(window);
+		}
+
+		Map<String, Long> expected = new HashMap<String, Long>();
+		for (Entry<String, Frequency> entry : singleMap.entrySet()) {
+			expected.put(entry.getKey(), entry.getValue().getCount() * threadsNumber);
+		}
+
+		final ConcurrentMap<String, Frequency> wordsMap = new ConcurrentHashMap<String, Frequency>();
+
+		runThreads(threadsNumber, () -> {
+			WordTokenizer tokenizer = new WordTokenizer(wordsMap);
+			for (ByteBuffer window : text) {
+				tokenizer.countWords(window.duplicate());
+			}
+		});
+
+		return compare(expected, wordsMap);
+
+	}
+
+	/**
+	 * Runs a task in a number of threads that start at the same time, and waits for all
+	 * of them.
+	 */
+	private static void runThreads(int threadsNumber, final Runnable task) throws Exception {
+
+		ExecutorService exec = Executors.newFixedThreadPool(threadsNumber);
+
+		try {
+
+			final CountDownLatch start = new CountDownLatch(1);
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+
+			for (int i = 0; i < threadsNumber; i++) {
+				futures.add(exec.submit(() -> {
+					start.await();
+					task.run();
+					return null;
+				}));
+			}
+
+			start.countDown();
+
+			for (Future<?> future : futures) {
+				future.get();
+			}
+
+		} finally {
+			exec.shutdown();
+		}
+
+	}
+
+	private static List<String> compare(Map<String, Long> expected, Map<String, Frequency> wordsMap) {
+
+		List<String> errors = new ArrayList<String>();
+
+		for (Entry<String, Long> entry : expected.entrySet()) {
+			Frequency freq = wordsMap.get(entry.getKey());
+			long count = freq != null ? freq.getCount() : 0;
+			if (count != entry.getValue()) {
+				errors.add(entry.getKey() + ": expected " + entry.getValue() + ", found " + count);
+			}
+		}
+		if (wordsMap.size() != expected.size()) {
+			errors.add("words: expected " + expected.size() + ", found " + wordsMap.size());
+		}
+
+		return errors;
+
+	}
+
+	private static boolean check(String name, List<String> errors) {
+
+		if (errors.isEmpty()) {
+			LogUtils.info(name + ": OK");
+			return true;
+		}
+
+		LogUtils.error(name + ": " + errors.size() + " wrong counts, like " + errors.subList(0, Math.min(5, errors.size())));
+		return false;
+
+	}
+
+	/**
+	 * Builds a text of the given size, in kb, with words that follow Zipf's law.
+	 */
+	private static List<ByteBuffer> newText(int textSize, int vocabularySize) {
+
+		MemoryCorpus corpus = MemoryCorpus.fromZipf(1, textSize * 1024L, vocabularySize, ZIPF_EXPONENT, TEXT_SEED);
+
+		try {
+
+			List<ByteBuffer> text = new ArrayList<ByteBuffer>();
+			for (ByteBuffer window : corpus.map(0)) {
+				ByteBuffer copy = ByteBuffer.allocate(window.remaining());
+				copy.put(window.duplicate()).flip();
+				text.add(copy);
+			}
+
+			return text;
+
+		} finally {
+			corpus.release();
+		}
+
+	}
+
+	/**
+	 * Parses the options given as pairs of name and value.
+	 */
+	private static Map<String, String> parseOptions(String[] args) {
+
+		Map<String, String> options = new LinkedHashMap<String, String>();
+
+		for (int i = 0; i < args.length; i += 2) {
+			if (!args[i].startsWith("-") || i + 1 == args.length) {
+				throw new IllegalArgumentException("Invalid option: " + args[i]);
+			}
+			options.put(args[i], args[i + 1]);
+		}
+
+		return options;
+
+	}
+
+	private static int parseInt(Map<String, String> options, String name, int defaultValue) {
+
+		String value = options.get(name);
+
+		if (value == null) {
+			return defaultValue;
+		}
+		if (!Utils.isNumeric(value) || Integer.parseInt(value) <= 0) {
+			throw new IllegalArgumentException("Invalid value of " + name + ": " + value);
+		}
+
+		return Integer.parseInt(value);
+
+	}
+
+	private static void printUsage() {
+
+		LogUtils.info("Usage: FrequencyMapStress [option value]...");
+		LogUtils.info("  -threads     threads that count at the same time (default: twice the available processors, 4 at least)");
+		LogUtils.info("  -rounds      rounds of checks, every one with new maps (default: 5)");
+		LogUtils.info("  -iterations  increments of every thread in a round (default: 100000)");
+		LogUtils.info("  -size        size of the text counted by every thread, in kb (default: 256)");
+		LogUtils.info("  -vocabulary  distinct words of the text (default: 1000)");
+
+	}
+
+}
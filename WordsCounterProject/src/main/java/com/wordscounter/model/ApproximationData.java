@@ -0,0 +1,107 @@
+package com.wordscounter.model;
+
+import java.util.List;
+
+public class ApproximationData {
+
+	// Attributes
+	private long totalWords;
+	private int summarySize;
+	private int sketchWidth;
+	private int sketchDepth;
+	private long memoryUsage;
+	private long summaryErrorBound;
+	private long sketchErrorBound;
+	private double sketchConfidence;
+	private List<Long> mostUsedWordsErrors;
+
+
+	// Constructors
+	public ApproximationData(long totalWords,
+			int summarySize,
+			int sketchWidth,
+			int sketchDepth,
+			long memoryUsage,
+			long summaryErrorBound,
+			long sketchErrorBound,
+			double sketchConfidence,
+			List<Long> mostUsedWordsErrors) {
+
+		this.totalWords = totalWords;
+		this.summarySize = summarySize;
+		this.sketchWidth = sketchWidth;
+		this.sketchDepth = sketchDepth;
+		this.memoryUsage = memoryUsage;
+		this.summaryErrorBound = summaryErrorBound;
+		this.sketchErrorBound = sketchErrorBound;
+		this.sketchConfidence = sketchConfidence;
+		this.mostUsedWordsErrors = mostUsedWordsErrors;
+
+	}
+
+
+	// Getters / Setters
+	public long getTotalWords() {
+		return totalWords;
+	}
+	public void setTotalWords(long totalWords) {
+		this.totalWords = totalWords;
+	}
+
+	public int getSummarySize() {
+		return summarySize;
+	}
+	public void setSummarySize(int summarySize) {
+		this.summarySize = summarySize;
+	}
+
+	public int getSketchWidth() {
+		return sketchWidth;
+	}
+	public void setSketchWidth(int sketchWidth) {
+		this.sketchWidth = sketchWidth;
+	}
+
+	public int getSketchDepth() {
+		return sketchDepth;
+	}
+	public void setSketchDepth(int sketchDepth) {
+		this.sketchDepth = sketchDepth;
+	}
+
+	public long getMemoryUsage() {
+		return memoryUsage;
+	}
+	public void setMemoryUsage(long memoryUsage) {
+		this.memoryUsage = memoryUsage;
+	}
+
+	public long getSummaryErrorBound() {
+		return summaryErrorBound;
+	}
+	public void setSummaryErrorBound(long summaryErrorBound) {
+		this.summaryErrorBound = summaryErrorBound;
+	}
+
+	public long getSketchErrorBound() {
+		return sketchErrorBound;
+	}
+	public void setSketchErrorBound(long sketchErrorBound) {
+		this.sketchErrorBound = sketchErrorBound;
+	}
+
+	public double getSketchConfidence() {
+		return sketchConfidence;
+	}
+	public void setSketchConfidence(double sketchConfidence) {
+		this.sketchConfidence = sketchConfidence;
+	}
+
+	public List<Long> getMostUsedWordsErrors() {
+		return mostUsedWordsErrors;
+	}
+	public void setMostUsedWordsErrors(List<Long> mostUsedWordsErrors) {
+		this.mostUsedWordsErrors = mostUsedWordsErrors;
+	}
+
+}
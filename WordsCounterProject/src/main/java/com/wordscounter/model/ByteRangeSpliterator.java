@@ -0,0 +1,179 @@
+package com.wordscounter.model;
+
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import com.wordscounter.util.FileUtils;
+
+
+/**
+ * Spliterator over the bytes of a list of files, in ranges that can be counted on their
+ * own.
+ *
+ * <p>Every element is a read-only range of at most the chunk size (unless a single word
+ * is longer), which ends at a whitespace, so no word is split between two elements.
+ * The files are mapped in memory lazily, when the traversal or a split reaches them.
+ *
+ * <p>A split first gives away half of the remaining files. Once a single file remains,
+ * it gives away half of its bytes, so parallel streams balance the work even with a few
+ * big files.
+ *
+ * <p>A problem while trying to map a file is thrown as an <i>UncheckedIOException</i>.
+ *
+ * @author Arekku
+ *
+ */
+public class ByteRangeSpliterator implements Spliterator<ByteBuffer> {
+
+	// Attributes
+	private List<String> filePaths;
+	private int nextFile;
+	private int toFile;
+	private int chunkSize;
+	private Deque<ByteBuffer> ranges;
+
+
+	// Constructors
+	/**
+	 * Creates a ByteRangeSpliterator over a list of files.
+	 *
+	 * @param filePaths the paths of the files.
+	 * @param chunkSize the maximum size of every element, in bytes.
+	 */
+	public ByteRangeSpliterator(List<String> filePaths, int chunkSize) {
+
+		this(filePaths, 0, filePaths.size(), chunkSize, new ArrayDeque<ByteBuffer>());
+
+	}
+
+	private ByteRangeSpliterator(List<String> filePaths, int fromFile, int toFile, int chunkSize, Deque<ByteBuffer> ranges) {
+
+		this.filePaths = filePaths;
+		this.nextFile = fromFile;
+		this.toFile = toFile;
+		this.chunkSize = chunkSize;
+		this.ranges = ranges;
+
+	}
+
+
+	// Override Methods
+	@Override
+	public boolean tryAdvance(Consumer<? super ByteBuffer> action) {
+
+		while (ranges.isEmpty()) {
+			if (nextFile >= toFile) {
+				return false;
+			}
+			mapNextFile();
+		}
+
+		ByteBuffer range = ranges.poll();
+
+		if (range.remaining() > chunkSize) {
+			int end = FileUtils.findWordBoundary(range, range.position() + chunkSize);
+			if (end < range.limit()) {
+				ranges.addFirst(slice(range, end, range.limit()));
+				range = slice(range, range.position(), end);
+			}
+		}
+
+		action.accept(range);
+		return true;
+
+	}
+
+	@Override
+	public Spliterator<ByteBuffer> trySplit() {
+
+		if (toFile - nextFile > 1) {
+			int middle = (nextFile + toFile) >>> 1;
+			ByteRangeSpliterator prefix = new ByteRangeSpliterator(filePaths, nextFile, middle, chunkSize, ranges);
+			nextFile = middle;
+			ranges = new ArrayDeque<ByteBuffer>();
+			return prefix;
+		}
+
+		if (ranges.isEmpty() && nextFile < toFile) {
+			mapNextFile();
+		}
+
+		if (ranges.size() > 1) {
+			Deque<ByteBuffer> prefixRanges = new ArrayDeque<ByteBuffer>();
+			for (int i = ranges.size() / 2; i > 0; i--) {
+				prefixRanges.add(ranges.poll());
+			}
+			return new ByteRangeSpliterator(filePaths, nextFile, nextFile, chunkSize, prefixRanges);
+		}
+
+		if (ranges.size() == 1 && ranges.peek().remaining() > chunkSize) {
+			ByteBuffer range = ranges.peek();
+			int middle = FileUtils.findWordBoundary(range, range.position() + range.remaining() / 2);
+			if (middle < range.limit()) {
+				Deque<ByteBuffer> prefixRanges = new ArrayDeque<ByteBuffer>();
+				prefixRanges.add(slice(range, range.position(), middle));
+				ranges.poll();
+				ranges.add(slice(range, middle, range.limit()));
+				return new ByteRangeSpliterator(filePaths, nextFile, nextFile, chunkSize, prefixRanges);
+			}
+		}
+
+		return null;
+
+	}
+
+	@Override
+	public long estimateSize() {
+
+		long size = toFile - nextFile;
+		for (ByteBuffer range : ranges) {
+			size += range.remaining() / chunkSize + 1;
+		}
+
+		return size;
+
+	}
+
+	@Override
+	public int characteristics() {
+
+		return NONNULL | IMMUTABLE;
+
+	}
+
+
+	// Private Methods
+	/**
+	 * Maps the next file in memory and adds its windows to the ranges.
+	 */
+	private void mapNextFile() {
+
+		try {
+			ranges.addAll(FileUtils.map(filePaths.get(nextFile++)));
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+	}
+
+	/**
+	 * Gets a view of the bytes between start (inclusive) and end (exclusive).
+	 */
+	private static ByteBuffer slice(ByteBuffer range, int start, int end) {
+
+		ByteBuffer slice = range.duplicate();
+		slice.limit(end);
+		slice.position(start);
+
+		return slice;
+
+	}
+
+}
@@ -0,0 +1,52 @@
+package com.wordscounter.model;
+
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.Callable;
+
+import com.wordscounter.util.FileParseEvent;
+import com.wordscounter.util.LogUtils;
+import com.wordscounter.util.WordTokenizer;
+
+
+/**
+ * Counts the words of a chunk of a working file with the tokenizer of the current thread.
+ *
+ * <p>Every thread of the pool has its own tokenizer and map, so chunks of the same file
+ * can be counted at the same time by different threads without sharing anything.
+ */
+public class ChunkParser implements Callable<String> {
+
+	private ByteBuffer chunk;
+	private int fileNumber;
+	private int workingFilesNumber;
+	private ThreadLocal<WordTokenizer> tokenizers;
+
+	public ChunkParser(ByteBuffer chunk, int fileNumber, int workingFilesNumber, ThreadLocal<WordTokenizer> tokenizers) {
+
+		this.chunk = chunk;
+		this.fileNumber = fileNumber;
+		this.workingFilesNumber = workingFilesNumber;
+		this.tokenizers = tokenizers;
+
+	}
+
+	public String call() {
+
+		LogUtils.infoProgress("(" + Thread.currentThread().getName() + ") Processing file", fileNumber, workingFilesNumber);
+
+		FileParseEvent event = new FileParseEvent();
+		event.begin();
+
+		WordTokenizer tokenizer = tokenizers.get();
+		long wordsNumber = tokenizer.getWordsNumber();
+
+		tokenizer.countWords(chunk);
+
+		event.commit(fileNumber, chunk.remaining(), tokenizer.getWordsNumber() - wordsNumber);
+
+		return "ok";
+
+	}
+
+}
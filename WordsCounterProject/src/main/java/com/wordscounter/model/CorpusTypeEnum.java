@@ -0,0 +1,7 @@
+package com.wordscounter.model;
+
+public enum CorpusTypeEnum {
+
+	FILES, MEMORY, ZIPF
+	
+}
@@ -8,11 +8,18 @@ public class ExecutionData {
 	// Attributes
 	private int id;
 	private ExecutionTypeEnum executionType;
+	private CorpusTypeEnum corpusType;
 	private int workingFilesNumber;
 	private int workingFilesSize;
+	private int threadsNumber;
 	private long executionTime;
 	private List<Entry<String, Frequency>> mostUsedWords;
 	private List<Entry<String, Frequency>> lessUsedWords;
+	private PipelineData pipelineData;
+	private ApproximationData approximationData;
+	private MetricsData metricsData;
+	private long distinctWords;
+	private double distinctWordsError;
 
 
 	// Constructors
@@ -50,6 +57,13 @@ public class ExecutionData {
 		this.executionType = executionType;
 	}
 
+	public CorpusTypeEnum getCorpusType() {
+		return corpusType;
+	}
+	public void setCorpusType(CorpusTypeEnum corpusType) {
+		this.corpusType = corpusType;
+	}
+
 	public int getWorkingFilesNumber() {
 		return workingFilesNumber;
 	}
@@ -64,6 +78,13 @@ public class ExecutionData {
 		this.workingFilesSize = workingFilesSize;
 	}
 
+	public int getThreadsNumber() {
+		return threadsNumber;
+	}
+	public void setThreadsNumber(int threadsNumber) {
+		this.threadsNumber = threadsNumber;
+	}
+
 	public long getExecutionTime() {
 		return executionTime;
 	}
@@ -85,5 +106,39 @@ public class ExecutionData {
 		this.lessUsedWords = lessUsedWords;
 	}
 
-}
+	public PipelineData getPipelineData() {
+		return pipelineData;
+	}
+	public void setPipelineData(PipelineData pipelineData) {
+		this.pipelineData = pipelineData;
+	}
+
+	public ApproximationData getApproximationData() {
+		return approximationData;
+	}
+	public void setApproximationData(ApproximationData approximationData) {
+		this.approximationData = approximationData;
+	}
+
+	public MetricsData getMetricsData() {
+		return metricsData;
+	}
+	public void setMetricsData(MetricsData metricsData) {
+		this.metricsData = metricsData;
+	}
 
+	public long getDistinctWords() {
+		return distinctWords;
+	}
+	public void setDistinctWords(long distinctWords) {
+		this.distinctWords = distinctWords;
+	}
+
+	public double getDistinctWordsError() {
+		return distinctWordsError;
+	}
+	public void setDistinctWordsError(double distinctWordsError) {
+		this.distinctWordsError = distinctWordsError;
+	}
+
+}
@@ -2,7 +2,6 @@ package com.wordscounter.model;
 
 public enum ExecutionTypeEnum {
 
-	SINGLETHREAD, MULTITHREAD
+	SINGLETHREAD, MULTITHREAD, SHARDED, CHUNKED, FORKJOIN, VIRTUALTHREAD, DICTIONARY, OFFHEAP, SPILLING, APPROXIMATE, DISTINCT, INCREMENTAL, DEDUPLICATED
 	
 }
-
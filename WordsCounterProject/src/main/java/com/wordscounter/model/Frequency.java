@@ -1,31 +1,52 @@
 package com.wordscounter.model;
 
+import java.util.concurrent.atomic.LongAdder;
+
 public class Frequency implements Comparable<Frequency> {
 
 	// Attributes
-	private int count;
+	private final LongAdder count;
 
 
 	// Constructors
 	public Frequency() {
 
-		this.count = 1;
+		this(1);
+
+	}
+
+	public Frequency(long count) {
+
+		this.count = new LongAdder();
+		this.count.add(count);
 
 	}
 
 
 	// Getters / Setters
-	public int getCount() {
-		return count;
+	public long getCount() {
+		return count.sum();
 	}
-	public void setCount(int count) {
-		this.count = count;
+	/**
+	 * Sets the count. Unlike the increments, it is not atomic: an increment done by
+	 * another thread at the same time can be lost. It must only be called while the
+	 * frequency is not shared with other threads.
+	 *
+	 * @param count the new count.
+	 */
+	public void setCount(long count) {
+		this.count.reset();
+		this.count.add(count);
 	}
 
 
 	// Methods
 	public void incrementFrequency() {
-		this.count++;
+		this.count.increment();
+	}
+
+	public void addFrequency(long count) {
+		this.count.add(count);
 	}
 
 
@@ -40,9 +61,8 @@ public class Frequency implements Comparable<Frequency> {
 	@Override
 	public int compareTo(Frequency freq) {
 
-		return Integer.compare(this.getCount(), freq.getCount());
+		return Long.compare(this.getCount(), freq.getCount());
 
 	}
 
 }
-
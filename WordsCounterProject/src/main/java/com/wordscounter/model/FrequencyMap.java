@@ -1,12 +1,21 @@
 package com.wordscounter.model;
 
-import java.util.Collections;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.Comparator;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.function.ObjLongConsumer;
+import java.util.stream.Collector;
+
+import com.wordscounter.util.BoundedHeap;
+import com.wordscounter.util.MapSortEvent;
+import com.wordscounter.util.WordCountView;
+import com.wordscounter.util.WordCountView.WordBytesConsumer;
 
 
 public class FrequencyMap {
@@ -15,6 +24,7 @@ public class FrequencyMap {
 	private ConcurrentMap<String, Frequency> map;
 	private List<Entry<String, Frequency>> list;
 	private OrderEnum listOrder;
+	private WordCountView store;
 
 
 	// Constructors
@@ -25,37 +35,271 @@ public class FrequencyMap {
 
 	// Getters / Setters
 	public ConcurrentMap<String, Frequency> getMap() {
+		materialize();
 		return map;
 	}
 	public void setMap(ConcurrentMap<String, Frequency> map) {
+		release();
 		this.map = map;
 	}
+	/**
+	 * Sets a store of words and counts as the content of the map. It is only read, so it
+	 * can be a read only view, like a loaded snapshot.
+	 * 
+	 * <p>No entry is created until the map is requested, so the most and less used
+	 * words can be reported by creating only the entries of those words, and the store
+	 * can keep its words outside of the heap. The previous content of the map is
+	 * released.
+	 * 
+	 * @param store the store with the count of every word.
+	 */
+	public void setStore(WordCountView store) {
+		release();
+		this.store = store;
+	}
 
 
 	// Methods
+	/**
+	 * Adds one occurrence of a word to the map.
+	 * 
+	 * <p>It can be called from many threads at the same time. Counts are never lost.
+	 * 
+	 * @param word the word to count.
+	 */
+	public void incrementFrequency(String word) {
+
+		getFrequency(getMap(), word).incrementFrequency();
+
+	}
+
+	/**
+	 * Adds a number of occurrences of a word to the map.
+	 * 
+	 * <p>It can be called from many threads at the same time. Counts are never lost.
+	 * 
+	 * @param word the word to count.
+	 * @param count the number of occurrences to add.
+	 */
+	public void addFrequency(String word, long count) {
+
+		getFrequency(getMap(), word).addFrequency(count);
+
+	}
+
+	/**
+	 * Gets the frequency of a word, inserting a frequency of 0 if the word is not
+	 * present yet.
+	 * 
+	 * <p>When the given map is a ConcurrentMap, only one frequency is ever inserted for
+	 * a word, even if many threads try it at the same time. Words already present are
+	 * found without locking.
+	 * 
+	 * @param wordsMap the map that stores the frequency of every word.
+	 * @param word the word to look for.
+	 * @return the frequency stored in the map for the word.
+	 */
+	public static Frequency getFrequency(Map<String, Frequency> wordsMap, String word) {
+
+		Frequency freq = wordsMap.get(word);
+
+		if (freq == null) {
+			Frequency newFreq = new Frequency(0);
+			freq = wordsMap.putIfAbsent(word, newFreq);
+			if (freq == null) {
+				freq = newFreq;
+			}
+		}
+
+		return freq;
+
+	}
+
+	/**
+	 * Calls the given action for every word of the map and its count, without creating
+	 * the entries of the store, if the map holds one.
+	 * 
+	 * @param action the action to call.
+	 */
+	public void forEach(ObjLongConsumer<String> action) {
+
+		if (store != null) {
+			store.forEach(action);
+		} else {
+			map.forEach((word, freq) -> action.accept(word, freq.getCount()));
+		}
+
+	}
+
+	/**
+	 * Calls the given action for every word of the map, with its UTF-8 bytes, and its
+	 * count. If the map holds a store, the bytes are the ones of the store, with no
+	 * <i>String</i> created.
+	 * 
+	 * @param action the action to call.
+	 */
+	public void forEachBytes(WordBytesConsumer action) {
+
+		if (store != null) {
+			store.forEachBytes(action);
+		} else {
+			map.forEach((word, freq) -> {
+				byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+				action.accept(ByteBuffer.wrap(bytes), 0, bytes.length, freq.getCount());
+			});
+		}
+
+	}
+
+	/**
+	 * Checks if the map keeps every word counted. Only some stores, like sketches, don't.
+	 * 
+	 * @return true if every word counted can be read from the map.
+	 */
+	public boolean keepsAllWords() {
+
+		return store == null || store.keepsAllWords();
+
+	}
+
+	/**
+	 * Gets the total number of occurrences of all the words of the map, without creating
+	 * the entries of the store, if the map holds one.
+	 * 
+	 * @return the number of occurrences.
+	 */
+	public long getWordsNumber() {
+
+		if (store != null) {
+			return store.getWordsNumber();
+		}
+
+		long wordsNumber = 0;
+		for (Frequency freq : map.values()) {
+			wordsNumber += freq.getCount();
+		}
+
+		return wordsNumber;
+
+	}
+
 	public List<Entry<String, Frequency>> getSortedList(final OrderEnum order) {
 
 		if (list == null || !order.equals(listOrder)) {
 
-			list = new LinkedList<Entry<String, Frequency>>(map.entrySet());
+			MapSortEvent event = new MapSortEvent();
+			event.begin();
 
-			Collections.sort(list, new Comparator<Entry<String, Frequency>>() {
-				public int compare(Entry<String, Frequency> o1, Entry<String, Frequency> o2) {
-					if (order == OrderEnum.ASC) {
-						return o1.getValue().compareTo(o2.getValue());
-					} else {
-						return o2.getValue().compareTo(o1.getValue());
-					}
-				}
-			});
+			list = new ArrayList<Entry<String, Frequency>>(getMap().entrySet());
+			list.sort(getComparator(order));
 
 			listOrder = order;
 
+			event.commit(order.name(), list.size(), list.size());
+
 		}
 
 		return list;
 
 	}
 
-}
+	/**
+	 * Gets the first entries of the map in the given order, without sorting the whole
+	 * map.
+	 * 
+	 * <p>The entries are scanned in parallel across the segments of the map. Every
+	 * segment keeps its best entries in a heap bounded to the given size, and the heaps
+	 * are merged at the end, so it takes O(n log size) time and O(size) memory per
+	 * thread. Entries with the same frequency are ordered by word.
+	 * 
+	 * <p>When the map holds a store, the selection is done by the store, which only
+	 * creates the selected entries.
+	 * 
+	 * @param order DESC to get the most used words, or ASC to get the less used ones.
+	 * @param size the maximum number of entries to get.
+	 * @return the first entries of the map, sorted in the given order.
+	 */
+	public List<Entry<String, Frequency>> getTopList(final OrderEnum order, final int size) {
+
+		final Comparator<Entry<String, Frequency>> comparator = getComparator(order);
+
+		if (size <= 0) {
+			return new ArrayList<Entry<String, Frequency>>();
+		}
+
+		MapSortEvent event = new MapSortEvent();
+		event.begin();
+
+		List<Entry<String, Frequency>> topList;
+		if (store != null) {
+			topList = store.getTopList(order, size);
+			event.commit(order.name(), store.size(), topList.size());
+			return topList;
+		}
+
+		topList = map.entrySet().parallelStream().collect(Collector.of(
+				() -> new BoundedHeap<Entry<String, Frequency>>(size, comparator),
+				BoundedHeap::offer,
+				(left, right) -> {
+					left.addAll(right);
+					return left;
+				},
+				BoundedHeap::toSortedList,
+				Collector.Characteristics.UNORDERED));
+		event.commit(order.name(), map.size(), topList.size());
+
+		return topList;
+
+	}
+
+	/**
+	 * Releases the memory held outside of the heap by the store of the map, if any.
+	 * The map is empty afterwards.
+	 */
+	public void release() {
+
+		if (store != null) {
+			store.release();
+			store = null;
+		}
 
+		map = new ConcurrentHashMap<String, Frequency>();
+		list = null;
+
+	}
+
+	/**
+	 * Gets the comparator of entries for the given order: by frequency, and then by word.
+	 * 
+	 * @param order DESC to sort from the most used words, or ASC from the less used ones.
+	 * @return the comparator of entries.
+	 */
+	public static Comparator<Entry<String, Frequency>> getComparator(OrderEnum order) {
+
+		Comparator<Entry<String, Frequency>> byFrequency = Entry.comparingByValue();
+		if (order == OrderEnum.DESC) {
+			byFrequency = byFrequency.reversed();
+		}
+
+		return byFrequency.thenComparing(Entry.comparingByKey());
+
+	}
+
+
+	// Private Methods
+	/**
+	 * Creates the entries of the store, if the map holds one, and releases it.
+	 */
+	private void materialize() {
+
+		if (store != null) {
+
+			store.copyTo(map);
+			store.release();
+			store = null;
+
+		}
+
+	}
+
+}
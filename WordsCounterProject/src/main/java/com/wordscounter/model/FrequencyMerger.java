@@ -0,0 +1,46 @@
+package com.wordscounter.model;
+
+
+import java.util.concurrent.Callable;
+
+import com.wordscounter.util.MapMergeEvent;
+import com.wordscounter.util.WordTable;
+
+
+/**
+ * Merges the counts of two tables into one of them, and returns it.
+ *
+ * <p>The smaller table is merged into the bigger one, so the fewest words are moved.
+ */
+public class FrequencyMerger implements Callable<WordTable> {
+
+	private WordTable target;
+	private WordTable source;
+
+	public FrequencyMerger(WordTable target, WordTable source) {
+
+		this.target = target;
+		this.source = source;
+
+	}
+
+	public WordTable call() {
+
+		MapMergeEvent event = new MapMergeEvent();
+		event.begin();
+
+		if (source.size() > target.size()) {
+			int mergedWords = target.size();
+			source.addAll(target);
+			event.commit(mergedWords, source.size());
+			return source;
+		}
+
+		int mergedWords = source.size();
+		target.addAll(source);
+		event.commit(mergedWords, target.size());
+		return target;
+
+	}
+
+}
@@ -0,0 +1,119 @@
+package com.wordscounter.model;
+
+import java.util.List;
+import java.util.Map;
+
+public class MetricsData {
+
+	// Attributes
+	private long elapsedTime;
+	private Map<String, Long> phaseTimes;
+	private List<ThreadData> threadsData;
+	private long allocatedBytes;
+	private long gcCount;
+	private long gcTime;
+	private long bytesNumber;
+	private long wordsNumber;
+
+
+	// Constructors
+	public MetricsData(long elapsedTime,
+			Map<String, Long> phaseTimes,
+			List<ThreadData> threadsData,
+			long allocatedBytes,
+			long gcCount,
+			long gcTime) {
+
+		this.elapsedTime = elapsedTime;
+		this.phaseTimes = phaseTimes;
+		this.threadsData = threadsData;
+		this.allocatedBytes = allocatedBytes;
+		this.gcCount = gcCount;
+		this.gcTime = gcTime;
+
+	}
+
+
+	// Getters / Setters
+	public long getElapsedTime() {
+		return elapsedTime;
+	}
+	public void setElapsedTime(long elapsedTime) {
+		this.elapsedTime = elapsedTime;
+	}
+
+	public Map<String, Long> getPhaseTimes() {
+		return phaseTimes;
+	}
+	public void setPhaseTimes(Map<String, Long> phaseTimes) {
+		this.phaseTimes = phaseTimes;
+	}
+
+	public List<ThreadData> getThreadsData() {
+		return threadsData;
+	}
+	public void setThreadsData(List<ThreadData> threadsData) {
+		this.threadsData = threadsData;
+	}
+
+	public long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+	public void setAllocatedBytes(long allocatedBytes) {
+		this.allocatedBytes = allocatedBytes;
+	}
+
+	public long getGcCount() {
+		return gcCount;
+	}
+	public void setGcCount(long gcCount) {
+		this.gcCount = gcCount;
+	}
+
+	public long getGcTime() {
+		return gcTime;
+	}
+	public void setGcTime(long gcTime) {
+		this.gcTime = gcTime;
+	}
+
+	public long getBytesNumber() {
+		return bytesNumber;
+	}
+	public void setBytesNumber(long bytesNumber) {
+		this.bytesNumber = bytesNumber;
+	}
+
+	public long getWordsNumber() {
+		return wordsNumber;
+	}
+	public void setWordsNumber(long wordsNumber) {
+		this.wordsNumber = wordsNumber;
+	}
+
+
+	// Methods
+	/**
+	 * Gets the bytes of the working texts counted per second.
+	 *
+	 * @return the bytes per second, or 0 if the elapsed time is not known.
+	 */
+	public double getBytesPerSecond() {
+
+		return elapsedTime > 0 ? bytesNumber * 1e9 / elapsedTime : 0;
+
+	}
+
+	/**
+	 * Gets the words counted per second.
+	 *
+	 * @return the words per second, or 0 if the elapsed time or the number of words is
+	 *         not known.
+	 */
+	public double getWordsPerSecond() {
+
+		return elapsedTime > 0 && wordsNumber > 0 ? wordsNumber * 1e9 / elapsedTime : 0;
+
+	}
+
+}
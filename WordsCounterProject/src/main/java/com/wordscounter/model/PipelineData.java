@@ -0,0 +1,85 @@
+package com.wordscounter.model;
+
+public class PipelineData {
+
+	// Attributes
+	private int readersNumber;
+	private int parsersNumber;
+	private long maxInFlightBytes;
+	private int maxQueueDepth;
+	private double averageQueueDepth;
+	private long readersStallTime;
+	private long parsersStallTime;
+
+
+	// Constructors
+	public PipelineData(int readersNumber,
+			int parsersNumber,
+			long maxInFlightBytes,
+			int maxQueueDepth,
+			double averageQueueDepth,
+			long readersStallTime,
+			long parsersStallTime) {
+
+		this.readersNumber = readersNumber;
+		this.parsersNumber = parsersNumber;
+		this.maxInFlightBytes = maxInFlightBytes;
+		this.maxQueueDepth = maxQueueDepth;
+		this.averageQueueDepth = averageQueueDepth;
+		this.readersStallTime = readersStallTime;
+		this.parsersStallTime = parsersStallTime;
+
+	}
+
+
+	// Getters / Setters
+	public int getReadersNumber() {
+		return readersNumber;
+	}
+	public void setReadersNumber(int readersNumber) {
+		this.readersNumber = readersNumber;
+	}
+
+	public int getParsersNumber() {
+		return parsersNumber;
+	}
+	public void setParsersNumber(int parsersNumber) {
+		this.parsersNumber = parsersNumber;
+	}
+
+	public long getMaxInFlightBytes() {
+		return maxInFlightBytes;
+	}
+	public void setMaxInFlightBytes(long maxInFlightBytes) {
+		this.maxInFlightBytes = maxInFlightBytes;
+	}
+
+	public int getMaxQueueDepth() {
+		return maxQueueDepth;
+	}
+	public void setMaxQueueDepth(int maxQueueDepth) {
+		this.maxQueueDepth = maxQueueDepth;
+	}
+
+	public double getAverageQueueDepth() {
+		return averageQueueDepth;
+	}
+	public void setAverageQueueDepth(double averageQueueDepth) {
+		this.averageQueueDepth = averageQueueDepth;
+	}
+
+	public long getReadersStallTime() {
+		return readersStallTime;
+	}
+	public void setReadersStallTime(long readersStallTime) {
+		this.readersStallTime = readersStallTime;
+	}
+
+	public long getParsersStallTime() {
+		return parsersStallTime;
+	}
+	public void setParsersStallTime(long parsersStallTime) {
+		this.parsersStallTime = parsersStallTime;
+	}
+
+}
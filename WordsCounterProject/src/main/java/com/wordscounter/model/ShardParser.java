@@ -0,0 +1,69 @@
+package com.wordscounter.model;
+
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import com.wordscounter.util.Corpus;
+import com.wordscounter.util.FileParseEvent;
+import com.wordscounter.util.LogUtils;
+import com.wordscounter.util.WordCountStore;
+import com.wordscounter.util.WordTokenizer;
+
+
+/**
+ * Counts the words of a share of the texts of a corpus into a private store.
+ *
+ * <p>All the parsers of an execution take the next text to process from the same
+ * counter, so a thread that finishes early keeps on taking files. The store is not shared
+ * with other threads, so it doesn't need any synchronization.
+ *
+ * @param <T> the type of store the words are counted into.
+ */
+public class ShardParser<T extends WordCountStore> implements Callable<T> {
+
+	private Corpus corpus;
+	private AtomicInteger nextFile;
+	private Supplier<T> storeFactory;
+
+	public ShardParser(Corpus corpus, AtomicInteger nextFile, Supplier<T> storeFactory) {
+
+		this.corpus = corpus;
+		this.nextFile = nextFile;
+		this.storeFactory = storeFactory;
+
+	}
+
+	public T call() throws IOException {
+
+		T store = storeFactory.get();
+		WordTokenizer tokenizer = new WordTokenizer(store);
+
+		int fileIndex;
+		while ((fileIndex = nextFile.getAndIncrement()) < corpus.size()) {
+
+			LogUtils.infoProgress("(" + Thread.currentThread().getName() + ") Processing file", fileIndex + 1, corpus.size());
+
+			FileParseEvent event = new FileParseEvent();
+			event.begin();
+
+			long bytes = 0;
+			long wordsNumber = tokenizer.getWordsNumber();
+
+			for (ByteBuffer window : corpus.map(fileIndex)) {
+				bytes += window.remaining();
+				tokenizer.countWords(window);
+			}
+
+			event.commit(fileIndex + 1, bytes, tokenizer.getWordsNumber() - wordsNumber);
+
+		}
+
+		return store;
+
+	}
+
+}
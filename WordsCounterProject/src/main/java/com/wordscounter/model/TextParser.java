@@ -1,34 +1,57 @@
 package com.wordscounter.model;
 
 
+import java.nio.ByteBuffer;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentMap;
 
+import com.wordscounter.util.FileParseEvent;
 import com.wordscounter.util.LogUtils;
-import com.wordscounter.util.Utils;
+import com.wordscounter.util.WordTokenizer;
 
 
 public class TextParser implements Callable<String> {
 
-	private String fileText;
+	private List<? extends ByteBuffer> fileWindows;
 	private int fileNumber;
 	private int workingFilesNumber;
 	private ConcurrentMap<String, Frequency> wordsMap;
 
-	public TextParser(String fileText, int fileNumber, int workingFilesNumber, ConcurrentMap<String, Frequency> wordsMap) {
+	public TextParser(List<? extends ByteBuffer> fileWindows, int fileNumber, int workingFilesNumber, ConcurrentMap<String, Frequency> wordsMap) {
 
-		this.fileText = fileText;
+		this.fileWindows = fileWindows;
 		this.fileNumber = fileNumber;
 		this.workingFilesNumber = workingFilesNumber;
 		this.wordsMap = wordsMap;
 
 	}
 
+	public long getFileSize() {
+
+		long fileSize = 0;
+		for (ByteBuffer window : fileWindows) {
+			fileSize += window.remaining();
+		}
+
+		return fileSize;
+
+	}
+
 	public String call() {
 
 		LogUtils.infoProgress("(" + Thread.currentThread().getName() + ") Processing file", fileNumber, workingFilesNumber);
 
-		Utils.countWords(fileText, wordsMap);
+		FileParseEvent event = new FileParseEvent();
+		event.begin();
+
+		WordTokenizer tokenizer = new WordTokenizer(wordsMap);
+
+		for (ByteBuffer window : fileWindows) {
+			tokenizer.countWords(window);
+		}
+
+		event.commit(fileNumber, getFileSize(), tokenizer.getWordsNumber());
 
 		return "ok";
 
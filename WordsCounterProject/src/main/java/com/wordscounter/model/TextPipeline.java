@@ -0,0 +1,288 @@
+package com.wordscounter.model;
+
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.wordscounter.util.Corpus;
+import com.wordscounter.util.FileReadEvent;
+
+
+/**
+ * Counts the words of the texts of a corpus with a staged pipeline of readers and
+ * parsers.
+ *
+ * <p>The reader threads map every file of the corpus and load its bytes in memory, then
+ * put a <i>TextParser</i> for it in a queue. Texts already in memory are queued as they
+ * are. The parser threads take the parsers from the queue
+ * and count the words into a shared map. Reading and parsing overlap, and the bytes read
+ * but not parsed yet never exceed a fixed amount, so memory use doesn't depend on the
+ * number of files.
+ *
+ * <p>The pipeline records the depth of the queue and the time readers wait for free
+ * space and parsers wait for files, so the number of threads of each stage can be tuned.
+ *
+ * @author Arekku
+ *
+ */
+public class TextPipeline {
+
+	// Constants
+	private static final TextParser END_OF_FILES = new TextParser(Collections.<ByteBuffer>emptyList(), 0, 0, null);
+	private static final int PERMIT_SIZE = 1024;
+
+
+	// Attributes
+	private Corpus corpus;
+	private ConcurrentMap<String, Frequency> wordsMap;
+
+	private int readersNumber;
+	private int parsersNumber;
+	private long maxInFlightBytes;
+
+	private BlockingQueue<TextParser> queue;
+	private Semaphore inFlightPermits;
+	private int maxPermits;
+	private AtomicInteger nextFile;
+	private AtomicInteger activeReaders;
+	private volatile boolean aborted;
+
+	private AtomicInteger maxQueueDepth;
+	private AtomicLong queueDepthSum;
+	private AtomicLong readersStallTime;
+	private AtomicLong parsersStallTime;
+
+
+	// Constructors
+	/**
+	 * Creates a TextPipeline for the texts of a corpus.
+	 *
+	 * @param corpus the corpus to parse.
+	 * @param wordsMap the map that will store the frequency of every word.
+	 * @param readersNumber the number of reader threads.
+	 * @param parsersNumber the number of parser threads.
+	 * @param maxInFlightBytes the maximum number of bytes read and waiting to be parsed.
+	 */
+	public TextPipeline(Corpus corpus, ConcurrentMap<String, Frequency> wordsMap, int readersNumber, int parsersNumber, long maxInFlightBytes) {
+
+		this.corpus = corpus;
+		this.wordsMap = wordsMap;
+
+		this.readersNumber = readersNumber;
+		this.parsersNumber = parsersNumber;
+		this.maxInFlightBytes = maxInFlightBytes;
+
+		this.queue = new LinkedBlockingQueue<TextParser>();
+		this.maxPermits = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxInFlightBytes / PERMIT_SIZE));
+		this.inFlightPermits = new Semaphore(maxPermits);
+		this.nextFile = new AtomicInteger();
+		this.activeReaders = new AtomicInteger(readersNumber);
+
+		this.maxQueueDepth = new AtomicInteger();
+		this.queueDepthSum = new AtomicLong();
+		this.readersStallTime = new AtomicLong();
+		this.parsersStallTime = new AtomicLong();
+
+	}
+
+
+	// Public Methods
+	/**
+	 * Runs the pipeline until all the files are parsed.
+	 *
+	 * @return the statistics of the pipeline.
+	 * @throws InterruptedException if one of the threads created by this method is
+	 *         interrupted.
+	 * @throws ExecutionException if one of the threads created by this method has an
+	 *         execution error, including a problem while trying to read a file.
+	 */
+	public PipelineData run() throws InterruptedException, ExecutionException {
+
+		return run(Executors.defaultThreadFactory());
+
+	}
+
+	/**
+	 * Runs the pipeline until all the files are parsed, with threads created by the given
+	 * factory.
+	 *
+	 * @param threadFactory the factory of the reader and parser threads.
+	 * @return the statistics of the pipeline.
+	 * @throws InterruptedException if one of the threads created by this method is
+	 *         interrupted.
+	 * @throws ExecutionException if one of the threads created by this method has an
+	 *         execution error, including a problem while trying to read a file.
+	 */
+	public PipelineData run(ThreadFactory threadFactory) throws InterruptedException, ExecutionException {
+
+		ExecutorService exec = Executors.newFixedThreadPool(readersNumber + parsersNumber, threadFactory);
+
+		try {
+
+			List<Future<String>> futures = new ArrayList<Future<String>>();
+
+			for (int i = 0; i < readersNumber; i++) {
+				futures.add(exec.submit(new Reader()));
+			}
+			for (int i = 0; i < parsersNumber; i++) {
+				futures.add(exec.submit(new Parser()));
+			}
+
+			for (Future<String> future : futures) {
+				future.get();
+			}
+
+		} finally {
+			exec.shutdown();
+		}
+
+		double averageQueueDepth = corpus.size() == 0 ? 0 : (double) queueDepthSum.get() / corpus.size();
+
+		return new PipelineData(readersNumber, parsersNumber, maxInFlightBytes, maxQueueDepth.get(), averageQueueDepth, readersStallTime.get(), parsersStallTime.get());
+
+	}
+
+
+	// Private Methods
+	/**
+	 * Gets the number of permits a file holds while it is in flight.
+	 * A file bigger than the limit takes all the permits, so it can still be read.
+	 */
+	private int getPermits(long fileSize) {
+
+		return (int) Math.min(maxPermits, (fileSize + PERMIT_SIZE - 1) / PERMIT_SIZE);
+
+	}
+
+
+	// Private Classes
+	/**
+	 * Maps and loads the next files in memory, and puts them in the queue.
+	 * The last reader to finish tells the parsers there are no more files.
+	 */
+	private class Reader implements Callable<String> {
+
+		public String call() throws IOException, InterruptedException {
+
+			try {
+
+				int fileIndex;
+				while (!aborted && (fileIndex = nextFile.getAndIncrement()) < corpus.size()) {
+
+					List<? extends ByteBuffer> fileWindows = corpus.map(fileIndex);
+					TextParser parser = new TextParser(fileWindows, fileIndex + 1, corpus.size(), wordsMap);
+
+					long startTime = System.currentTimeMillis();
+					inFlightPermits.acquire(getPermits(parser.getFileSize()));
+					readersStallTime.addAndGet(System.currentTimeMillis() - startTime);
+
+					loadWindows(fileWindows, fileIndex);
+
+					queue.put(parser);
+
+					int queueDepth = queue.size();
+					queueDepthSum.addAndGet(queueDepth);
+					maxQueueDepth.accumulateAndGet(queueDepth, Math::max);
+
+				}
+
+			} catch (IOException | RuntimeException e) {
+				aborted = true;
+				throw e;
+			} finally {
+				if (activeReaders.decrementAndGet() == 0) {
+					for (int i = 0; i < parsersNumber; i++) {
+						queue.put(END_OF_FILES);
+					}
+				}
+			}
+
+			return "ok";
+
+		}
+
+		/**
+		 * Loads the windows of a mapped file in memory, so the parsers don't wait for the
+		 * disk, and records the load as the read of the file.
+		 */
+		private void loadWindows(List<? extends ByteBuffer> fileWindows, int fileIndex) {
+
+			FileReadEvent event = new FileReadEvent();
+			event.begin();
+
+			long bytes = 0;
+			for (ByteBuffer window : fileWindows) {
+				if (window instanceof MappedByteBuffer) {
+					((MappedByteBuffer) window).load();
+					bytes += window.remaining();
+				}
+			}
+
+			if (bytes > 0) {
+				event.commit(fileIndex + 1, corpus.getName(fileIndex), bytes);
+			}
+
+		}
+
+	}
+
+	/**
+	 * Takes files from the queue and counts their words, until there are no more files.
+	 * If a parser fails, it keeps on draining the queue, so the readers are never blocked.
+	 */
+	private class Parser implements Callable<String> {
+
+		public String call() throws InterruptedException {
+
+			RuntimeException error = null;
+
+			while (true) {
+
+				long startTime = System.currentTimeMillis();
+				TextParser parser = queue.take();
+				parsersStallTime.addAndGet(System.currentTimeMillis() - startTime);
+
+				if (parser == END_OF_FILES) {
+					break;
+				}
+
+				try {
+					if (error == null) {
+						parser.call();
+					}
+				} catch (RuntimeException e) {
+					aborted = true;
+					error = e;
+				} finally {
+					inFlightPermits.release(getPermits(parser.getFileSize()));
+				}
+
+			}
+
+			if (error != null) {
+				throw error;
+			}
+
+			return "ok";
+
+		}
+
+	}
+
+}
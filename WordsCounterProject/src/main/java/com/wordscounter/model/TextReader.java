@@ -0,0 +1,57 @@
+package com.wordscounter.model;
+
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+
+import com.wordscounter.util.Corpus;
+import com.wordscounter.util.WordTokenizer;
+
+
+/**
+ * Reads a text of a corpus and hands its bytes to a pool of parser threads.
+ *
+ * <p>It is meant to run on its own virtual thread. Its blocking read pins the carrier
+ * thread, and the scheduler adds a carrier for a while to make up for it. A semaphore
+ * limits the files opened and not counted yet, so the memory used by the read files
+ * stays bounded.
+ */
+public class TextReader implements Callable<String> {
+
+	private Corpus corpus;
+	private int fileNumber;
+	private int workingFilesNumber;
+	private Semaphore openFiles;
+	private ExecutorService parsers;
+	private ThreadLocal<WordTokenizer> tokenizers;
+
+	public TextReader(Corpus corpus, int fileNumber, int workingFilesNumber, Semaphore openFiles, ExecutorService parsers, ThreadLocal<WordTokenizer> tokenizers) {
+
+		this.corpus = corpus;
+		this.fileNumber = fileNumber;
+		this.workingFilesNumber = workingFilesNumber;
+		this.openFiles = openFiles;
+		this.parsers = parsers;
+		this.tokenizers = tokenizers;
+
+	}
+
+	public String call() throws Exception {
+
+		openFiles.acquire();
+
+		try {
+
+			ByteBuffer fileBytes = corpus.read(fileNumber - 1);
+
+			return parsers.submit(new ChunkParser(fileBytes, fileNumber, workingFilesNumber, tokenizers)).get();
+
+		} finally {
+			openFiles.release();
+		}
+
+	}
+
+}
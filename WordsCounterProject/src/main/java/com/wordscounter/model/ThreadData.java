@@ -0,0 +1,55 @@
+package com.wordscounter.model;
+
+public class ThreadData {
+
+	// Attributes
+	private String name;
+	private long busyTime;
+	private long idleTime;
+	private long allocatedBytes;
+
+
+	// Constructors
+	public ThreadData(String name,
+			long busyTime,
+			long idleTime,
+			long allocatedBytes) {
+
+		this.name = name;
+		this.busyTime = busyTime;
+		this.idleTime = idleTime;
+		this.allocatedBytes = allocatedBytes;
+
+	}
+
+
+	// Getters / Setters
+	public String getName() {
+		return name;
+	}
+	public void setName(String name) {
+		this.name = name;
+	}
+
+	public long getBusyTime() {
+		return busyTime;
+	}
+	public void setBusyTime(long busyTime) {
+		this.busyTime = busyTime;
+	}
+
+	public long getIdleTime() {
+		return idleTime;
+	}
+	public void setIdleTime(long idleTime) {
+		this.idleTime = idleTime;
+	}
+
+	public long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+	public void setAllocatedBytes(long allocatedBytes) {
+		this.allocatedBytes = allocatedBytes;
+	}
+
+}
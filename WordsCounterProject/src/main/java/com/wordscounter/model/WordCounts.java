@@ -0,0 +1,185 @@
+package com.wordscounter.model;
+
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.BiConsumer;
+import java.util.stream.Collector;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import com.wordscounter.util.FileUtils;
+import com.wordscounter.util.WordTable;
+import com.wordscounter.util.WordTokenizer;
+
+
+/**
+ * Stream API of the words counter, to count the words of any source from other code.
+ *
+ * <p>The collectors count the words of every element of a stream into a
+ * <i>FrequencyMap</i>. Every thread of a parallel stream counts into its own
+ * <i>WordTable</i>, and the tables are merged by the combiner, so parallel streams scale
+ * with no contention:
+ *
+ * <pre>
+ * FrequencyMap wordsMap = paths.parallelStream().collect(WordCounts.collector());
+ * </pre>
+ *
+ * <p>To split the work inside big files too, stream their byte ranges instead:
+ *
+ * <pre>
+ * FrequencyMap wordsMap = WordCounts.byteRanges(paths, true).collect(WordCounts.bytesCollector());
+ * </pre>
+ *
+ * <p>Problems while trying to read a file are thrown as <i>UncheckedIOException</i>.
+ *
+ * @author Arekku
+ *
+ */
+public final class WordCounts {
+
+	// Constants
+	public static final int DEFAULT_CHUNK_SIZE = 1024 * 1024;
+
+
+	// Constructors
+	private WordCounts() {
+	}
+
+
+	// Public Methods
+	/**
+	 * Gets a collector that counts the words of every file of a stream of paths.
+	 * The files must be encoded in UTF-8.
+	 *
+	 * @return the collector.
+	 */
+	public static Collector<Path, ?, FrequencyMap> collector() {
+
+		return newCollector((Counter counter, Path path) -> {
+			try {
+				for (ByteBuffer window : FileUtils.map(path.toString())) {
+					counter.tokenizer.countWords(window);
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		});
+
+	}
+
+	/**
+	 * Gets a collector that counts the words of every buffer of a stream, from its
+	 * position to its limit. The bytes must be encoded in UTF-8, and no word can be split
+	 * between two buffers.
+	 *
+	 * @return the collector.
+	 */
+	public static Collector<ByteBuffer, ?, FrequencyMap> bytesCollector() {
+
+		return newCollector((Counter counter, ByteBuffer bytes) -> counter.tokenizer.countWords(bytes));
+
+	}
+
+	/**
+	 * Gets a collector that counts the words of every text of a stream, like the lines of
+	 * a file. No word can be split between two texts.
+	 *
+	 * @return the collector.
+	 */
+	public static Collector<CharSequence, ?, FrequencyMap> textCollector() {
+
+		return newCollector((Counter counter, CharSequence text) -> counter.tokenizer.countWords(text));
+
+	}
+
+	/**
+	 * Gets a spliterator over the bytes of a list of files, in ranges that end at a word
+	 * boundary. See <i>ByteRangeSpliterator</i>.
+	 *
+	 * @param paths the paths of the files.
+	 * @param chunkSize the maximum size of every range, in bytes.
+	 * @return the spliterator.
+	 */
+	public static Spliterator<ByteBuffer> spliterator(List<Path> paths, int chunkSize) {
+
+		List<String> filePaths = new ArrayList<String>();
+		for (Path path : paths) {
+			filePaths.add(path.toString());
+		}
+
+		return new ByteRangeSpliterator(filePaths, chunkSize);
+
+	}
+
+	/**
+	 * Gets a stream over the bytes of a list of files, in ranges of 1 MB at most that end
+	 * at a word boundary.
+	 *
+	 * @param paths the paths of the files.
+	 * @param parallel true to get a parallel stream.
+	 * @return the stream of byte ranges.
+	 */
+	public static Stream<ByteBuffer> byteRanges(List<Path> paths, boolean parallel) {
+
+		return StreamSupport.stream(spliterator(paths, DEFAULT_CHUNK_SIZE), parallel);
+
+	}
+
+
+	// Private Methods
+	/**
+	 * Creates a collector with the given accumulator.
+	 */
+	private static <T> Collector<T, Counter, FrequencyMap> newCollector(BiConsumer<Counter, T> accumulator) {
+
+		return Collector.of(Counter::new, accumulator, WordCounts::combine, WordCounts::finish, Collector.Characteristics.UNORDERED);
+
+	}
+
+	/**
+	 * Merges the smaller counter into the bigger one, and returns the bigger one.
+	 */
+	private static Counter combine(Counter left, Counter right) {
+
+		if (left.wordTable.size() < right.wordTable.size()) {
+			right.wordTable.addAll(left.wordTable);
+			return right;
+		}
+
+		left.wordTable.addAll(right.wordTable);
+		return left;
+
+	}
+
+	/**
+	 * Builds a FrequencyMap with the words of a counter.
+	 */
+	private static FrequencyMap finish(Counter counter) {
+
+		FrequencyMap wordsMap = new FrequencyMap();
+		counter.wordTable.copyTo(wordsMap.getMap());
+
+		return wordsMap;
+
+	}
+
+
+	// Private Classes
+	/**
+	 * Mutable result container of the collectors: a table and a tokenizer that counts
+	 * into it.
+	 */
+	private static class Counter {
+
+		private final WordTable wordTable = new WordTable();
+		private final WordTokenizer tokenizer = new WordTokenizer(wordTable);
+
+	}
+
+}
@@ -0,0 +1,183 @@
+package com.wordscounter.model;
+
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RecursiveTask;
+
+import com.wordscounter.util.Corpus;
+import com.wordscounter.util.FileUtils;
+import com.wordscounter.util.LogUtils;
+import com.wordscounter.util.WordTable;
+import com.wordscounter.util.WordTokenizer;
+
+
+/**
+ * Counts the words of a range of texts of a corpus, or of a range of bytes of a text,
+ * with the Fork/Join framework.
+ *
+ * <p>A range of files is split in half until a single file remains. That file is mapped
+ * in memory, and its bytes are split in half, at a whitespace so no word is split, until
+ * the range is smaller than the threshold. Every leaf counts its words into a local
+ * table, and the tables are merged on the way back up. Idle threads steal the pending halves, so
+ * the work is balanced even if the sizes of the files are very different.
+ *
+ * <p>A problem while trying to read a file is thrown as an <i>UncheckedIOException</i>.
+ *
+ * @author Arekku
+ *
+ */
+public class WordsCountTask extends RecursiveTask<WordTable> {
+
+	private static final long serialVersionUID = 1L;
+
+
+	// Attributes
+	private transient Corpus corpus;
+	private int fromFile;
+	private int toFile;
+	private transient ByteBuffer bytes;
+	private int threshold;
+
+
+	// Constructors
+	/**
+	 * Creates a WordsCountTask for all the texts of a corpus.
+	 *
+	 * @param corpus the corpus to parse.
+	 * @param threshold the maximum number of bytes parsed by a single task.
+	 */
+	public WordsCountTask(Corpus corpus, int threshold) {
+
+		this(corpus, 0, corpus.size(), threshold);
+
+	}
+
+	/**
+	 * Creates a WordsCountTask for a range of texts of a corpus.
+	 *
+	 * @param corpus the corpus to parse.
+	 * @param fromFile the index of the first text to parse.
+	 * @param toFile the index after the last text to parse.
+	 * @param threshold the maximum number of bytes parsed by a single task.
+	 */
+	public WordsCountTask(Corpus corpus, int fromFile, int toFile, int threshold) {
+
+		this.corpus = corpus;
+		this.fromFile = fromFile;
+		this.toFile = toFile;
+		this.threshold = threshold;
+
+	}
+
+	private WordsCountTask(ByteBuffer bytes, int threshold) {
+
+		this.bytes = bytes;
+		this.threshold = threshold;
+
+	}
+
+
+	// Override Methods
+	@Override
+	protected WordTable compute() {
+
+		if (bytes != null) {
+			return computeBytes();
+		} else {
+			return computeFiles();
+		}
+
+	}
+
+
+	// Private Methods
+	/**
+	 * Counts the words of the range of files.
+	 */
+	private WordTable computeFiles() {
+
+		if (toFile - fromFile == 0) {
+			return new WordTable();
+		}
+
+		if (toFile - fromFile > 1) {
+			int middle = (fromFile + toFile) >>> 1;
+			return forkAndMerge(new WordsCountTask(corpus, fromFile, middle, threshold), new WordsCountTask(corpus, middle, toFile, threshold));
+		}
+
+		LogUtils.infoProgress("(" + Thread.currentThread().getName() + ") Processing file", fromFile + 1, corpus.size());
+
+		List<WordsCountTask> windowTasks = new ArrayList<WordsCountTask>();
+
+		try {
+			for (ByteBuffer window : corpus.map(fromFile)) {
+				windowTasks.add(new WordsCountTask(window, threshold));
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		if (windowTasks.size() == 1) {
+			return windowTasks.get(0).compute();
+		}
+
+		WordTable wordTable = new WordTable();
+		for (WordsCountTask windowTask : invokeAll(windowTasks)) {
+			wordTable = new FrequencyMerger(wordTable, windowTask.join()).call();
+		}
+
+		return wordTable;
+
+	}
+
+	/**
+	 * Counts the words of the range of bytes.
+	 */
+	private WordTable computeBytes() {
+
+		int start = bytes.position();
+		int limit = bytes.limit();
+
+		if (limit - start > threshold) {
+
+			int middle = FileUtils.findWordBoundary(bytes, start + (limit - start) / 2);
+
+			if (middle < limit) {
+
+				ByteBuffer left = bytes.duplicate();
+				left.limit(middle);
+				ByteBuffer right = bytes.duplicate();
+				right.position(middle);
+
+				return forkAndMerge(new WordsCountTask(left, threshold), new WordsCountTask(right, threshold));
+
+			}
+
+		}
+
+		WordTable wordTable = new WordTable();
+		new WordTokenizer(wordTable).countWords(bytes);
+
+		return wordTable;
+
+	}
+
+	/**
+	 * Runs the left task in parallel, the right one in the current thread, and merges
+	 * their results.
+	 */
+	private static WordTable forkAndMerge(WordsCountTask left, WordsCountTask right) {
+
+		left.fork();
+		WordTable rightTable = right.compute();
+		WordTable leftTable = left.join();
+
+		return new FrequencyMerger(leftTable, rightTable).call();
+
+	}
+
+}
@@ -17,6 +17,9 @@ import com.wordscounter.util.LogUtils;
  * (with single thread and multithread implementations), and review the information of
  * the executions done.
  * 
+ * <p>When it's run with arguments, there is no dialog: the executions are run with the
+ * options given, by <i>WordsCounterBatch</i>.
+ * 
  * @author Arekku
  *
  */
@@ -33,6 +36,10 @@ public class WordsCounter {
 
 	public static void main(String[] args) {
 
+		if (args.length > 0) {
+			System.exit(WordsCounterBatch.run(args));
+		}
+
 		printWelcomeMessage();
 
 		createInitialWorkingFiles();
@@ -104,7 +111,7 @@ public class WordsCounter {
 	}
 
 	/**
-	 * Prints the menu options and keeps on waiting for user requests until option 6
+	 * Prints the menu options and keeps on waiting for user requests until option 19
 	 * (delete working files and exit) is requested.
 	 */
 	private static void runMainMenu() {
@@ -112,13 +119,26 @@ public class WordsCounter {
 		boolean keepOn = true;
 
 		String menuOptions = "%nInsert the number of the option you want to execute:%n"
-				+ "(valid values: 1, 2, 3, 4, 5, 6)%n"
+				+ "(valid values: 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19)%n"
 				+ "- Option 1: Create new working files%n"
 				+ "- Option 2: Count words (single thread)%n"
 				+ "- Option 3: Count words (multithread)%n"
-				+ "- Option 4: Print historic of executions%n"
-				+ "- Option 5: Clean historic of executions%n"
-				+ "- Option 6: Exit%n";
+				+ "- Option 4: Count words (sharded multithread)%n"
+				+ "- Option 5: Count words (chunked multithread)%n"
+				+ "- Option 6: Count words (fork/join)%n"
+				+ "- Option 7: Count words (virtual threads)%n"
+				+ "- Option 8: Count words (dictionary encoded)%n"
+				+ "- Option 9: Count words (off-heap table)%n"
+				+ "- Option 10: Count words (spilling to disc)%n"
+				+ "- Option 11: Count words (approximate most used)%n"
+				+ "- Option 12: Count distinct words (estimated)%n"
+				+ "- Option 13: Count words (incremental)%n"
+				+ "- Option 14: Count words (deduplicated chunks)%n"
+				+ "- Option 15: Save words counted to a snapshot%n"
+				+ "- Option 16: Load words counted from a snapshot%n"
+				+ "- Option 17: Print historic of executions%n"
+				+ "- Option 18: Clean historic of executions%n"
+				+ "- Option 19: Exit%n";
 
 		try {
 
@@ -139,12 +159,51 @@ public class WordsCounter {
 						countWordsMultithread();
 						break;
 					case "4":
-						printExecutionsHistoric();
+						countWordsSharded();
 						break;
 					case "5":
-						cleanExecutionsHistoric();
+						countWordsChunked();
 						break;
 					case "6":
+						countWordsForkJoin();
+						break;
+					case "7":
+						countWordsVirtualThreads();
+						break;
+					case "8":
+						countWordsDictionary();
+						break;
+					case "9":
+						countWordsOffHeap();
+						break;
+					case "10":
+						countWordsSpilling();
+						break;
+					case "11":
+						countWordsApproximate();
+						break;
+					case "12":
+						countWordsDistinct();
+						break;
+					case "13":
+						countWordsIncremental();
+						break;
+					case "14":
+						countWordsDeduplicated();
+						break;
+					case "15":
+						saveSnapshot();
+						break;
+					case "16":
+						loadSnapshot();
+						break;
+					case "17":
+						printExecutionsHistoric();
+						break;
+					case "18":
+						cleanExecutionsHistoric();
+						break;
+					case "19":
 						keepOn = false;
 						break;
 					default:
@@ -185,19 +244,51 @@ public class WordsCounter {
 	 * 
 	 * @throws IOException if there is a problem while trying to read or write a
 	 *         working file.
+	 * @throws InterruptedException if one of the threads created by this method is
+	 *         interrupted.
+	 * @throws ExecutionException if one of the threads created by this method has an
+	 *         execution error.
 	 */
-	private static void createWorkingFiles() throws IOException {
+	private static void createWorkingFiles() throws IOException, InterruptedException, ExecutionException {
 
+		CorpusTypeEnum corpusType = askCorpusType();
 		int workingFilesNumber = askWorkingFilesNumber();
 		int workingFilesSize = askWorkingFilesSize();
 
+		service.setCorpusType(corpusType);
 		service.setWorkingFilesNumber(workingFilesNumber);
 		service.setWorkingFilesSize(workingFilesSize);
 
+		if (corpusType == CorpusTypeEnum.ZIPF) {
+			service.setVocabularySize(askVocabularySize());
+		}
+
 		service.createWorkingFiles();
 
 	}
 
+	/**
+	 * Asks the user where the working texts are created.
+	 * 
+	 * @return the source of working texts chosen by the user.
+	 */
+	private static CorpusTypeEnum askCorpusType() {
+
+		LogUtils.info("Insert where the working texts are created, or 0 to apply the default value:");
+		LogUtils.info("(1: files on disc, 2: base files in memory, 3: synthetic words in memory)");
+		LogUtils.info("(default value: 1)");
+
+		switch (io.askForIntegerValue()) {
+		case 2:
+			return CorpusTypeEnum.MEMORY;
+		case 3:
+			return CorpusTypeEnum.ZIPF;
+		default:
+			return CorpusTypeEnum.FILES;
+		}
+
+	}
+
 	/**
 	 * Asks the user for the number of working files.
 	 * 
@@ -230,6 +321,23 @@ public class WordsCounter {
 
 		return workingFilesSize;
 
+	}
+
+	/**
+	 * Asks the user for the number of distinct words of the synthetic texts.
+	 * 
+	 * @return the number of distinct words introduced by the user.
+	 */
+	private static int askVocabularySize() {
+
+		int vocabularySize;
+
+		LogUtils.info("Insert the number of distinct words of the synthetic texts, or 0 to apply the default value:");
+		LogUtils.info("(default value: 100000)");
+		vocabularySize = io.askForIntegerValue();
+
+		return vocabularySize;
+
 	}	
 
 	/**
@@ -244,7 +352,7 @@ public class WordsCounter {
 	 */
 	private static void countWordsSingleThread() throws IOException {
 
-		wordsMap = new FrequencyMap();
+		wordsMap.release();
 		service.countWordsSingleThread(wordsMap, executionDataList);
 		service.printExecutionData(executionDataList.getLast());
 
@@ -254,24 +362,267 @@ public class WordsCounter {
 	 * Counts the frequency of every word present in the set of working files and saves
 	 * it in a map.
 	 * 
-	 * <p>Implementation note: It parses all the working files, 1 by 1, using a new
-	 * thread for every file.
+	 * <p>Implementation note: Reader threads load the working files in memory while
+	 * parser threads count their words, with a limit of bytes waiting to be parsed.
 	 * 
-	 * @throws IOException if there is a problem while trying to read or write a
-	 *         working file.
 	 * @throws InterruptedException if one of the threads created by this method is
 	 *         interrupted.
 	 * @throws ExecutionException if one of the threads created by this method has an
 	 *         execution error.
 	 */
-	private static void countWordsMultithread() throws IOException, InterruptedException, ExecutionException {
+	private static void countWordsMultithread() throws InterruptedException, ExecutionException {
 
-		wordsMap = new FrequencyMap();
+		wordsMap.release();
 		service.countWordsMultithread(wordsMap, executionDataList);
 		service.printExecutionData(executionDataList.getLast());
 
 	}
 
+	/**
+	 * Counts the frequency of every word present in the set of working files and saves
+	 * it in a map.
+	 * 
+	 * <p>Implementation note: Every thread counts a share of the working files into its
+	 * own map, and the maps are merged at the end.
+	 * 
+	 * @throws InterruptedException if one of the threads created by this method is
+	 *         interrupted.
+	 * @throws ExecutionException if one of the threads created by this method has an
+	 *         execution error.
+	 */
+	private static void countWordsSharded() throws InterruptedException, ExecutionException {
+
+		wordsMap.release();
+		service.countWordsSharded(wordsMap, executionDataList);
+		service.printExecutionData(executionDataList.getLast());
+
+	}
+
+	/**
+	 * Counts the frequency of every word present in the set of working files and saves
+	 * it in a map.
+	 * 
+	 * <p>Implementation note: Every working file is split in chunks at word boundaries,
+	 * and the chunks are counted on a work-stealing pool.
+	 * 
+	 * @throws IOException if there is a problem while trying to read a working file.
+	 * @throws InterruptedException if one of the threads created by this method is
+	 *         interrupted.
+	 * @throws ExecutionException if one of the threads created by this method has an
+	 *         execution error.
+	 */
+	private static void countWordsChunked() throws IOException, InterruptedException, ExecutionException {
+
+		wordsMap.release();
+		service.countWordsChunked(wordsMap, executionDataList);
+		service.printExecutionData(executionDataList.getLast());
+
+	}
+
+	/**
+	 * Counts the frequency of every word present in the set of working files and saves
+	 * it in a map.
+	 * 
+	 * <p>Implementation note: The working files, and then their bytes, are split in half
+	 * recursively on a Fork/Join pool, and the partial maps are merged on the way back.
+	 * 
+	 * @throws IOException if there is a problem while trying to read a working file.
+	 */
+	private static void countWordsForkJoin() throws IOException {
+
+		wordsMap.release();
+		service.countWordsForkJoin(wordsMap, executionDataList);
+		service.printExecutionData(executionDataList.getLast());
+
+	}
+
+	/**
+	 * Counts the frequency of every word present in the set of working files and saves
+	 * it in a map.
+	 * 
+	 * <p>Implementation note: Every working file is read on its own virtual thread, and
+	 * counted on a pool with a thread for every available processor.
+	 * 
+	 * @throws InterruptedException if one of the threads created by this method is
+	 *         interrupted.
+	 * @throws ExecutionException if one of the threads created by this method has an
+	 *         execution error.
+	 */
+	private static void countWordsVirtualThreads() throws InterruptedException, ExecutionException {
+
+		wordsMap.release();
+		service.countWordsVirtualThreads(wordsMap, executionDataList);
+		service.printExecutionData(executionDataList.getLast());
+
+	}
+
+	/**
+	 * Counts the frequency of every word present in the set of working files and saves
+	 * it in a map.
+	 * 
+	 * <p>Implementation note: Every word has an integer ID in a dictionary reused between
+	 * runs, and every thread counts a share of the working files into an array indexed by
+	 * ID. The arrays are merged by adding them.
+	 * 
+	 * @throws IOException if there is a problem while trying to read or write the
+	 *         dictionary.
+	 * @throws InterruptedException if one of the threads created by this method is
+	 *         interrupted.
+	 * @throws ExecutionException if one of the threads created by this method has an
+	 *         execution error.
+	 */
+	private static void countWordsDictionary() throws IOException, InterruptedException, ExecutionException {
+
+		wordsMap.release();
+		service.countWordsDictionary(wordsMap, executionDataList);
+		service.printExecutionData(executionDataList.getLast());
+
+	}
+
+	/**
+	 * Counts the frequency of every word present in the set of working files and saves
+	 * it in a map.
+	 * 
+	 * <p>Implementation note: Every thread counts a share of the working files into a
+	 * table stored outside of the heap, and the tables are merged at the end.
+	 * 
+	 * @throws InterruptedException if one of the threads created by this method is
+	 *         interrupted.
+	 * @throws ExecutionException if one of the threads created by this method has an
+	 *         execution error.
+	 */
+	private static void countWordsOffHeap() throws InterruptedException, ExecutionException {
+
+		wordsMap.release();
+		service.countWordsOffHeap(wordsMap, executionDataList);
+		service.printExecutionData(executionDataList.getLast());
+
+	}
+
+	/**
+	 * Counts the frequency of every word present in the set of working files and saves
+	 * it in a map.
+	 * 
+	 * <p>Implementation note: Every thread counts a share of the working files, and
+	 * writes its words to disc, sorted, when they take more than its share of the memory
+	 * budget. The files are merged at the end.
+	 * 
+	 * @throws InterruptedException if one of the threads created by this method is
+	 *         interrupted.
+	 * @throws ExecutionException if one of the threads created by this method has an
+	 *         execution error.
+	 */
+	private static void countWordsSpilling() throws InterruptedException, ExecutionException {
+
+		wordsMap.release();
+		service.countWordsSpilling(wordsMap, executionDataList);
+		service.printExecutionData(executionDataList.getLast());
+
+	}
+
+	/**
+	 * Counts the most used words present in the set of working files, approximately, and
+	 * saves them in a map.
+	 * 
+	 * <p>Implementation note: Every thread counts a share of the working files into a
+	 * summary of the most used words and a sketch of fixed sizes, which are merged at the
+	 * end. Only the most used words are kept, with the error of their counts.
+	 * 
+	 * @throws InterruptedException if one of the threads created by this method is
+	 *         interrupted.
+	 * @throws ExecutionException if one of the threads created by this method has an
+	 *         execution error.
+	 */
+	private static void countWordsApproximate() throws InterruptedException, ExecutionException {
+
+		wordsMap.release();
+		service.countWordsApproximate(wordsMap, executionDataList);
+		service.printExecutionData(executionDataList.getLast());
+
+	}
+
+	/**
+	 * Estimates the number of distinct words present in the set of working files,
+	 * without counting them.
+	 * 
+	 * <p>Implementation note: Every thread adds the words of a share of the working files
+	 * to a HyperLogLog sketch of a few KB, and the sketches are merged at the end.
+	 * 
+	 * @throws InterruptedException if one of the threads created by this method is
+	 *         interrupted.
+	 * @throws ExecutionException if one of the threads created by this method has an
+	 *         execution error.
+	 */
+	private static void countWordsDistinct() throws InterruptedException, ExecutionException {
+
+		wordsMap.release();
+		service.countWordsDistinct(wordsMap, executionDataList);
+		service.printExecutionData(executionDataList.getLast());
+
+	}
+
+	/**
+	 * Counts the frequency of every word present in the set of working files and saves
+	 * it in a map.
+	 * 
+	 * <p>Implementation note: The counts of every working file are cached, and only the
+	 * files that changed since the last incremental count are parsed again.
+	 * 
+	 * @throws IOException if there is a problem while trying to read a working file.
+	 */
+	private static void countWordsIncremental() throws IOException {
+
+		wordsMap.release();
+		service.countWordsIncremental(wordsMap, executionDataList);
+		service.printExecutionData(executionDataList.getLast());
+
+	}
+
+	/**
+	 * Counts the frequency of every word present in the set of working files and saves
+	 * it in a map.
+	 * 
+	 * <p>Implementation note: The working files are split in content-defined chunks that
+	 * never split a word, and every distinct chunk is counted once, with its counts
+	 * multiplied by the times it occurs.
+	 * 
+	 * @throws InterruptedException if one of the threads created by this method is
+	 *         interrupted.
+	 * @throws ExecutionException if one of the threads created by this method has an
+	 *         execution error.
+	 */
+	private static void countWordsDeduplicated() throws InterruptedException, ExecutionException {
+
+		wordsMap.release();
+		service.countWordsDeduplicated(wordsMap, executionDataList);
+		service.printExecutionData(executionDataList.getLast());
+
+	}
+
+	/**
+	 * Saves the words of the last execution and their counts to a snapshot file.
+	 * 
+	 * @throws IOException if there is a problem while trying to write the snapshot file.
+	 */
+	private static void saveSnapshot() throws IOException {
+
+		service.saveSnapshot(wordsMap);
+
+	}
+
+	/**
+	 * Loads the words and counts saved to the snapshot file, replacing the words of the
+	 * last execution.
+	 * 
+	 * @throws IOException if there is a problem while trying to read the snapshot file.
+	 */
+	private static void loadSnapshot() throws IOException {
+
+		wordsMap.release();
+		service.loadSnapshot(wordsMap);
+
+	}
+
 	/**
 	 * Prints the execution information stored in the list of executions.
 	 */
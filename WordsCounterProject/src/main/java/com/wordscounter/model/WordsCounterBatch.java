@@ -0,0 +1,341 @@
+package com.wordscounter.model;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+
+import com.wordscounter.util.ExecutionDataWriter;
+import com.wordscounter.util.LogUtils;
+import com.wordscounter.util.Utils;
+
+
+/**
+ * Runs the program with no dialog, with the options given as arguments, so executions
+ * can be run from scripts and repeated many times.
+ *
+ * <p>It creates the working files, or uses again the ones left by a previous run, runs
+ * every execution type requested a number of times to warm up the JVM, and then the
+ * number of repetitions requested. Only the repetitions are recorded. At the end it
+ * prints the percentiles of the execution times of every type, and writes all the
+ * executions to a JSON or CSV file.
+ *
+ * <p>The INCREMENTAL executions start every run with an empty cache, so they measure the
+ * first count of all the files. Otherwise the warm-up runs would fill the cache, and
+ * every repetition would find no file changed. For example:
+ *
+ * <pre>
+ * java com.wordscounter.model.WordsCounter -files 100 -size 256 -types SINGLETHREAD,SHARDED
+ *      -warmup 2 -repetitions 10 -output results.json -reuse
+ * </pre>
+ *
+ * @author Arekku
+ *
+ */
+public class WordsCounterBatch {
+
+	// Constants
+	private static final String DEFAULT_EXECUTION_TYPES = "SINGLETHREAD,MULTITHREAD";
+	private static final int DEFAULT_REPETITIONS = 5;
+	private static final int DEFAULT_WARMUP_RUNS = 1;
+
+	private static final String JSON_FORMAT = "json";
+	private static final String CSV_FORMAT = "csv";
+
+
+	// Public Methods
+	/**
+	 * Runs the program with the options given.
+	 *
+	 * @param args the options of the run, as pairs of name and value, and the flags
+	 *        <i>-reuse</i> and <i>-quiet</i>.
+	 * @return the exit status of the program: 0 if everything went well, or 1 if the
+	 *         options are wrong or an execution failed.
+	 */
+	public static int run(String[] args) {
+
+		WordsCounterService service = new WordsCounterService();
+		boolean reuse = false;
+		boolean quiet = false;
+
+		try {
+
+			Map<String, String> options = parseOptions(args);
+
+			reuse = options.containsKey("-reuse");
+			quiet = options.containsKey("-quiet");
+			LogUtils.setQuiet(quiet);
+
+			List<ExecutionTypeEnum> executionTypes = parseExecutionTypes(options.getOrDefault("-types", DEFAULT_EXECUTION_TYPES));
+			int repetitions = parseInt(options, "-repetitions", DEFAULT_REPETITIONS);
+			int warmupRuns = parseInt(options, "-warmup", DEFAULT_WARMUP_RUNS);
+			String outputPath = options.get("-output");
+			String format = getFormat(outputPath, options.get("-format"));
+
+			service.setCorpusType(parseCorpusType(options.getOrDefault("-corpus", CorpusTypeEnum.FILES.name())));
+			service.setWorkingFilesNumber(parseInt(options, "-files", 0));
+			service.setWorkingFilesSize(parseInt(options, "-size", 0));
+			service.setVocabularySize(parseInt(options, "-vocabulary", 0));
+			service.setThreadsNumber(parseInt(options, "-threads", 0));
+
+			if (reuse && service.existWorkingFiles()) {
+				LogUtils.info("Using the working files of a previous run.");
+			} else {
+				service.createWorkingFiles();
+			}
+
+			LinkedList<ExecutionData> executionDataList = runExecutions(service, executionTypes, warmupRuns, repetitions);
+
+			LogUtils.setQuiet(false);
+			printSummary(executionDataList);
+			LogUtils.setQuiet(quiet);
+
+			if (outputPath != null) {
+
+				if (format.equals(CSV_FORMAT)) {
+					ExecutionDataWriter.writeCsv(outputPath, executionDataList);
+					LogUtils.info("Executions written to: " + outputPath + " and " + ExecutionDataWriter.getSummaryPath(outputPath));
+				} else {
+					ExecutionDataWriter.writeJson(outputPath, getParameters(service, options, repetitions, warmupRuns), executionDataList);
+					LogUtils.info("Executions written to: " + outputPath);
+				}
+
+			}
+
+			return 0;
+
+		} catch (IllegalArgumentException e) {
+
+			LogUtils.error(e.getMessage());
+			printUsage();
+
+			return 1;
+
+		} catch (Exception e) {
+
+			LogUtils.error("Ops! An unexpected error has ocurred.");
+			LogUtils.error("Error info:");
+			LogUtils.error(e.toString());
+
+			return 1;
+
+		} finally {
+
+			if (!reuse) {
+				service.deleteWorkingFiles();
+			}
+
+			LogUtils.setQuiet(false);
+
+		}
+
+	}
+
+
+	// Private Methods
+	/**
+	 * Runs every execution type the number of warm-up runs, whose executions are
+	 * discarded, and then the number of repetitions. The cache of the incremental counts
+	 * is cleared before every run, so every run counts all the files.
+	 * @return the list of the executions repeated.
+	 */
+	private static LinkedList<ExecutionData> runExecutions(WordsCounterService service, List<ExecutionTypeEnum> executionTypes, int warmupRuns, int repetitions) throws IOException, InterruptedException, ExecutionException {
+
+		FrequencyMap wordsMap = new FrequencyMap();
+		LinkedList<ExecutionData> executionDataList = new LinkedList<ExecutionData>();
+
+		for (ExecutionTypeEnum executionType : executionTypes) {
+
+			List<ExecutionData> warmupDataList = new LinkedList<ExecutionData>();
+
+			for (int i = 1; i <= warmupRuns; i++) {
+				LogUtils.info("Warm-up run " + i + "/" + warmupRuns + " of " + executionType);
+				wordsMap.release();
+				service.clearCountsCache();
+				service.countWords(executionType, wordsMap, warmupDataList);
+			}
+
+			for (int i = 1; i <= repetitions; i++) {
+				LogUtils.info("Repetition " + i + "/" + repetitions + " of " + executionType);
+				wordsMap.release();
+				service.clearCountsCache();
+				service.countWords(executionType, wordsMap, executionDataList);
+			}
+
+		}
+
+		wordsMap.release();
+
+		return executionDataList;
+
+	}
+
+	/**
+	 * Prints the percentiles of the execution times of every execution type.
+	 */
+	private static void printSummary(List<ExecutionData> executionDataList) {
+
+		String rowFormat = "  %-13s %5s %10s %10s %10s %10s %10s %10s";
+
+		LogUtils.emptyLine();
+		LogUtils.info("### EXECUTION TIMES (ms) ######################################################");
+		LogUtils.info(String.format(rowFormat, "Type", "Runs", "Mean", "Min", "p50", "p90", "p99", "Max"));
+
+		for (Entry<ExecutionTypeEnum, long[]> entry : ExecutionDataWriter.getExecutionTimes(executionDataList).entrySet()) {
+
+			long[] times = entry.getValue();
+
+			LogUtils.info(String.format(rowFormat,
+					entry.getKey(),
+					times.length,
+					String.format(Locale.ROOT, "%.1f", ExecutionDataWriter.getMean(times)),
+					times[0],
+					ExecutionDataWriter.getPercentile(times, 50),
+					ExecutionDataWriter.getPercentile(times, 90),
+					ExecutionDataWriter.getPercentile(times, 99),
+					times[times.length - 1]));
+
+		}
+
+		LogUtils.info("###############################################################################");
+		LogUtils.emptyLine();
+
+	}
+
+	/**
+	 * Gets the parameters of the run, to write them with the executions.
+	 */
+	private static Map<String, Object> getParameters(WordsCounterService service, Map<String, String> options, int repetitions, int warmupRuns) {
+
+		Map<String, Object> parameters = new LinkedHashMap<String, Object>();
+		parameters.put("corpusType", service.getCorpusType().name());
+		parameters.put("workingFilesNumber", service.getWorkingFilesNumber());
+		parameters.put("workingFilesSize", service.getWorkingFilesSize());
+		parameters.put("vocabularySize", service.getVocabularySize());
+		parameters.put("threadsNumber", service.getThreadsNumber());
+		parameters.put("repetitions", repetitions);
+		parameters.put("warmupRuns", warmupRuns);
+		parameters.put("reuse", options.containsKey("-reuse"));
+		parameters.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+		parameters.put("javaVersion", System.getProperty("java.version"));
+
+		return parameters;
+
+	}
+
+	/**
+	 * Parses the options given as pairs of name and value. A name followed by another
+	 * name, or at the end, is a flag with no value.
+	 */
+	private static Map<String, String> parseOptions(String[] args) {
+
+		Map<String, String> options = new LinkedHashMap<String, String>();
+
+		for (int i = 0; i < args.length; i++) {
+
+			if (!args[i].startsWith("-")) {
+				throw new IllegalArgumentException("Invalid option: " + args[i]);
+			}
+
+			if (i + 1 < args.length && !args[i + 1].startsWith("-")) {
+				options.put(args[i], args[i + 1]);
+				i++;
+			} else {
+				options.put(args[i], "");
+			}
+
+		}
+
+		return options;
+
+	}
+
+	private static List<ExecutionTypeEnum> parseExecutionTypes(String value) {
+
+		List<ExecutionTypeEnum> executionTypes = new ArrayList<ExecutionTypeEnum>();
+
+		for (String name : value.split(",")) {
+			if (name.equalsIgnoreCase("ALL")) {
+				executionTypes.addAll(List.of(ExecutionTypeEnum.values()));
+			} else {
+				try {
+					executionTypes.add(ExecutionTypeEnum.valueOf(name.trim().toUpperCase(Locale.ROOT)));
+				} catch (IllegalArgumentException e) {
+					throw new IllegalArgumentException("Unknown execution type: " + name);
+				}
+			}
+		}
+
+		return executionTypes;
+
+	}
+
+	private static CorpusTypeEnum parseCorpusType(String value) {
+
+		try {
+			return CorpusTypeEnum.valueOf(value.trim().toUpperCase(Locale.ROOT));
+		} catch (IllegalArgumentException e) {
+			throw new IllegalArgumentException("Unknown source of working texts: " + value);
+		}
+
+	}
+
+	private static int parseInt(Map<String, String> options, String name, int defaultValue) {
+
+		String value = options.get(name);
+
+		if (value == null) {
+			return defaultValue;
+		}
+		if (!Utils.isNumeric(value)) {
+			throw new IllegalArgumentException("Invalid value of " + name + ": " + value);
+		}
+
+		return Integer.parseInt(value);
+
+	}
+
+	/**
+	 * Gets the format of the output file: the one given, or the one of the extension of
+	 * the file, JSON by default.
+	 */
+	private static String getFormat(String outputPath, String format) {
+
+		if (format == null) {
+			return outputPath != null && outputPath.toLowerCase(Locale.ROOT).endsWith("." + CSV_FORMAT) ? CSV_FORMAT : JSON_FORMAT;
+		}
+
+		format = format.toLowerCase(Locale.ROOT);
+		if (!format.equals(JSON_FORMAT) && !format.equals(CSV_FORMAT)) {
+			throw new IllegalArgumentException("Invalid value of -format: " + format);
+		}
+
+		return format;
+
+	}
+
+	private static void printUsage() {
+
+		LogUtils.info("Usage: WordsCounter [option value]... [-reuse] [-quiet]");
+		LogUtils.info("  -files        number of working files (default: 100)");
+		LogUtils.info("  -size         size of each working file, in kb (default: 256)");
+		LogUtils.info("  -corpus       source of working texts: FILES, MEMORY or ZIPF (default: FILES)");
+		LogUtils.info("  -vocabulary   distinct words of the ZIPF texts (default: 100000)");
+		LogUtils.info("  -threads      number of threads (default: available processors)");
+		LogUtils.info("  -types        execution types separated by commas, or ALL (default: " + DEFAULT_EXECUTION_TYPES + ")");
+		LogUtils.info("  -warmup       runs of every type discarded before the repetitions (default: " + DEFAULT_WARMUP_RUNS + ")");
+		LogUtils.info("  -repetitions  runs of every type recorded (default: " + DEFAULT_REPETITIONS + ")");
+		LogUtils.info("  -output       file to write the executions to (default: none)");
+		LogUtils.info("  -format       json or csv (default: from the extension of the output file, or json)");
+		LogUtils.info("  -reuse        use the working files of a previous run, and keep them at the end");
+		LogUtils.info("  -quiet        print only the errors and the summary of execution times");
+		LogUtils.info("With no options, the program runs the interactive menu.");
+
+	}
+
+}
@@ -2,20 +2,51 @@ package com.wordscounter.model;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Random;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.Future;
-
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import com.wordscounter.util.ChunkDeduplicator;
+import com.wordscounter.util.Corpus;
+import com.wordscounter.util.CountMinSketch;
+import com.wordscounter.util.DictionaryCounts;
+import com.wordscounter.util.ExecutionMetrics;
+import com.wordscounter.util.FileCorpus;
+import com.wordscounter.util.FileCountsCache;
+import com.wordscounter.util.FileParseEvent;
+import com.wordscounter.util.FileReadEvent;
 import com.wordscounter.util.FileUtils;
+import com.wordscounter.util.HeavyHitters;
+import com.wordscounter.util.HyperLogLog;
 import com.wordscounter.util.LogUtils;
+import com.wordscounter.util.MemoryCorpus;
+import com.wordscounter.util.OffHeapWordTable;
+import com.wordscounter.util.SpaceSavingSummary;
+import com.wordscounter.util.SpillingWordTable;
 import com.wordscounter.util.Utils;
+import com.wordscounter.util.WordCountStore;
+import com.wordscounter.util.WordDictionary;
+import com.wordscounter.util.WordTable;
+import com.wordscounter.util.WordTokenizer;
+import com.wordscounter.util.WordsSnapshot;
 
 
 /**
@@ -28,22 +59,55 @@ public class WordsCounterService {
 
 	// Constants
 	private static final String FOLDER_PATH = "text/";
+	private static final String DATA_FOLDER_PATH = "data/";
 	private static final String FILE_NAME = "TextFile_";
 	private static final String FILE_EXTENSION = ".txt";
 	private static final String FILE_TMP_SUFFIX = "_tmp";
 	private static final String FILE_ENCODING = "UTF-8";
+	private static final String DICTIONARY_FILE_NAME = "WordsDictionary";
+	private static final String SNAPSHOT_FILE_NAME = "WordsSnapshot";
+	private static final String SNAPSHOT_FILE_EXTENSION = ".wcs";
 
 	private static final int BASE_FILES_NUMBER = 25;
 	private static final int BASE_FILES_SIZE = 4;
-	private static final int TOP_WORDS_NUMBER = 5;
+	private static final int DEFAULT_TOP_WORDS_NUMBER = 5;
+	private static final long DEFAULT_MEMORY_BUDGET = 64 * 1024 * 1024;
+	private static final int DEFAULT_SUMMARY_SIZE = 1024;
+	private static final int DEFAULT_SKETCH_WIDTH = 16 * 1024;
+	private static final int SKETCH_DEPTH = 5;
+	private static final int HYPERLOGLOG_PRECISION = 12;
+	private static final int DEFAULT_VOCABULARY_SIZE = 100000;
+	private static final double ZIPF_EXPONENT = 1.0;
+	private static final long CORPUS_SEED = 42;
 
 	private static final int DEFAULT_WORKING_FILES_NUMBER = 100;
 	private static final int DEFAULT_WORKING_FILES_SIZE = 256;
 
+	private static final int PIPELINE_READERS_NUMBER = 2;
+	private static final long PIPELINE_MAX_IN_FLIGHT_BYTES = 64 * 1024 * 1024;
+
+	private static final int CHUNK_SIZE = 64 * 1024;
+	private static final int FORK_JOIN_THRESHOLD = 512 * 1024;
+
+	private static final int VIRTUAL_THREADS_OPEN_FILES = 64;
+
 
 	// Attributes
 	private int workingFilesNumber;
 	private int workingFilesSize;
+	private int threadsNumber;
+	private int topWordsNumber;
+	private long memoryBudget;
+	private int summarySize;
+	private int sketchWidth;
+	private boolean distinctWordsEstimated;
+	private boolean contentHashed;
+	private CorpusTypeEnum corpusType;
+	private int vocabularySize;
+
+	private WordDictionary dictionary;
+	private FileCountsCache countsCache;
+	private MemoryCorpus memoryCorpus;
 
 
 	// Constructors
@@ -53,6 +117,13 @@ public class WordsCounterService {
 	public WordsCounterService() {
 		workingFilesNumber = DEFAULT_WORKING_FILES_NUMBER;
 		workingFilesSize = DEFAULT_WORKING_FILES_SIZE;
+		threadsNumber = Runtime.getRuntime().availableProcessors();
+		topWordsNumber = DEFAULT_TOP_WORDS_NUMBER;
+		memoryBudget = DEFAULT_MEMORY_BUDGET;
+		summarySize = DEFAULT_SUMMARY_SIZE;
+		sketchWidth = DEFAULT_SKETCH_WIDTH;
+		corpusType = CorpusTypeEnum.FILES;
+		vocabularySize = DEFAULT_VOCABULARY_SIZE;
 	}
 
 	/**
@@ -64,6 +135,13 @@ public class WordsCounterService {
 	public WordsCounterService(int workingFilesNumber, int workingFilesSize) {
 		setWorkingFilesNumber(workingFilesNumber);
 		setWorkingFilesSize(workingFilesSize);
+		threadsNumber = Runtime.getRuntime().availableProcessors();
+		topWordsNumber = DEFAULT_TOP_WORDS_NUMBER;
+		memoryBudget = DEFAULT_MEMORY_BUDGET;
+		summarySize = DEFAULT_SUMMARY_SIZE;
+		sketchWidth = DEFAULT_SKETCH_WIDTH;
+		corpusType = CorpusTypeEnum.FILES;
+		vocabularySize = DEFAULT_VOCABULARY_SIZE;
 	}
 
 
@@ -120,98 +198,259 @@ public class WordsCounterService {
 
 	}
 
-
-	// Public Methods
 	/**
-	 * Creates a set of working files and saves it on disc.
+	 * Getter
 	 * 
-	 * <p>Every working file is created with a combination of a number of random base files,
-	 * depending on the file size defined.
+	 * @return the number of threads that count the words, in the multithread
+	 *         executions.
+	 */
+	public int getThreadsNumber() {
+		return threadsNumber;
+	}
+	/**
+	 * Setter
 	 * 
-	 * @throws IOException if there is a problem while trying to read or write a
-	 *         working file.
+	 * @param threadsNumber the number of threads that count the words, in the multithread
+	 * executions. If threadsNumber is 0, it sets the number of available processors.
 	 */
-	public void createWorkingFiles() throws IOException {
+	public void setThreadsNumber(int threadsNumber) {
 
-		long startTime = System.currentTimeMillis();
-		LogUtils.infoStart("createWorkingFiles");
+		if (threadsNumber != 0) {
+			this.threadsNumber = threadsNumber;
+		} else {
+			this.threadsNumber = Runtime.getRuntime().availableProcessors();
+		}
 
-		int baseFilesPerWorkingFile = workingFilesSize / BASE_FILES_SIZE;
+		LogUtils.info("Number of threads set to: " + getThreadsNumber());
 
-		String[] baseFiles = new String[BASE_FILES_NUMBER];
-		Random randomizer = new Random();
+	}
+
+
+	/**
+	 * Getter
+	 * 
+	 * @return the number of most and less used words saved for every execution.
+	 */
+	public int getTopWordsNumber() {
+		return topWordsNumber;
+	}
+	/**
+	 * Setter
+	 * 
+	 * @param topWordsNumber the number of most and less used words saved for every
+	 * execution. If topWordsNumber is 0, it sets the default value.
+	 */
+	public void setTopWordsNumber(int topWordsNumber) {
 
-		for (int i = 1; i <= BASE_FILES_NUMBER; i++) {
-			baseFiles[i-1] = FileUtils.read(FOLDER_PATH + FILE_NAME + i + FILE_EXTENSION, FILE_ENCODING);
+		if (topWordsNumber != 0) {
+			this.topWordsNumber = topWordsNumber;
+		} else {
+			this.topWordsNumber = DEFAULT_TOP_WORDS_NUMBER;
 		}
 
-		for (int i = 1; i <= workingFilesNumber; i++) {
+		LogUtils.info("Number of most and less used words set to: " + getTopWordsNumber());
 
-			LogUtils.infoProgress("Preparing working file", i, workingFilesNumber);
+	}
+	/**
+	 * Getter
+	 * 
+	 * @return the number of bytes the words counted in memory can take, in the
+	 *         executions that spill to disc.
+	 */
+	public long getMemoryBudget() {
+		return memoryBudget;
+	}
+	/**
+	 * Setter
+	 * 
+	 * @param memoryBudget the number of bytes the words counted in memory can take, in
+	 * the executions that spill to disc. If memoryBudget is 0, it sets the default value.
+	 */
+	public void setMemoryBudget(long memoryBudget) {
 
-			String fileText = "";
+		if (memoryBudget != 0) {
+			this.memoryBudget = memoryBudget;
+		} else {
+			this.memoryBudget = DEFAULT_MEMORY_BUDGET;
+		}
 
-			for (int j = 0; j < baseFilesPerWorkingFile; j++) {
-				fileText += baseFiles[randomizer.nextInt(BASE_FILES_NUMBER)];
-			}
+		LogUtils.info("Memory budget set to: " + (getMemoryBudget() / 1024) + "kb");
 
-			FileUtils.write(FOLDER_PATH + FILE_NAME + i + FILE_TMP_SUFFIX + FILE_EXTENSION, FILE_ENCODING, fileText);
+	}
+	/**
+	 * Getter
+	 * 
+	 * @return the number of words kept as candidates to be the most used, in the
+	 *         approximate executions.
+	 */
+	public int getSummarySize() {
+		return summarySize;
+	}
+	/**
+	 * Setter
+	 * 
+	 * @param summarySize the number of words kept as candidates to be the most used, in
+	 * the approximate executions. If summarySize is 0, it sets the default value.
+	 */
+	public void setSummarySize(int summarySize) {
 
+		if (summarySize != 0) {
+			this.summarySize = summarySize;
+		} else {
+			this.summarySize = DEFAULT_SUMMARY_SIZE;
 		}
 
-		LogUtils.info("Working files created successfully.");
+		LogUtils.info("Summary size set to: " + getSummarySize() + " words");
 
-		long endTime = System.currentTimeMillis();
-		LogUtils.infoEnd("createWorkingFiles", startTime, endTime);
+	}
+	/**
+	 * Getter
+	 * 
+	 * @return the number of counters per row of the sketch, in the approximate
+	 *         executions.
+	 */
+	public int getSketchWidth() {
+		return sketchWidth;
+	}
+	/**
+	 * Setter
+	 * 
+	 * @param sketchWidth the number of counters per row of the sketch, in the approximate
+	 * executions. It is rounded up to a power of two. If sketchWidth is 0, it sets the
+	 * default value.
+	 */
+	public void setSketchWidth(int sketchWidth) {
+
+		if (sketchWidth != 0) {
+			this.sketchWidth = sketchWidth;
+		} else {
+			this.sketchWidth = DEFAULT_SKETCH_WIDTH;
+		}
+
+		LogUtils.info("Sketch width set to: " + getSketchWidth() + " counters");
 
 	}
+	/**
+	 * Getter
+	 * 
+	 * @return true if the distinct words are estimated next to the exact counts, in the
+	 *         sharded executions.
+	 */
+	public boolean isDistinctWordsEstimated() {
+		return distinctWordsEstimated;
+	}
+	/**
+	 * Setter
+	 * 
+	 * @param distinctWordsEstimated true to estimate the distinct words next to the exact
+	 * counts, in the sharded executions.
+	 */
+	public void setDistinctWordsEstimated(boolean distinctWordsEstimated) {
+
+		this.distinctWordsEstimated = distinctWordsEstimated;
 
+		LogUtils.info("Estimation of distinct words set to: " + isDistinctWordsEstimated());
+
+	}
 	/**
-	 * Counts the frequency of every word present in the set of working files and saves
-	 * it in a map.
+	 * Getter
 	 * 
-	 * <p>It parses all the working files, 1 by 1, using a single thread for all of them.
+	 * @return true if the content of the working files is compared to find the files that
+	 *         changed, in the incremental executions.
+	 */
+	public boolean isContentHashed() {
+		return contentHashed;
+	}
+	/**
+	 * Setter
 	 * 
-	 * @param wordsMap the map that will store the frequency of every word.
-	 * @param executionDataList the list of executions. 
-	 * @throws IOException if there is a problem while trying to read or write a
-	 *         working file.
+	 * @param contentHashed true to compare the content of the working files, and not only
+	 * their size and last modified time, to find the files that changed in the incremental
+	 * executions.
 	 */
-	public void countWordsSingleThread(FrequencyMap wordsMap, List<ExecutionData> executionDataList) throws IOException {
+	public void setContentHashed(boolean contentHashed) {
 
-		long startTime = System.currentTimeMillis();
-		LogUtils.infoStart("countWordsSingleThread");
+		this.contentHashed = contentHashed;
 
-		for (int i = 1; i <= workingFilesNumber; i++) {
+		LogUtils.info("Comparison of content set to: " + isContentHashed());
 
-			LogUtils.infoProgress("Processing file", i, workingFilesNumber);
+	}
+	/**
+	 * Getter
+	 * 
+	 * @return where the working texts are created: files on disc, or texts in memory.
+	 */
+	public CorpusTypeEnum getCorpusType() {
+		return corpusType;
+	}
+	/**
+	 * Setter
+	 * 
+	 * @param corpusType where the working texts are created: files on disc, or texts in
+	 * memory. The texts in memory are released when it changes. If corpusType is null, it
+	 * sets the default value.
+	 */
+	public void setCorpusType(CorpusTypeEnum corpusType) {
 
-			String fileText = FileUtils.read(FOLDER_PATH + FILE_NAME + i + FILE_TMP_SUFFIX + FILE_EXTENSION, FILE_ENCODING);
-			Utils.countWords(fileText, wordsMap.getMap());
+		if (corpusType == null) {
+			corpusType = CorpusTypeEnum.FILES;
+		}
 
+		if (corpusType != this.corpusType) {
+			releaseMemoryCorpus();
 		}
 
-		long endTime = System.currentTimeMillis();
-		LogUtils.infoEnd("countWordsSingleThread", startTime, endTime);
+		this.corpusType = corpusType;
 
-		int executionID = executionDataList.size() + 1;
-		ExecutionTypeEnum executionType = ExecutionTypeEnum.SINGLETHREAD;
-		long executionTime = endTime - startTime;
-		List<Entry<String, Frequency>> mostUsedWords = Utils.getFirstElements(wordsMap.getSortedList(OrderEnum.DESC), TOP_WORDS_NUMBER);
-		List<Entry<String, Frequency>> lessUsedWords = Utils.getLastElements(wordsMap.getSortedList(OrderEnum.DESC), TOP_WORDS_NUMBER);
+		LogUtils.info("Source of working texts set to: " + getCorpusType());
+
+	}
+	/**
+	 * Getter
+	 * 
+	 * @return the number of distinct words of the synthetic texts created in memory.
+	 */
+	public int getVocabularySize() {
+		return vocabularySize;
+	}
+	/**
+	 * Setter
+	 * 
+	 * @param vocabularySize the number of distinct words of the synthetic texts created
+	 * in memory. If vocabularySize is 0, it sets the default value.
+	 */
+	public void setVocabularySize(int vocabularySize) {
+
+		if (vocabularySize != 0) {
+			this.vocabularySize = vocabularySize;
+		} else {
+			this.vocabularySize = DEFAULT_VOCABULARY_SIZE;
+		}
 
-		executionDataList.add(new ExecutionData(executionID, executionType, workingFilesNumber, workingFilesSize, executionTime, mostUsedWords, lessUsedWords));
+		LogUtils.info("Vocabulary size set to: " + getVocabularySize() + " words");
 
 	}
 
+
+	// Public Methods
 	/**
-	 * Counts the frequency of every word present in the set of working files and saves
-	 * it in a map.
+	 * Creates a set of working files and saves it on disc, or builds it in memory,
+	 * depending on the source of working texts.
+	 * 
+	 * <p>Every working file is created with a combination of a number of random base files,
+	 * depending on the file size defined.
 	 * 
-	 * <p>It parses all the working files, 1 by 1, using a new thread for every file.
+	 * <p>The base files are read and encoded once. Every working file is written by a
+	 * thread of a pool, with the number of threads set, as a single gathering
+	 * write of the encoded base files, so no text is built or encoded for any working
+	 * file.
+	 * 
+	 * <p>The texts in memory are stored out of the heap, in a <i>MemoryCorpus</i>, and
+	 * every execution counts them with no disc access, so the time of the counting alone
+	 * can be measured. They are built with a fixed seed, as combinations of the base files
+	 * or as synthetic words with frequencies that follow Zipf's law, from a vocabulary of
+	 * the size defined.
 	 * 
-	 * @param wordsMap the map that will store the frequency of every word.
-	 * @param executionDataList the list of executions. 
 	 * @throws IOException if there is a problem while trying to read or write a
 	 *         working file.
 	 * @throws InterruptedException if one of the threads created by this method is
@@ -219,141 +458,1477 @@ public class WordsCounterService {
 	 * @throws ExecutionException if one of the threads created by this method has an
 	 *         execution error.
 	 */
-	public void countWordsMultithread(FrequencyMap wordsMap, List<ExecutionData> executionDataList) throws IOException, InterruptedException, ExecutionException {
+	public void createWorkingFiles() throws IOException, InterruptedException, ExecutionException {
 
-		ExecutorService exec = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+		long startTime = System.currentTimeMillis();
+		LogUtils.infoStart("createWorkingFiles");
 
-		try {
+		releaseMemoryCorpus();
 
-			long startTime = System.currentTimeMillis();
-			LogUtils.infoStart("countWordsMultithread");
+		if (corpusType == CorpusTypeEnum.ZIPF) {
 
-			LogUtils.info("Available Processors: " + Runtime.getRuntime().availableProcessors());
-			List<Future<String>> futures = new ArrayList<Future<String>>();
+			memoryCorpus = MemoryCorpus.fromZipf(workingFilesNumber, workingFilesSize * 1024L, vocabularySize, ZIPF_EXPONENT, CORPUS_SEED);
+
+		} else {
+
+			final int baseFilesPerWorkingFile = workingFilesSize / BASE_FILES_SIZE;
+			final ByteBuffer[] baseFiles = new ByteBuffer[BASE_FILES_NUMBER];
+
+			for (int i = 1; i <= BASE_FILES_NUMBER; i++) {
+
+				String path = FOLDER_PATH + FILE_NAME + i + FILE_EXTENSION;
+
+				FileReadEvent event = new FileReadEvent();
+				event.begin();
+
+				byte[] bytes = FileUtils.read(path, FILE_ENCODING).getBytes(FILE_ENCODING);
+				baseFiles[i-1] = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+				event.commit(i, path, baseFiles[i-1].remaining());
 
-			for (int i = 1; i <= workingFilesNumber; i++) {
-				String fileText = FileUtils.read(FOLDER_PATH + FILE_NAME + i + FILE_TMP_SUFFIX + FILE_EXTENSION, FILE_ENCODING);
-				futures.add(exec.submit(new TextParser(fileText, i, workingFilesNumber, wordsMap.getMap())));
 			}
 
-			for (Future<String> future : futures) {
-				future.get();
+			if (corpusType == CorpusTypeEnum.MEMORY) {
+				memoryCorpus = MemoryCorpus.fromBaseTexts(baseFiles, workingFilesNumber, baseFilesPerWorkingFile, CORPUS_SEED);
+			} else {
+				writeWorkingFiles(baseFiles, baseFilesPerWorkingFile);
 			}
 
-			long endTime = System.currentTimeMillis();
-			LogUtils.infoEnd("countWordsMultithread", startTime, endTime);
+		}
+
+		if (memoryCorpus != null) {
+			LogUtils.info("Working texts created in memory: " + (memoryCorpus.getSize() / 1024) + "kb");
+		} else {
+			LogUtils.info("Working files created successfully.");
+		}
 
-			int executionID = executionDataList.size() + 1;
-			ExecutionTypeEnum executionType = ExecutionTypeEnum.MULTITHREAD;
-			long executionTime = endTime - startTime;
-			List<Entry<String, Frequency>> mostUsedWords = Utils.getFirstElements(wordsMap.getSortedList(OrderEnum.DESC), TOP_WORDS_NUMBER);
-			List<Entry<String, Frequency>> lessUsedWords = Utils.getLastElements(wordsMap.getSortedList(OrderEnum.DESC), TOP_WORDS_NUMBER);
+		long endTime = System.currentTimeMillis();
+		LogUtils.infoEnd("createWorkingFiles", startTime, endTime);
 
-			executionDataList.add(new ExecutionData(executionID, executionType, workingFilesNumber, workingFilesSize, executionTime, mostUsedWords, lessUsedWords));
+	}
 
-		} finally {
-			exec.shutdown();
+	/**
+	 * Checks if the working files are already on disc, so they can be used again instead
+	 * of being created.
+	 * 
+	 * <p>The working files of the number set must exist, and their average size must be
+	 * within a quarter of the size set, as base files don't have the same size.
+	 * 
+	 * @return true if the working files can be used again, or false if they must be
+	 *         created. It's always false when the working texts are created in memory.
+	 * @throws IOException if there is a problem while trying to read the size of a
+	 *         working file.
+	 */
+	public boolean existWorkingFiles() throws IOException {
+
+		if (corpusType != CorpusTypeEnum.FILES) {
+			return false;
+		}
+
+		Corpus corpus = getCorpus();
+		long totalSize = 0;
+
+		for (int i = 0; i < corpus.size(); i++) {
+			if (!new File(corpus.getName(i)).isFile()) {
+				return false;
+			}
+			totalSize += corpus.getSize(i);
 		}
 
+		long averageSize = totalSize / Math.max(1, corpus.size()) / 1024;
+
+		return Math.abs(averageSize - workingFilesSize) <= workingFilesSize / 4;
+
 	}
 
 	/**
-	 * Prints the content of a given ExecutionData object.
-	 * @param execData the ExecutionData object to print.
+	 * Counts the frequency of every word present in the set of working files and saves
+	 * it in a map, with the implementation of the given execution type.
+	 * 
+	 * @param executionType the implementation to run.
+	 * @param wordsMap the map that will store the frequency of every word.
+	 * @param executionDataList the list of executions. 
+	 * @throws IOException if there is a problem while trying to read or write a
+	 *         working file.
+	 * @throws InterruptedException if one of the threads created by this method is
+	 *         interrupted.
+	 * @throws ExecutionException if one of the threads created by this method has an
+	 *         execution error.
 	 */
-	public void printExecutionData(ExecutionData execData) {
-
-		LogUtils.info("### EXECUTION INFO ############################################################");
-		printExecutionDataInfo(execData);
-		LogUtils.info("###############################################################################");
-		LogUtils.emptyLine();
+	public void countWords(ExecutionTypeEnum executionType, FrequencyMap wordsMap, List<ExecutionData> executionDataList) throws IOException, InterruptedException, ExecutionException {
+
+		switch (executionType) {
+		case SINGLETHREAD:
+			countWordsSingleThread(wordsMap, executionDataList);
+			break;
+		case MULTITHREAD:
+			countWordsMultithread(wordsMap, executionDataList);
+			break;
+		case SHARDED:
+			countWordsSharded(wordsMap, executionDataList);
+			break;
+		case CHUNKED:
+			countWordsChunked(wordsMap, executionDataList);
+			break;
+		case FORKJOIN:
+			countWordsForkJoin(wordsMap, executionDataList);
+			break;
+		case VIRTUALTHREAD:
+			countWordsVirtualThreads(wordsMap, executionDataList);
+			break;
+		case DICTIONARY:
+			countWordsDictionary(wordsMap, executionDataList);
+			break;
+		case OFFHEAP:
+			countWordsOffHeap(wordsMap, executionDataList);
+			break;
+		case SPILLING:
+			countWordsSpilling(wordsMap, executionDataList);
+			break;
+		case APPROXIMATE:
+			countWordsApproximate(wordsMap, executionDataList);
+			break;
+		case DISTINCT:
+			countWordsDistinct(wordsMap, executionDataList);
+			break;
+		case INCREMENTAL:
+			countWordsIncremental(wordsMap, executionDataList);
+			break;
+		case DEDUPLICATED:
+			countWordsDeduplicated(wordsMap, executionDataList);
+			break;
+		}
 
 	}
 
 	/**
-	 * Prints the content of all the ExecutionData objects of a given list.
-	 * @param executionDataList the list of ExecutionData objects to print.
+	 * Counts the frequency of every word present in the set of working files and saves
+	 * it in a map.
+	 * 
+	 * <p>It parses all the working files, 1 by 1, using a single thread for all of them.
+	 * The words are counted into a <i>WordTable</i> and copied to the map at the end.
+	 * 
+	 * @param wordsMap the map that will store the frequency of every word.
+	 * @param executionDataList the list of executions. 
+	 * @throws IOException if there is a problem while trying to read or write a
+	 *         working file.
 	 */
-	public void printExecutionDataList(LinkedList<ExecutionData> executionDataList) {
+	public void countWordsSingleThread(FrequencyMap wordsMap, List<ExecutionData> executionDataList) throws IOException {
 
-		LogUtils.info("### HISTORIC OF EXECUTIONS ####################################################");
+		ExecutionMetrics metrics = new ExecutionMetrics();
 
-		long singleThreadAverageTime = 0;
-		long multithreadAverageTime = 0;
+		long startTime = System.currentTimeMillis();
+		LogUtils.infoStart("countWordsSingleThread");
 
-		int singleThreadExecutions = 0;
-		int multithreadExecutions = 0;
+		WordTable wordTable = new WordTable();
+		WordTokenizer tokenizer = new WordTokenizer(wordTable);
 
-		long singleThreadExecutionTime = 0;
-		long multithreadExecutionTime = 0;
+		Corpus corpus = getCorpus();
 
-		ListIterator<ExecutionData> it = executionDataList.listIterator();
-		ExecutionData execData;
+		for (int i = 0; i < corpus.size(); i++) {
 
-		while (it.hasNext()) {
+			LogUtils.infoProgress("Processing file", i + 1, corpus.size());
 
-			execData = it.next();
+			FileParseEvent event = new FileParseEvent();
+			event.begin();
 
-			if (execData.getExecutionType().equals(ExecutionTypeEnum.SINGLETHREAD)) {
-				singleThreadExecutions++;
-				singleThreadExecutionTime += execData.getExecutionTime();
-			} else {
-				multithreadExecutions++;
-				multithreadExecutionTime += execData.getExecutionTime();
+			long bytes = 0;
+			long wordsNumber = tokenizer.getWordsNumber();
+
+			for (ByteBuffer window : corpus.map(i)) {
+				bytes += window.remaining();
+				tokenizer.countWords(window);
 			}
 
-			printExecutionDataInfo(execData);
-			LogUtils.info("###############################################################################");
+			event.commit(i + 1, bytes, tokenizer.getWordsNumber() - wordsNumber);
+
 		}
 
-		LogUtils.emptyLine();
-		LogUtils.info("### AVERAGE EXECUTION TIME ####################################################");
+		metrics.endPhase("count");
 
-		if (singleThreadExecutions > 0) {
-			singleThreadAverageTime = singleThreadExecutionTime / singleThreadExecutions;
-		}
+		wordTable.copyTo(wordsMap.getMap());
 
-		if (multithreadExecutions > 0) {
-			multithreadAverageTime = multithreadExecutionTime / multithreadExecutions;
-		}
+		metrics.endPhase("copy");
 
-		LogUtils.info("  " + ExecutionTypeEnum.SINGLETHREAD + " average execution time: " + Utils.formatTime(singleThreadAverageTime) + " seconds");
-		LogUtils.info("  " + ExecutionTypeEnum.MULTITHREAD + " average execution time:  " + Utils.formatTime(multithreadAverageTime) + " seconds");
+		long endTime = System.currentTimeMillis();
+		LogUtils.infoEnd("countWordsSingleThread", startTime, endTime);
 
-		LogUtils.info("###############################################################################");
-		LogUtils.emptyLine();
+		addExecutionData(ExecutionTypeEnum.SINGLETHREAD, endTime - startTime, wordsMap, executionDataList, metrics);
 
 	}
 
 	/**
-	 * Deletes the working files from the disc.
-	 * It checks the suffix of the file names to identify the working files.
+	 * Counts the frequency of every word present in the set of working files and saves
+	 * it in a map.
+	 * 
+	 * <p>It runs a pipeline of reader and parser threads. The readers load the working
+	 * files in memory and put them in a queue, while the parsers take the files from the
+	 * queue and count their words into the shared map. The bytes loaded and waiting to be
+	 * parsed are limited, so memory use doesn't grow with the number of files.
+	 * 
+	 * @param wordsMap the map that will store the frequency of every word.
+	 * @param executionDataList the list of executions. 
+	 * @throws InterruptedException if one of the threads created by this method is
+	 *         interrupted.
+	 * @throws ExecutionException if one of the threads created by this method has an
+	 *         execution error, including a problem while trying to read a working file.
 	 */
-	public void deleteWorkingFiles() {
+	public void countWordsMultithread(FrequencyMap wordsMap, List<ExecutionData> executionDataList) throws InterruptedException, ExecutionException {
+
+		ExecutionMetrics metrics = new ExecutionMetrics();
 
 		long startTime = System.currentTimeMillis();
-		LogUtils.infoStart("deleteWorkingFiles");
+		LogUtils.infoStart("countWordsMultithread");
 
-		File folder = new File(FOLDER_PATH);
+		LogUtils.info("Threads: " + threadsNumber);
 
-		File[] files = folder.listFiles();
-		if (files != null) {
-			for (File f : files) {
-				if (f.getName().endsWith(FILE_TMP_SUFFIX + FILE_EXTENSION)) {
-					f.delete();
-				}
-			}
-		}
+		TextPipeline pipeline = new TextPipeline(getCorpus(), wordsMap.getMap(), PIPELINE_READERS_NUMBER, threadsNumber, PIPELINE_MAX_IN_FLIGHT_BYTES);
+		PipelineData pipelineData = pipeline.run(metrics.newThreadFactory());
 
-		LogUtils.info("Working files deleted successfully.");
+		metrics.endPhase("count");
 
 		long endTime = System.currentTimeMillis();
-		LogUtils.infoEnd("deleteWorkingFiles", startTime, endTime);
+		LogUtils.infoEnd("countWordsMultithread", startTime, endTime);
 
-	}
+		ExecutionData execData = addExecutionData(ExecutionTypeEnum.MULTITHREAD, endTime - startTime, wordsMap, executionDataList, metrics);
+		execData.setPipelineData(pipelineData);
 
+	}
+
+	/**
+	 * Counts the frequency of every word present in the set of working files and saves
+	 * it in a map.
+	 * 
+	 * <p>It starts the number of threads set, a thread per available processor by default.
+	 * Every thread counts a share of the working files into its own private map, so
+	 * threads never compete for the same words. Once all the files are parsed, the private
+	 * maps are merged by pairs, in parallel, until a single map remains.
+	 * 
+	 * <p>If the distinct words are estimated, every thread also keeps a HyperLogLog sketch
+	 * of its words, and the estimate of the merged sketches is saved with the execution.
+	 * 
+	 * @param wordsMap the map that will store the frequency of every word.
+	 * @param executionDataList the list of executions. 
+	 * @throws InterruptedException if one of the threads created by this method is
+	 *         interrupted.
+	 * @throws ExecutionException if one of the threads created by this method has an
+	 *         execution error, including a problem while trying to read a working file.
+	 */
+	public void countWordsSharded(FrequencyMap wordsMap, List<ExecutionData> executionDataList) throws InterruptedException, ExecutionException {
+
+		ExecutionMetrics metrics = new ExecutionMetrics();
+		ExecutorService exec = Executors.newFixedThreadPool(threadsNumber, metrics.newThreadFactory());
+
+		try {
+
+			long startTime = System.currentTimeMillis();
+			LogUtils.infoStart("countWordsSharded");
+
+			LogUtils.info("Threads: " + threadsNumber);
+
+			Corpus corpus = getCorpus();
+			AtomicInteger nextFile = new AtomicInteger();
+			List<Future<WordCountStore>> futures = new ArrayList<Future<WordCountStore>>();
+
+			Supplier<WordCountStore> storeFactory = WordTable::new;
+			if (distinctWordsEstimated) {
+				storeFactory = () -> new HyperLogLog(HYPERLOGLOG_PRECISION, new WordTable());
+			}
+
+			for (int i = 0; i < threadsNumber; i++) {
+				futures.add(exec.submit(new ShardParser<WordCountStore>(corpus, nextFile, storeFactory)));
+			}
+
+			List<WordTable> partialTables = new ArrayList<WordTable>();
+			HyperLogLog distinctWords = new HyperLogLog(HYPERLOGLOG_PRECISION);
+			for (Future<WordCountStore> future : futures) {
+				WordCountStore partial = future.get();
+				if (partial instanceof HyperLogLog) {
+					distinctWords.addAll((HyperLogLog) partial);
+					partial = ((HyperLogLog) partial).getStore();
+				}
+				partialTables.add((WordTable) partial);
+			}
+
+			metrics.endPhase("count");
+
+			WordTable wordTable = mergeWordTables(partialTables, exec);
+
+			metrics.endPhase("merge");
+
+			wordTable.copyTo(wordsMap.getMap());
+
+			metrics.endPhase("copy");
+
+			long endTime = System.currentTimeMillis();
+			LogUtils.infoEnd("countWordsSharded", startTime, endTime);
+
+			ExecutionData execData = addExecutionData(ExecutionTypeEnum.SHARDED, endTime - startTime, wordsMap, executionDataList, metrics);
+
+			if (distinctWordsEstimated) {
+				execData.setDistinctWords(distinctWords.estimate());
+				execData.setDistinctWordsError(distinctWords.getStandardError());
+				LogUtils.info("Distinct words: " + wordsMap.getMap().size() + " exact, " + distinctWords.estimate() + " estimated");
+			}
+
+		} finally {
+			exec.shutdown();
+		}
+
+	}
+
+	/**
+	 * Counts the frequency of every word present in the set of working files and saves
+	 * it in a map.
+	 * 
+	 * <p>Every working file is split in chunks that end at a whitespace, so no word is
+	 * split between two chunks, and the chunks are counted on a work-stealing pool. The
+	 * work depends on the total size of the files, not on their number, so all the
+	 * processors are busy even with a few big files. Every thread of the pool counts into
+	 * its own map, and the maps are merged at the end.
+	 * 
+	 * @param wordsMap the map that will store the frequency of every word.
+	 * @param executionDataList the list of executions. 
+	 * @throws IOException if there is a problem while trying to read a working file.
+	 * @throws InterruptedException if one of the threads created by this method is
+	 *         interrupted.
+	 * @throws ExecutionException if one of the threads created by this method has an
+	 *         execution error.
+	 */
+	public void countWordsChunked(FrequencyMap wordsMap, List<ExecutionData> executionDataList) throws IOException, InterruptedException, ExecutionException {
+
+		ExecutionMetrics metrics = new ExecutionMetrics();
+		ExecutorService exec = metrics.newForkJoinPool(threadsNumber, true);
+
+		try {
+
+			long startTime = System.currentTimeMillis();
+			LogUtils.infoStart("countWordsChunked");
+
+			LogUtils.info("Threads: " + threadsNumber);
+
+			List<WordTable> partialTables = Collections.synchronizedList(new ArrayList<WordTable>());
+			ThreadLocal<WordTokenizer> tokenizers = newThreadTokenizers(partialTables);
+
+			List<Future<String>> futures = new ArrayList<Future<String>>();
+
+			Corpus corpus = getCorpus();
+
+			for (int i = 0; i < corpus.size(); i++) {
+				for (ByteBuffer window : corpus.map(i)) {
+					for (ByteBuffer chunk : FileUtils.split(window, CHUNK_SIZE)) {
+						futures.add(exec.submit(new ChunkParser(chunk, i + 1, corpus.size(), tokenizers)));
+					}
+				}
+			}
+
+			for (Future<String> future : futures) {
+				future.get();
+			}
+
+			metrics.endPhase("count");
+
+			WordTable wordTable = mergeWordTables(new ArrayList<WordTable>(partialTables), exec);
+
+			metrics.endPhase("merge");
+
+			wordTable.copyTo(wordsMap.getMap());
+
+			metrics.endPhase("copy");
+
+			long endTime = System.currentTimeMillis();
+			LogUtils.infoEnd("countWordsChunked", startTime, endTime);
+
+			addExecutionData(ExecutionTypeEnum.CHUNKED, endTime - startTime, wordsMap, executionDataList, metrics);
+
+		} finally {
+			exec.shutdown();
+		}
+
+	}
+
+	/**
+	 * Counts the frequency of every word present in the set of working files and saves
+	 * it in a map.
+	 * 
+	 * <p>It runs a <i>WordsCountTask</i> on a Fork/Join pool. The task splits the range
+	 * of working files in half, and then the bytes of every file, until the pieces are
+	 * small enough. Every piece is counted into a local map, and the maps are merged on
+	 * the way back up. Idle threads steal pending pieces, so the load is balanced even if
+	 * the sizes of the files are very different.
+	 * 
+	 * @param wordsMap the map that will store the frequency of every word.
+	 * @param executionDataList the list of executions. 
+	 * @throws IOException if there is a problem while trying to read a working file.
+	 */
+	public void countWordsForkJoin(FrequencyMap wordsMap, List<ExecutionData> executionDataList) throws IOException {
+
+		ExecutionMetrics metrics = new ExecutionMetrics();
+		ForkJoinPool pool = metrics.newForkJoinPool(threadsNumber, false);
+
+		try {
+
+			long startTime = System.currentTimeMillis();
+			LogUtils.infoStart("countWordsForkJoin");
+
+			LogUtils.info("Threads: " + threadsNumber);
+
+			WordTable wordTable = pool.invoke(new WordsCountTask(getCorpus(), FORK_JOIN_THRESHOLD));
+
+			metrics.endPhase("count");
+
+			wordTable.copyTo(wordsMap.getMap());
+
+			metrics.endPhase("copy");
+
+			long endTime = System.currentTimeMillis();
+			LogUtils.infoEnd("countWordsForkJoin", startTime, endTime);
+
+			addExecutionData(ExecutionTypeEnum.FORKJOIN, endTime - startTime, wordsMap, executionDataList, metrics);
+
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} finally {
+			pool.shutdown();
+		}
+
+	}
+
+	/**
+	 * Counts the frequency of every word present in the set of working files and saves
+	 * it in a map.
+	 * 
+	 * <p>Every working file is read on its own virtual thread, and its bytes are counted
+	 * on a pool with the number of threads set. Virtual threads are cheap to create,
+	 * so there is no reader pool to size. A read pins the carrier of its thread, but the
+	 * scheduler adds carriers while the reads block, so slow reads don't stop the others. A semaphore limits the files opened and not counted yet. Every thread of
+	 * the parser pool counts into its own map, and the maps are merged at the end.
+	 * 
+	 * @param wordsMap the map that will store the frequency of every word.
+	 * @param executionDataList the list of executions. 
+	 * @throws InterruptedException if one of the threads created by this method is
+	 *         interrupted.
+	 * @throws ExecutionException if one of the threads created by this method has an
+	 *         execution error, including a problem while trying to read a working file.
+	 */
+	public void countWordsVirtualThreads(FrequencyMap wordsMap, List<ExecutionData> executionDataList) throws InterruptedException, ExecutionException {
+
+		ExecutionMetrics metrics = new ExecutionMetrics();
+		ExecutorService readers = Executors.newVirtualThreadPerTaskExecutor();
+		ExecutorService parsers = Executors.newFixedThreadPool(threadsNumber, metrics.newThreadFactory());
+
+		try {
+
+			long startTime = System.currentTimeMillis();
+			LogUtils.infoStart("countWordsVirtualThreads");
+
+			LogUtils.info("Threads: " + threadsNumber);
+
+			List<WordTable> partialTables = Collections.synchronizedList(new ArrayList<WordTable>());
+			ThreadLocal<WordTokenizer> tokenizers = newThreadTokenizers(partialTables);
+			Semaphore openFiles = new Semaphore(VIRTUAL_THREADS_OPEN_FILES);
+
+			List<Future<String>> futures = new ArrayList<Future<String>>();
+
+			Corpus corpus = getCorpus();
+
+			for (int i = 0; i < corpus.size(); i++) {
+				futures.add(readers.submit(new TextReader(corpus, i + 1, corpus.size(), openFiles, parsers, tokenizers)));
+			}
+
+			for (Future<String> future : futures) {
+				future.get();
+			}
+
+			metrics.endPhase("count");
+
+			WordTable wordTable = mergeWordTables(new ArrayList<WordTable>(partialTables), parsers);
+
+			metrics.endPhase("merge");
+
+			wordTable.copyTo(wordsMap.getMap());
+
+			metrics.endPhase("copy");
+
+			long endTime = System.currentTimeMillis();
+			LogUtils.infoEnd("countWordsVirtualThreads", startTime, endTime);
+
+			addExecutionData(ExecutionTypeEnum.VIRTUALTHREAD, endTime - startTime, wordsMap, executionDataList, metrics);
+
+		} finally {
+			readers.shutdown();
+			parsers.shutdown();
+		}
+
+	}
+
+	/**
+	 * Counts the frequency of every word present in the set of working files and saves
+	 * it in a map.
+	 * 
+	 * <p>Every word has an integer ID in a dictionary that is saved on disc and reused by
+	 * the next executions. It starts the number of threads set, and every
+	 * thread counts a share of the working files into its own array, indexed by ID, so
+	 * counting a known word is a lookup and an increment. The arrays are merged by adding
+	 * them, and the words that were not in the dictionary are added to it at the end.
+	 * Only the words of working files are added: the texts built in memory would fill the
+	 * dictionary with words of no other run. The entries of the map are only created
+	 * when they are needed.
+	 * 
+	 * @param wordsMap the map that will store the frequency of every word.
+	 * @param executionDataList the list of executions. 
+	 * @throws IOException if there is a problem while trying to read or write the
+	 *         dictionary.
+	 * @throws InterruptedException if one of the threads created by this method is
+	 *         interrupted.
+	 * @throws ExecutionException if one of the threads created by this method has an
+	 *         execution error, including a problem while trying to read a working file.
+	 */
+	public void countWordsDictionary(FrequencyMap wordsMap, List<ExecutionData> executionDataList) throws IOException, InterruptedException, ExecutionException {
+
+		ExecutionMetrics metrics = new ExecutionMetrics();
+		ExecutorService exec = Executors.newFixedThreadPool(threadsNumber, metrics.newThreadFactory());
+
+		try {
+
+			long startTime = System.currentTimeMillis();
+			LogUtils.infoStart("countWordsDictionary");
+
+			LogUtils.info("Threads: " + threadsNumber);
+
+			final WordDictionary dictionary = getDictionary();
+			LogUtils.info("Words in the dictionary: " + dictionary.size());
+
+			Corpus corpus = getCorpus();
+			AtomicInteger nextFile = new AtomicInteger();
+			List<Future<DictionaryCounts>> futures = new ArrayList<Future<DictionaryCounts>>();
+
+			for (int i = 0; i < threadsNumber; i++) {
+				futures.add(exec.submit(new ShardParser<DictionaryCounts>(corpus, nextFile, () -> new DictionaryCounts(dictionary))));
+			}
+
+			List<DictionaryCounts> partialCounts = getAll(futures);
+
+			metrics.endPhase("count");
+
+			DictionaryCounts dictionaryCounts = new DictionaryCounts(dictionary);
+			for (DictionaryCounts partial : partialCounts) {
+				dictionaryCounts.addAll(partial);
+			}
+
+			metrics.endPhase("merge");
+
+			if (corpusType == CorpusTypeEnum.FILES) {
+				int newWords = dictionaryCounts.extend();
+				if (newWords > 0) {
+					LogUtils.info("Words added to the dictionary: " + newWords);
+					new File(DATA_FOLDER_PATH).mkdirs();
+					dictionary.save(getDictionaryPath());
+				}
+			}
+
+			metrics.endPhase("dictionary");
+
+			wordsMap.setStore(dictionaryCounts);
+
+			long endTime = System.currentTimeMillis();
+			LogUtils.infoEnd("countWordsDictionary", startTime, endTime);
+
+			addExecutionData(ExecutionTypeEnum.DICTIONARY, endTime - startTime, wordsMap, executionDataList, metrics);
+
+		} finally {
+			exec.shutdown();
+		}
+
+	}
+
+	/**
+	 * Counts the frequency of every word present in the set of working files and saves
+	 * it in a map.
+	 * 
+	 * <p>It works like {@link #countWordsSharded(FrequencyMap, List)}, but every thread
+	 * counts into a table stored outside of the heap, in direct buffers, so the number of
+	 * distinct words is not limited by the size of the heap and the garbage collector
+	 * never scans them. The tables are merged into the biggest one, and the others are
+	 * released right away. The merged table is kept by the map, which only creates the
+	 * entries of the words reported.
+	 * 
+	 * @param wordsMap the map that will store the frequency of every word.
+	 * @param executionDataList the list of executions. 
+	 * @throws InterruptedException if one of the threads created by this method is
+	 *         interrupted.
+	 * @throws ExecutionException if one of the threads created by this method has an
+	 *         execution error, including a problem while trying to read a working file.
+	 */
+	public void countWordsOffHeap(FrequencyMap wordsMap, List<ExecutionData> executionDataList) throws InterruptedException, ExecutionException {
+
+		ExecutionMetrics metrics = new ExecutionMetrics();
+		ExecutorService exec = Executors.newFixedThreadPool(threadsNumber, metrics.newThreadFactory());
+
+		try {
+
+			long startTime = System.currentTimeMillis();
+			LogUtils.infoStart("countWordsOffHeap");
+
+			LogUtils.info("Threads: " + threadsNumber);
+
+			Corpus corpus = getCorpus();
+			AtomicInteger nextFile = new AtomicInteger();
+			List<Future<OffHeapWordTable>> futures = new ArrayList<Future<OffHeapWordTable>>();
+
+			for (int i = 0; i < threadsNumber; i++) {
+				futures.add(exec.submit(new ShardParser<OffHeapWordTable>(corpus, nextFile, OffHeapWordTable::new)));
+			}
+
+			List<OffHeapWordTable> partialTables = getAll(futures);
+
+			metrics.endPhase("count");
+
+			OffHeapWordTable wordTable = null;
+			for (OffHeapWordTable partialTable : partialTables) {
+
+				if (wordTable == null) {
+					wordTable = partialTable;
+				} else if (partialTable.size() > wordTable.size()) {
+					partialTable.addAll(wordTable);
+					wordTable.release();
+					wordTable = partialTable;
+				} else {
+					wordTable.addAll(partialTable);
+					partialTable.release();
+				}
+
+			}
+
+			metrics.endPhase("merge");
+
+			LogUtils.info("Memory out of the heap: " + (wordTable.getAllocatedBytes() / 1024) + "kb");
+
+			wordsMap.setStore(wordTable);
+
+			long endTime = System.currentTimeMillis();
+			LogUtils.infoEnd("countWordsOffHeap", startTime, endTime);
+
+			addExecutionData(ExecutionTypeEnum.OFFHEAP, endTime - startTime, wordsMap, executionDataList, metrics);
+
+		} finally {
+			exec.shutdown();
+		}
+
+	}
+
+	/**
+	 * Counts the frequency of every word present in the set of working files and saves
+	 * it in a map.
+	 * 
+	 * <p>It works like {@link #countWordsSharded(FrequencyMap, List)}, but the words
+	 * counted in memory never take more than the memory budget, shared by all the
+	 * threads. When a thread reaches its share, it writes its words to a temporary file,
+	 * sorted, and starts again. At the end, the files of all the threads are merged
+	 * while they are read, and the most and less used words are selected during the
+	 * merge, so the number of distinct words is only limited by the disc.
+	 * 
+	 * @param wordsMap the map that will store the frequency of every word.
+	 * @param executionDataList the list of executions. 
+	 * @throws InterruptedException if one of the threads created by this method is
+	 *         interrupted.
+	 * @throws ExecutionException if one of the threads created by this method has an
+	 *         execution error, including a problem while trying to read a working file
+	 *         or write a temporary file.
+	 */
+	public void countWordsSpilling(FrequencyMap wordsMap, List<ExecutionData> executionDataList) throws InterruptedException, ExecutionException {
+
+		ExecutionMetrics metrics = new ExecutionMetrics();
+		ExecutorService exec = Executors.newFixedThreadPool(threadsNumber, metrics.newThreadFactory());
+
+		try {
+
+			long startTime = System.currentTimeMillis();
+			LogUtils.infoStart("countWordsSpilling");
+
+			LogUtils.info("Threads: " + threadsNumber);
+			LogUtils.info("Memory budget: " + (memoryBudget / 1024) + "kb");
+
+			final long threadMemoryBudget = memoryBudget / threadsNumber;
+
+			Corpus corpus = getCorpus();
+			AtomicInteger nextFile = new AtomicInteger();
+			List<Future<SpillingWordTable>> futures = new ArrayList<Future<SpillingWordTable>>();
+
+			for (int i = 0; i < threadsNumber; i++) {
+				futures.add(exec.submit(new ShardParser<SpillingWordTable>(corpus, nextFile, () -> new SpillingWordTable(threadMemoryBudget))));
+			}
+
+			List<SpillingWordTable> partialTables = getAll(futures);
+
+			metrics.endPhase("count");
+
+			SpillingWordTable wordTable = new SpillingWordTable(threadMemoryBudget);
+			for (SpillingWordTable partialTable : partialTables) {
+				wordTable.addAll(partialTable);
+			}
+
+			// The runs are merged once, and the most and less used words are kept
+			wordTable.getTopList(OrderEnum.DESC, topWordsNumber);
+
+			metrics.endPhase("merge");
+			wordsMap.setStore(wordTable);
+
+			long endTime = System.currentTimeMillis();
+			LogUtils.infoEnd("countWordsSpilling", startTime, endTime);
+
+			addExecutionData(ExecutionTypeEnum.SPILLING, endTime - startTime, wordsMap, executionDataList, metrics);
+
+			LogUtils.info("Runs spilled to disc: " + wordTable.getRunsNumber());
+
+		} finally {
+			exec.shutdown();
+		}
+
+	}
+
+	/**
+	 * Counts the frequency of every word present in the set of working files and saves
+	 * it in a map, parsing only the files that changed since the last incremental count.
+	 * 
+	 * <p>The counts of every working file are kept in a <i>FileCountsCache</i>. The files
+	 * that are new, or whose size or last modified time changed, or whose content changed
+	 * if it is compared, are counted again with <i>WordsCountTask</i> on a Fork/Join
+	 * pool. The old counts of those files are subtracted from the total and the new ones
+	 * are added, so the work depends on the files that changed only.
+	 * 
+	 * <p>The total of the cache is given to the map as its store, so no word is copied
+	 * and only the entries reported are created. It is updated in place by the next
+	 * incremental count, so the map must be released before it.
+	 * 
+	 * @param wordsMap the map that will store the frequency of every word.
+	 * @param executionDataList the list of executions. 
+	 * @throws IOException if there is a problem while trying to read a working file.
+	 */
+	public void countWordsIncremental(FrequencyMap wordsMap, List<ExecutionData> executionDataList) throws IOException {
+
+		ExecutionMetrics metrics = new ExecutionMetrics();
+		ForkJoinPool pool = metrics.newForkJoinPool(threadsNumber, false);
+
+		try {
+
+			long startTime = System.currentTimeMillis();
+			LogUtils.infoStart("countWordsIncremental");
+
+			if (countsCache == null || countsCache.isContentHashed() != contentHashed) {
+				countsCache = new FileCountsCache(contentHashed);
+			}
+
+			Corpus corpus = getCorpus();
+			List<Integer> changedFiles = countsCache.getChangedFiles(corpus);
+
+			metrics.endPhase("check");
+
+			List<ForkJoinTask<WordTable>> tasks = new ArrayList<ForkJoinTask<WordTable>>();
+			for (int fileIndex : changedFiles) {
+				tasks.add(pool.submit(new WordsCountTask(corpus, fileIndex, fileIndex + 1, FORK_JOIN_THRESHOLD)));
+			}
+
+			for (int i = 0; i < tasks.size(); i++) {
+				countsCache.update(corpus.getName(changedFiles.get(i)), tasks.get(i).join());
+			}
+
+			wordsMap.setStore(countsCache.getTotal());
+
+			metrics.endPhase("count");
+
+			long endTime = System.currentTimeMillis();
+			LogUtils.infoEnd("countWordsIncremental", startTime, endTime);
+
+			addExecutionData(ExecutionTypeEnum.INCREMENTAL, endTime - startTime, wordsMap, executionDataList, metrics);
+
+			LogUtils.info("Files counted again: " + changedFiles.size() + " of " + corpus.size());
+
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
+		} finally {
+			pool.shutdown();
+		}
+
+	}
+
+	/**
+	 * Removes the counts kept by the incremental counts, so the next one counts all the
+	 * working files again.
+	 */
+	public void clearCountsCache() {
+
+		if (countsCache != null) {
+			countsCache.clear();
+		}
+
+	}
+
+	/**
+	 * Counts the frequency of every word present in the set of working files and saves
+	 * it in a map, counting the repeated content only once.
+	 * 
+	 * <p>Every thread splits a share of the working files in content-defined chunks that
+	 * never split a word, with a <i>ChunkDeduplicator</i>, which keeps every distinct
+	 * chunk once with the number of times it occurs. The deduplicators are merged, and
+	 * then every distinct chunk is counted once, in parallel, with its counts multiplied
+	 * by the times it occurs. The result is exactly the same as counting every chunk, but
+	 * the repeated content is only scanned to find the chunks.
+	 * 
+	 * @param wordsMap the map that will store the frequency of every word.
+	 * @param executionDataList the list of executions. 
+	 * @throws InterruptedException if one of the threads created by this method is
+	 *         interrupted.
+	 * @throws ExecutionException if one of the threads created by this method has an
+	 *         execution error, including a problem while trying to read a working file.
+	 */
+	public void countWordsDeduplicated(FrequencyMap wordsMap, List<ExecutionData> executionDataList) throws InterruptedException, ExecutionException {
+
+		ExecutionMetrics metrics = new ExecutionMetrics();
+		ExecutorService exec = Executors.newFixedThreadPool(threadsNumber, metrics.newThreadFactory());
+
+		try {
+
+			long startTime = System.currentTimeMillis();
+			LogUtils.infoStart("countWordsDeduplicated");
+
+			LogUtils.info("Threads: " + threadsNumber);
+
+			final Corpus corpus = getCorpus();
+			final AtomicInteger nextFile = new AtomicInteger();
+			List<Future<ChunkDeduplicator>> futures = new ArrayList<Future<ChunkDeduplicator>>();
+
+			for (int i = 0; i < threadsNumber; i++) {
+				futures.add(exec.submit(() -> {
+
+					ChunkDeduplicator deduplicator = new ChunkDeduplicator();
+
+					int fileIndex;
+					while ((fileIndex = nextFile.getAndIncrement()) < corpus.size()) {
+						LogUtils.infoProgress("(" + Thread.currentThread().getName() + ") Processing file", fileIndex + 1, corpus.size());
+						for (ByteBuffer window : corpus.map(fileIndex)) {
+							deduplicator.add(window);
+						}
+					}
+
+					return deduplicator;
+
+				}));
+			}
+
+			List<ChunkDeduplicator> deduplicators = getAll(futures);
+
+			metrics.endPhase("chunk");
+
+			ChunkDeduplicator chunks = deduplicators.get(0);
+			for (int i = 1; i < deduplicators.size(); i++) {
+				chunks.addAll(deduplicators.get(i));
+			}
+
+			metrics.endPhase("merge chunks");
+
+			List<Future<WordTable>> tableFutures = new ArrayList<Future<WordTable>>();
+
+			for (final ChunkDeduplicator part : chunks.split(threadsNumber)) {
+				tableFutures.add(exec.submit(() -> {
+
+					WordTable wordTable = new WordTable();
+					WordTokenizer tokenizer = new WordTokenizer(wordTable);
+					part.forEach(tokenizer::countWords);
+
+					return wordTable;
+
+				}));
+			}
+
+			List<WordTable> partialTables = getAll(tableFutures);
+
+			metrics.endPhase("count");
+
+			WordTable wordTable = mergeWordTables(partialTables, exec);
+
+			metrics.endPhase("merge");
+
+			wordTable.copyTo(wordsMap.getMap());
+
+			metrics.endPhase("copy");
+
+			long endTime = System.currentTimeMillis();
+			LogUtils.infoEnd("countWordsDeduplicated", startTime, endTime);
+
+			addExecutionData(ExecutionTypeEnum.DEDUPLICATED, endTime - startTime, wordsMap, executionDataList, metrics);
+
+			LogUtils.info("Chunks found: " + chunks.getChunksNumber() + ", " + chunks.getDistinctChunksNumber() + " distinct");
+			LogUtils.info("Bytes counted: " + (chunks.getDistinctBytesNumber() / 1024) + "kb of " + (chunks.getBytesNumber() / 1024) + "kb");
+
+		} finally {
+			exec.shutdown();
+		}
+
+	}
+
+	/**
+	 * Counts the most used words of the working files approximately, in a fixed amount of
+	 * memory, with the number of threads set.
+	 * 
+	 * <p>Every thread counts its files into a <i>HeavyHitters</i> store, which keeps a
+	 * Space-Saving summary of the most used words and a Count-Min Sketch, with the sizes
+	 * of the service, whatever the number of distinct words. The stores are merged at the
+	 * end. The counts of the most used words are never less than the real ones, and the
+	 * maximum error of every count is saved with them. The less used words are not known.
+	 * 
+	 * @param wordsMap the FrequencyMap object to update.
+	 * @param executionDataList the list of executions to update.
+	 * @throws InterruptedException if a thread is interrupted while waiting.
+	 * @throws ExecutionException if a thread fails to count its files.
+	 */
+	public void countWordsApproximate(FrequencyMap wordsMap, List<ExecutionData> executionDataList) throws InterruptedException, ExecutionException {
+
+		ExecutionMetrics metrics = new ExecutionMetrics();
+		ExecutorService exec = Executors.newFixedThreadPool(threadsNumber, metrics.newThreadFactory());
+
+		try {
+
+			long startTime = System.currentTimeMillis();
+			LogUtils.infoStart("countWordsApproximate");
+
+			LogUtils.info("Threads: " + threadsNumber);
+
+			final int storeSummarySize = Math.max(summarySize, topWordsNumber);
+
+			Corpus corpus = getCorpus();
+			AtomicInteger nextFile = new AtomicInteger();
+			List<Future<HeavyHitters>> futures = new ArrayList<Future<HeavyHitters>>();
+
+			for (int i = 0; i < threadsNumber; i++) {
+				futures.add(exec.submit(new ShardParser<HeavyHitters>(corpus, nextFile, () -> new HeavyHitters(storeSummarySize, sketchWidth, SKETCH_DEPTH))));
+			}
+
+			List<HeavyHitters> partialStores = getAll(futures);
+
+			metrics.endPhase("count");
+
+			HeavyHitters heavyHitters = partialStores.get(0);
+			for (int i = 1; i < partialStores.size(); i++) {
+				heavyHitters.addAll(partialStores.get(i));
+			}
+
+			metrics.endPhase("merge");
+
+			wordsMap.setStore(heavyHitters);
+
+			long endTime = System.currentTimeMillis();
+			LogUtils.infoEnd("countWordsApproximate", startTime, endTime);
+
+			ExecutionData execData = addExecutionData(ExecutionTypeEnum.APPROXIMATE, endTime - startTime, wordsMap, executionDataList, metrics);
+
+			List<Long> errors = new ArrayList<Long>();
+			for (Entry<String, Frequency> entry : execData.getMostUsedWords()) {
+				errors.add(heavyHitters.getError(entry.getKey()));
+			}
+
+			SpaceSavingSummary summary = heavyHitters.getSummary();
+			CountMinSketch sketch = heavyHitters.getSketch();
+
+			execData.setApproximationData(new ApproximationData(sketch.getTotalCount(),
+					summary.getCapacity(),
+					sketch.getWidth(),
+					sketch.getDepth(),
+					heavyHitters.getMemoryUsage() * threadsNumber,
+					summary.getCapacity() > 0 ? sketch.getTotalCount() / summary.getCapacity() : 0,
+					sketch.getErrorBound(),
+					sketch.getConfidence(),
+					errors));
+
+			LogUtils.info("Memory of every thread: " + (heavyHitters.getMemoryUsage() / 1024) + "kb");
+
+		} finally {
+			exec.shutdown();
+		}
+
+	}
+
+	/**
+	 * Estimates the number of distinct words of the working files, without counting them,
+	 * with the number of threads set.
+	 * 
+	 * <p>Every thread adds the words of its files to a HyperLogLog sketch of a few KB, and
+	 * the sketches are merged at the end. No word is stored, so the most and less used
+	 * words are not known.
+	 * 
+	 * @param wordsMap the FrequencyMap object to update.
+	 * @param executionDataList the list of executions to update.
+	 * @throws InterruptedException if a thread is interrupted while waiting.
+	 * @throws ExecutionException if a thread fails to read its files.
+	 */
+	public void countWordsDistinct(FrequencyMap wordsMap, List<ExecutionData> executionDataList) throws InterruptedException, ExecutionException {
+
+		ExecutionMetrics metrics = new ExecutionMetrics();
+		ExecutorService exec = Executors.newFixedThreadPool(threadsNumber, metrics.newThreadFactory());
+
+		try {
+
+			long startTime = System.currentTimeMillis();
+			LogUtils.infoStart("countWordsDistinct");
+
+			LogUtils.info("Threads: " + threadsNumber);
+
+			Corpus corpus = getCorpus();
+			AtomicInteger nextFile = new AtomicInteger();
+			List<Future<HyperLogLog>> futures = new ArrayList<Future<HyperLogLog>>();
+
+			for (int i = 0; i < threadsNumber; i++) {
+				futures.add(exec.submit(new ShardParser<HyperLogLog>(corpus, nextFile, () -> new HyperLogLog(HYPERLOGLOG_PRECISION))));
+			}
+
+			List<HyperLogLog> partialSketches = getAll(futures);
+
+			metrics.endPhase("count");
+
+			HyperLogLog distinctWords = new HyperLogLog(HYPERLOGLOG_PRECISION);
+			for (HyperLogLog partialSketch : partialSketches) {
+				distinctWords.addAll(partialSketch);
+			}
+
+			metrics.endPhase("merge");
+
+			wordsMap.setStore(distinctWords);
+
+			long endTime = System.currentTimeMillis();
+			LogUtils.infoEnd("countWordsDistinct", startTime, endTime);
+
+			ExecutionData execData = addExecutionData(ExecutionTypeEnum.DISTINCT, endTime - startTime, wordsMap, executionDataList, metrics);
+			execData.setDistinctWords(distinctWords.estimate());
+			execData.setDistinctWordsError(distinctWords.getStandardError());
+
+			LogUtils.info("Memory of every thread: " + distinctWords.getMemoryUsage() + " bytes");
+
+		} finally {
+			exec.shutdown();
+		}
+
+	}
+
+	/**
+	 * Saves the words of a map and their counts to the snapshot file, so they can be
+	 * loaded after a restart without counting them again.
+	 * 
+	 * <p>Nothing is saved if the map doesn't keep all the words counted, like after the
+	 * DISTINCT and APPROXIMATE executions, which only keep a sketch or the most used words.
+	 * 
+	 * @param wordsMap the map with the words to save.
+	 * @throws IOException if there is a problem while trying to write the snapshot file.
+	 */
+	public void saveSnapshot(FrequencyMap wordsMap) throws IOException {
+
+		if (!wordsMap.keepsAllWords()) {
+			LogUtils.error("The last execution didn't keep all the words counted, so no snapshot is saved.");
+			return;
+		}
+
+		long startTime = System.currentTimeMillis();
+		LogUtils.infoStart("saveSnapshot");
+
+		WordsSnapshot.save(getSnapshotPath(), wordsMap);
+
+		LogUtils.info("Words saved to: " + getSnapshotPath() + " (" + (new File(getSnapshotPath()).length() / 1024) + "kb)");
+
+		long endTime = System.currentTimeMillis();
+		LogUtils.infoEnd("saveSnapshot", startTime, endTime);
+
+	}
+
+	/**
+	 * Loads the words saved to the snapshot file into a map. The file is mapped in memory
+	 * and the words are read from it when they are requested.
+	 * 
+	 * @param wordsMap the map that will hold the words of the snapshot.
+	 * @throws IOException if there is a problem while trying to read the snapshot file.
+	 */
+	public void loadSnapshot(FrequencyMap wordsMap) throws IOException {
+
+		long startTime = System.currentTimeMillis();
+		LogUtils.infoStart("loadSnapshot");
+
+		WordsSnapshot snapshot = WordsSnapshot.load(getSnapshotPath());
+		wordsMap.setStore(snapshot);
+
+		LogUtils.info("Words loaded: " + snapshot.size() + " distinct, " + snapshot.getTotalCount() + " in total");
+		LogUtils.info("Most used words: " + wordsMap.getTopList(OrderEnum.DESC, topWordsNumber).toString());
+
+		long endTime = System.currentTimeMillis();
+		LogUtils.infoEnd("loadSnapshot", startTime, endTime);
+
+	}
+
+	/**
+	 * Prints the content of a given ExecutionData object.
+	 * @param execData the ExecutionData object to print.
+	 */
+	public void printExecutionData(ExecutionData execData) {
+
+		LogUtils.info("### EXECUTION INFO ############################################################");
+		printExecutionDataInfo(execData);
+		LogUtils.info("###############################################################################");
+		LogUtils.emptyLine();
+
+	}
+
+	/**
+	 * Prints the content of all the ExecutionData objects of a given list.
+	 * @param executionDataList the list of ExecutionData objects to print.
+	 */
+	public void printExecutionDataList(LinkedList<ExecutionData> executionDataList) {
+
+		LogUtils.info("### HISTORIC OF EXECUTIONS ####################################################");
+
+		Map<ExecutionTypeEnum, Integer> executions = new EnumMap<ExecutionTypeEnum, Integer>(ExecutionTypeEnum.class);
+		Map<ExecutionTypeEnum, Long> executionTimes = new EnumMap<ExecutionTypeEnum, Long>(ExecutionTypeEnum.class);
+
+		for (ExecutionTypeEnum executionType : ExecutionTypeEnum.values()) {
+			executions.put(executionType, 0);
+			executionTimes.put(executionType, 0L);
+		}
+
+		ListIterator<ExecutionData> it = executionDataList.listIterator();
+		ExecutionData execData;
+
+		while (it.hasNext()) {
+
+			execData = it.next();
+
+			executions.put(execData.getExecutionType(), executions.get(execData.getExecutionType()) + 1);
+			executionTimes.put(execData.getExecutionType(), executionTimes.get(execData.getExecutionType()) + execData.getExecutionTime());
+
+			printExecutionDataInfo(execData);
+			LogUtils.info("###############################################################################");
+		}
+
+		LogUtils.emptyLine();
+		LogUtils.info("### AVERAGE EXECUTION TIME ####################################################");
+
+		for (ExecutionTypeEnum executionType : ExecutionTypeEnum.values()) {
+
+			long averageTime = 0;
+
+			if (executions.get(executionType) > 0) {
+				averageTime = executionTimes.get(executionType) / executions.get(executionType);
+			}
+
+			LogUtils.info(String.format("  %-13s average execution time: %s seconds", executionType, Utils.formatTime(averageTime)));
+
+		}
+
+		LogUtils.info("###############################################################################");
+		LogUtils.emptyLine();
+
+	}
+
+	/**
+	 * Deletes the working files from the disc, and releases the working texts created in
+	 * memory. It checks the suffix of the file names to identify the working files.
+	 */
+	public void deleteWorkingFiles() {
+
+		long startTime = System.currentTimeMillis();
+		LogUtils.infoStart("deleteWorkingFiles");
+
+		releaseMemoryCorpus();
+
+		File folder = new File(FOLDER_PATH);
+
+		File[] files = folder.listFiles();
+		if (files != null) {
+			for (File f : files) {
+				if (f.getName().endsWith(FILE_TMP_SUFFIX + FILE_EXTENSION)) {
+					f.delete();
+				}
+			}
+		}
+
+		LogUtils.info("Working files deleted successfully.");
+
+		long endTime = System.currentTimeMillis();
+		LogUtils.infoEnd("deleteWorkingFiles", startTime, endTime);
+
+	}
+
+
+	// Private Methods
+	/**
+	 * Writes the working files, every one with a combination of random base files, with the
+	 * number of threads set.
+	 * @param baseFiles the encoded base files, in direct buffers, so they are written with
+	 *        no intermediate copy.
+	 * @param baseFilesPerWorkingFile the number of base files of every working file.
+	 * @throws InterruptedException if one of the threads is interrupted.
+	 * @throws ExecutionException if one of the threads has an execution error, including
+	 *         a problem while trying to write a working file.
+	 */
+	private void writeWorkingFiles(final ByteBuffer[] baseFiles, final int baseFilesPerWorkingFile) throws InterruptedException, ExecutionException {
+
+		ExecutorService exec = Executors.newFixedThreadPool(threadsNumber);
+
+		try {
+
+			List<Future<?>> futures = new ArrayList<Future<?>>();
+
+			for (int i = 1; i <= workingFilesNumber; i++) {
+
+				final int fileIndex = i;
+
+				futures.add(exec.submit(() -> {
+
+					LogUtils.infoProgress("Preparing working file", fileIndex, workingFilesNumber);
+
+					Random randomizer = ThreadLocalRandom.current();
+					ByteBuffer[] fileParts = new ByteBuffer[baseFilesPerWorkingFile];
+
+					for (int j = 0; j < baseFilesPerWorkingFile; j++) {
+						fileParts[j] = baseFiles[randomizer.nextInt(BASE_FILES_NUMBER)].duplicate();
+					}
+
+					FileUtils.write(getWorkingFilePath(fileIndex), fileParts);
+
+					return null;
+
+				}));
+
+			}
+
+			for (Future<?> future : futures) {
+				future.get();
+			}
+
+		} finally {
+			exec.shutdown();
+		}
+
+	}
+
+	/**
+	 * Gets the working texts: the working files on disc, or the texts created in memory.
+	 * @return the corpus with the working texts.
+	 * @throws IllegalStateException if the working texts are in memory and they were not
+	 *         created yet.
+	 */
+	private Corpus getCorpus() {
+
+		if (corpusType == CorpusTypeEnum.FILES) {
+			return new FileCorpus(getWorkingFilePaths());
+		}
+
+		if (memoryCorpus == null) {
+			throw new IllegalStateException("The working texts in memory must be created first.");
+		}
+
+		return memoryCorpus;
+
+	}
+
+	/**
+	 * Releases the memory of the working texts created in memory, if any.
+	 */
+	private void releaseMemoryCorpus() {
+
+		if (memoryCorpus != null) {
+			memoryCorpus.release();
+			memoryCorpus = null;
+		}
+
+	}
+
+	/**
+	 * Builds the path of a working file.
+	 * @param fileNumber the number of the working file, starting at 1.
+	 * @return the path of the working file.
+	 */
+	private String getWorkingFilePath(int fileNumber) {
+
+		return FOLDER_PATH + FILE_NAME + fileNumber + FILE_TMP_SUFFIX + FILE_EXTENSION;
+
+	}
+
+	/**
+	 * Builds the paths of all the working files.
+	 * @return the list of paths of the working files, in order.
+	 */
+	private List<String> getWorkingFilePaths() {
+
+		List<String> filePaths = new ArrayList<String>();
+		for (int i = 1; i <= workingFilesNumber; i++) {
+			filePaths.add(getWorkingFilePath(i));
+		}
+
+		return filePaths;
+
+	}
+
+	/**
+	 * Builds the path of the snapshot of words.
+	 * @return the path of the snapshot.
+	 */
+	private String getSnapshotPath() {
+
+		return FOLDER_PATH + SNAPSHOT_FILE_NAME + SNAPSHOT_FILE_EXTENSION;
+
+	}
+
+	/**
+	 * Builds the path of the dictionary of words.
+	 * @return the path of the dictionary.
+	 */
+	private String getDictionaryPath() {
+
+		return DATA_FOLDER_PATH + DICTIONARY_FILE_NAME + FILE_EXTENSION;
+
+	}
+
+	/**
+	 * Gets the dictionary of words, loading it from disc the first time if it was saved
+	 * by a previous run.
+	 * @return the dictionary of words.
+	 * @throws IOException if there is a problem while trying to read the dictionary.
+	 */
+	private WordDictionary getDictionary() throws IOException {
+
+		if (dictionary == null) {
+			if (new File(getDictionaryPath()).exists()) {
+				dictionary = WordDictionary.load(getDictionaryPath());
+			} else {
+				dictionary = new WordDictionary();
+			}
+		}
+
+		return dictionary;
+
+	}
+
+	/**
+	 * Creates a tokenizer for every thread that counts into a table of its own.
+	 * @param partialTables the list where the table of every thread is added.
+	 * @return the tokenizers of the threads.
+	 */
+	private ThreadLocal<WordTokenizer> newThreadTokenizers(final List<WordTable> partialTables) {
+
+		return new ThreadLocal<WordTokenizer>() {
+			@Override
+			protected WordTokenizer initialValue() {
+				WordTable partialTable = new WordTable();
+				partialTables.add(partialTable);
+				return new WordTokenizer(partialTable);
+			}
+		};
+
+	}
+
+	/**
+	 * Waits for the results of a list of tasks.
+	 * @param futures the results of the tasks.
+	 * @return the results, in the same order.
+	 * @throws InterruptedException if the current thread is interrupted while waiting.
+	 * @throws ExecutionException if a task has an execution error.
+	 */
+	private static <T> List<T> getAll(List<Future<T>> futures) throws InterruptedException, ExecutionException {
+
+		List<T> results = new ArrayList<T>();
+		for (Future<T> future : futures) {
+			results.add(future.get());
+		}
+
+		return results;
+
+	}
+
+	/**
+	 * Gets the number of bytes of the working texts.
+	 * @return the number of bytes of all the working texts.
+	 * @throws UncheckedIOException if there is a problem while trying to read the size of
+	 *         a working file.
+	 */
+	private long getCorpusSize() {
+
+		Corpus corpus = getCorpus();
+		long size = 0;
+
+		try {
+			for (int i = 0; i < corpus.size(); i++) {
+				size += corpus.getSize(i);
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		return size;
+
+	}
+
+	/**
+	 * Merges a list of tables by pairs, in parallel, until a single table remains.
+	 * @param partialTables the tables to merge. They are modified by the merge.
+	 * @param exec the executor that runs the merges.
+	 * @return the table with the counts of all the tables.
+	 * @throws InterruptedException if one of the merges is interrupted.
+	 * @throws ExecutionException if one of the merges has an execution error.
+	 */
+	private WordTable mergeWordTables(List<WordTable> partialTables, ExecutorService exec) throws InterruptedException, ExecutionException {
+
+		while (partialTables.size() > 1) {
+
+			List<Future<WordTable>> futures = new ArrayList<Future<WordTable>>();
+
+			for (int i = 0; i + 1 < partialTables.size(); i += 2) {
+				futures.add(exec.submit(new FrequencyMerger(partialTables.get(i), partialTables.get(i + 1))));
+			}
+
+			List<WordTable> mergedTables = new ArrayList<WordTable>();
+			for (Future<WordTable> future : futures) {
+				mergedTables.add(future.get());
+			}
+			if (partialTables.size() % 2 != 0) {
+				mergedTables.add(partialTables.get(partialTables.size() - 1));
+			}
+
+			partialTables = mergedTables;
+
+		}
+
+		return partialTables.isEmpty() ? new WordTable() : partialTables.get(0);
+
+	}
+
+	/**
+	 * Adds the data of a finished execution to the list of executions, with its metrics.
+	 * The most and less used words are selected in the last phase of the metrics, and
+	 * the words are added up once the metrics are stopped.
+	 * @param executionType the type of the execution.
+	 * @param executionTime the execution time, in milliseconds.
+	 * @param wordsMap the map with the frequency of every word.
+	 * @param executionDataList the list of executions.
+	 * @param metrics the metrics of the execution.
+	 * @return the data of the execution.
+	 */
+	private ExecutionData addExecutionData(ExecutionTypeEnum executionType, long executionTime, FrequencyMap wordsMap, List<ExecutionData> executionDataList, ExecutionMetrics metrics) {
+
+		int executionID = executionDataList.size() + 1;
+		List<Entry<String, Frequency>> mostUsedWords = wordsMap.getTopList(OrderEnum.DESC, topWordsNumber);
+		List<Entry<String, Frequency>> lessUsedWords = wordsMap.getTopList(OrderEnum.ASC, topWordsNumber);
+
+		metrics.endPhase("top lists");
+
+		MetricsData metricsData = metrics.stop();
+		metricsData.setBytesNumber(getCorpusSize());
+		metricsData.setWordsNumber(wordsMap.getWordsNumber());
+
+		ExecutionData execData = new ExecutionData(executionID, executionType, workingFilesNumber, workingFilesSize, executionTime, mostUsedWords, lessUsedWords);
+		execData.setCorpusType(corpusType);
+		execData.setThreadsNumber(threadsNumber);
+		execData.setMetricsData(metricsData);
+		executionDataList.add(execData);
+
+		return execData;
+
+	}
 
-	// Private Methods
 	/**
 	 * Prints the attribute values of a given ExecutionData object.
 	 * @param execData the ExecutionData object to print.
@@ -362,12 +1937,77 @@ public class WordsCounterService {
 
 		LogUtils.info("  Execution ID:     " + execData.getId());
 		LogUtils.info("  Execution type:   " + execData.getExecutionType().name());
+		LogUtils.info("  Working texts:    " + execData.getCorpusType().name());
 		LogUtils.info("  Number of files:  " + execData.getWorkingFilesNumber());
 		LogUtils.info("  Size of files:    " + execData.getWorkingFilesSize() + "kb");
 		LogUtils.info("  Execution time:   " + Utils.formatTime(execData.getExecutionTime()) + " seconds");
 		LogUtils.info("  Most used words:  " + execData.getMostUsedWords().toString());
 		LogUtils.info("  Less used words:  " + execData.getLessUsedWords().toString());
 
+		PipelineData pipelineData = execData.getPipelineData();
+		if (pipelineData != null) {
+			LogUtils.info("  Pipeline threads: " + pipelineData.getReadersNumber() + " readers, " + pipelineData.getParsersNumber() + " parsers");
+			LogUtils.info("  Queue depth:      " + pipelineData.getMaxQueueDepth() + " max, " + String.format("%.2f", pipelineData.getAverageQueueDepth()) + " average");
+			LogUtils.info("  Readers stall:    " + Utils.formatTime(pipelineData.getReadersStallTime()) + " seconds");
+			LogUtils.info("  Parsers stall:    " + Utils.formatTime(pipelineData.getParsersStallTime()) + " seconds");
+		}
+
+		if (execData.getDistinctWordsError() > 0) {
+			LogUtils.info("  Distinct words:   " + execData.getDistinctWords() + " estimated, standard error "
+					+ String.format("%.2f", execData.getDistinctWordsError() * 100) + "%");
+		}
+
+		ApproximationData approximationData = execData.getApproximationData();
+		if (approximationData != null) {
+			LogUtils.info("  Error of words:   " + approximationData.getMostUsedWordsErrors().toString());
+			LogUtils.info("  Words counted:    " + approximationData.getTotalWords());
+			LogUtils.info("  Summary:          " + approximationData.getSummarySize() + " words, error up to " + approximationData.getSummaryErrorBound());
+			LogUtils.info("  Sketch:           " + approximationData.getSketchDepth() + " x " + approximationData.getSketchWidth() + " counters, error up to "
+					+ approximationData.getSketchErrorBound() + " with " + String.format("%.2f", approximationData.getSketchConfidence() * 100) + "% probability");
+			LogUtils.info("  Memory used:      " + (approximationData.getMemoryUsage() / 1024) + "kb");
+		}
+
+		MetricsData metricsData = execData.getMetricsData();
+		if (metricsData != null) {
+
+			StringBuilder phases = new StringBuilder();
+			for (Entry<String, Long> phase : metricsData.getPhaseTimes().entrySet()) {
+				phases.append(phases.length() > 0 ? ", " : "").append(phase.getKey()).append(" ").append(toMillis(phase.getValue())).append("ms");
+			}
+
+			LogUtils.info("  Phases:           " + phases);
+			LogUtils.info("  Throughput:       " + String.format("%.2f", metricsData.getBytesPerSecond() / (1024 * 1024)) + " MB/s, "
+					+ String.format("%.0f", metricsData.getWordsPerSecond()) + " words/s");
+
+			for (ThreadData threadData : metricsData.getThreadsData()) {
+				LogUtils.info(String.format("  %-17s %sms busy, %sms idle, %s allocated", threadData.getName() + ":",
+						toMillis(threadData.getBusyTime()), toMillis(threadData.getIdleTime()), toKilobytes(threadData.getAllocatedBytes())));
+			}
+
+			LogUtils.info("  Memory allocated: " + toKilobytes(metricsData.getAllocatedBytes()));
+			LogUtils.info("  Garbage collect.: " + metricsData.getGcCount() + " collections, " + metricsData.getGcTime() + "ms");
+
+		}
+
+	}
+
+	/**
+	 * Converts a time in nanoseconds to milliseconds, to print it, or "?" if it is not
+	 * known.
+	 */
+	private static String toMillis(long nanoseconds) {
+
+		return nanoseconds >= 0 ? String.valueOf(nanoseconds / 1_000_000) : "?";
+
+	}
+
+	/**
+	 * Converts a number of bytes to kilobytes, to print it, or "?" if it is not known.
+	 */
+	private static String toKilobytes(long bytes) {
+
+		return bytes >= 0 ? (bytes / 1024) + "kb" : "?";
+
 	}
 
 }
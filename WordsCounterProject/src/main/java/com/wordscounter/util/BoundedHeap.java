@@ -0,0 +1,90 @@
+package com.wordscounter.util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+
+/**
+ * Keeps the first elements, in the order of a comparator, of all the elements offered.
+ *
+ * <p>The elements are kept in a heap whose head is the worst element kept, so an
+ * element that is not better than the head is discarded in constant time, and the others
+ * replace the head in O(log size). Heaps filled by different threads can be merged.
+ *
+ * <p>A heap is not thread safe.
+ *
+ * @author Arekku
+ *
+ * @param <T> the type of the elements.
+ */
+public class BoundedHeap<T> {
+
+	// Attributes
+	private PriorityQueue<T> heap;
+	private int maxSize;
+	private Comparator<? super T> comparator;
+
+
+	// Constructors
+	/**
+	 * Creates an empty BoundedHeap.
+	 *
+	 * @param maxSize the maximum number of elements to keep.
+	 * @param comparator the order of the elements. The first elements are kept.
+	 */
+	public BoundedHeap(int maxSize, Comparator<? super T> comparator) {
+
+		this.heap = new PriorityQueue<T>(Math.max(1, maxSize + 1), comparator.reversed());
+		this.maxSize = maxSize;
+		this.comparator = comparator;
+
+	}
+
+
+	// Public Methods
+	/**
+	 * Offers an element to the heap. It is kept if it is one of the first elements.
+	 *
+	 * @param element the element to offer.
+	 */
+	public void offer(T element) {
+
+		if (heap.size() < maxSize) {
+			heap.add(element);
+		} else if (maxSize > 0 && comparator.compare(element, heap.peek()) < 0) {
+			heap.poll();
+			heap.add(element);
+		}
+
+	}
+
+	/**
+	 * Offers all the elements of another heap to this one.
+	 *
+	 * @param other the heap to merge.
+	 */
+	public void addAll(BoundedHeap<T> other) {
+
+		for (T element : other.heap) {
+			offer(element);
+		}
+
+	}
+
+	/**
+	 * Gets the elements kept.
+	 *
+	 * @return the elements kept, sorted in the order of the comparator.
+	 */
+	public List<T> toSortedList() {
+
+		List<T> list = new ArrayList<T>(heap);
+		list.sort(comparator);
+
+		return list;
+
+	}
+
+}
@@ -0,0 +1,300 @@
+package com.wordscounter.util;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.ObjLongConsumer;
+
+
+/**
+ * Splits texts in content-defined chunks and keeps every distinct chunk once, with the
+ * number of times it occurs.
+ *
+ * <p>The chunk boundaries are found with a gear rolling hash over the last 64 bytes, so
+ * they depend only on the content around them: the same text gets the same chunks
+ * wherever it is, even if the text before it is different. The high bits of the hash are
+ * checked, because the low ones only depend on the last few bytes. A chunk only ends
+ * right after a whitespace byte, the first one after a boundary is found, so no word is
+ * ever split between two chunks, and the words of a text are the words of its chunks.
+ * Chunks are at least 512 bytes long, 2 KB on average, and they end at the first
+ * whitespace after 64 KB if no boundary is found before.
+ *
+ * <p>Every chunk is identified by a 64 bit fingerprint and its length, and its bytes are
+ * compared with the distinct chunk found, so two different chunks are never merged. The
+ * distinct chunks are slices of the given buffers, with no copy, so the buffers must not
+ * change while the deduplicator is used.
+ *
+ * <p>A deduplicator is not thread safe. Many threads can split their own texts into
+ * their own deduplicators, and merge them at the end.
+ *
+ * @author Arekku
+ *
+ */
+public class ChunkDeduplicator {
+
+	// Constants
+	private static final int MIN_CHUNK_SIZE = 512;
+	private static final int MAX_CHUNK_SIZE = 64 * 1024;
+	private static final long BOUNDARY_MASK = ((1L << 11) - 1) << 53;
+	private static final int WINDOW_SIZE = 64;
+
+	private static final long[] GEAR = new long[256];
+
+	static {
+
+		SplittableRandom random = new SplittableRandom(0x5DEECE66DL);
+		for (int i = 0; i < GEAR.length; i++) {
+			GEAR[i] = random.nextLong();
+		}
+
+	}
+
+
+	// Attributes
+	private Map<Long, Chunk> chunks;
+	private List<Chunk> distinctChunks;
+
+	private long chunksNumber;
+	private long bytesNumber;
+	private long distinctBytesNumber;
+
+
+	// Constructors
+	/**
+	 * Creates an empty ChunkDeduplicator.
+	 */
+	public ChunkDeduplicator() {
+
+		this.chunks = new HashMap<Long, Chunk>();
+		this.distinctChunks = new ArrayList<Chunk>();
+
+	}
+
+
+	// Getters
+	/**
+	 * Getter
+	 *
+	 * @return the number of chunks found, including the repeated ones.
+	 */
+	public long getChunksNumber() {
+		return chunksNumber;
+	}
+	/**
+	 * Getter
+	 *
+	 * @return the number of distinct chunks found.
+	 */
+	public int getDistinctChunksNumber() {
+		return distinctChunks.size();
+	}
+	/**
+	 * Getter
+	 *
+	 * @return the number of bytes of all the chunks found.
+	 */
+	public long getBytesNumber() {
+		return bytesNumber;
+	}
+	/**
+	 * Getter
+	 *
+	 * @return the number of bytes of the distinct chunks found.
+	 */
+	public long getDistinctBytesNumber() {
+		return distinctBytesNumber;
+	}
+
+
+	// Public Methods
+	/**
+	 * Splits the bytes of a buffer, from its position to its limit, in chunks and adds
+	 * them. The buffer must end at a word boundary.
+	 *
+	 * @param bytes the text to split.
+	 */
+	public void add(ByteBuffer bytes) {
+
+		int limit = bytes.limit();
+		int start = bytes.position();
+
+		while (start < limit) {
+
+			int end = findChunkEnd(bytes, start);
+
+			ByteBuffer chunk = bytes.duplicate();
+			chunk.limit(end);
+			chunk.position(start);
+
+			add(chunk.slice(), fingerprint(bytes, start, end), 1);
+
+			start = end;
+
+		}
+
+	}
+
+	/**
+	 * Adds the distinct chunks of another deduplicator to this one, with the number of
+	 * times they occur.
+	 *
+	 * @param other the deduplicator to add.
+	 */
+	public void addAll(ChunkDeduplicator other) {
+
+		for (Chunk chunk : other.distinctChunks) {
+			add(chunk.bytes, chunk.fingerprint, chunk.occurrences);
+		}
+
+	}
+
+	/**
+	 * Calls the given action for every distinct chunk and the number of times it occurs.
+	 *
+	 * @param action the action to call.
+	 */
+	public void forEach(ObjLongConsumer<ByteBuffer> action) {
+
+		for (Chunk chunk : distinctChunks) {
+			action.accept(chunk.bytes.duplicate(), chunk.occurrences);
+		}
+
+	}
+
+	/**
+	 * Splits the distinct chunks in parts with about the same number of bytes, so they
+	 * can be counted in parallel.
+	 *
+	 * @param parts the number of parts to split the chunks in.
+	 * @return the parts, as deduplicators that share the chunks of this one.
+	 */
+	public List<ChunkDeduplicator> split(int parts) {
+
+		List<ChunkDeduplicator> deduplicators = new ArrayList<ChunkDeduplicator>();
+		long partSize = distinctBytesNumber / Math.max(1, parts) + 1;
+
+		ChunkDeduplicator part = new ChunkDeduplicator();
+		for (Chunk chunk : distinctChunks) {
+			if (part.distinctBytesNumber >= partSize) {
+				deduplicators.add(part);
+				part = new ChunkDeduplicator();
+			}
+			part.distinctChunks.add(chunk);
+			part.distinctBytesNumber += chunk.bytes.remaining();
+		}
+		deduplicators.add(part);
+
+		return deduplicators;
+
+	}
+
+
+	// Private Methods
+	/**
+	 * Adds a chunk, or the number of times it occurs if an equal chunk was already
+	 * found.
+	 */
+	private void add(ByteBuffer bytes, long fingerprint, long occurrences) {
+
+		int length = bytes.remaining();
+
+		chunksNumber += occurrences;
+		bytesNumber += length * occurrences;
+
+		Chunk chunk = chunks.get(fingerprint);
+		while (chunk != null) {
+			if (chunk.bytes.remaining() == length && chunk.bytes.mismatch(bytes) < 0) {
+				chunk.occurrences += occurrences;
+				return;
+			}
+			chunk = chunk.next;
+		}
+
+		Chunk newChunk = new Chunk(bytes, fingerprint, occurrences);
+		newChunk.next = chunks.put(fingerprint, newChunk);
+		distinctChunks.add(newChunk);
+
+		distinctBytesNumber += length;
+
+	}
+
+	/**
+	 * Finds the end of the chunk that starts at an index: right after the first
+	 * whitespace that follows a byte where the rolling hash of the last bytes has its
+	 * high bits at 0, once the chunk is long enough.
+	 */
+	private static int findChunkEnd(ByteBuffer bytes, int start) {
+
+		int limit = bytes.limit();
+		if (limit - start <= MIN_CHUNK_SIZE) {
+			return limit;
+		}
+
+		int maxEnd = (int) Math.min(limit, (long) start + MAX_CHUNK_SIZE);
+		long hash = 0;
+
+		// Only the last 64 bytes are left in the hash, so the first ones can be skipped
+		int i = start + MIN_CHUNK_SIZE - WINDOW_SIZE;
+
+		for (; i < start + MIN_CHUNK_SIZE; i++) {
+			hash = (hash << 1) + GEAR[bytes.get(i) & 0xFF];
+		}
+
+		for (; i < maxEnd; i++) {
+			hash = (hash << 1) + GEAR[bytes.get(i) & 0xFF];
+			if ((hash & BOUNDARY_MASK) == 0) {
+				return FileUtils.findWordBoundary(bytes, i + 1);
+			}
+		}
+
+		return i < limit ? FileUtils.findWordBoundary(bytes, i) : limit;
+
+	}
+
+	/**
+	 * Computes the fingerprint of a range of bytes, 8 bytes at a time.
+	 */
+	private static long fingerprint(ByteBuffer bytes, int start, int end) {
+
+		long hash = end - start;
+		int i = start;
+
+		for (; i + 8 <= end; i += 8) {
+			hash = Long.rotateLeft((hash ^ bytes.getLong(i)) * 0x9E3779B97F4A7C15L, 27);
+		}
+		for (; i < end; i++) {
+			hash = (hash ^ bytes.get(i)) * 0xBF58476D1CE4E5B9L;
+		}
+
+		hash ^= hash >>> 31;
+		return hash * 0x94D049BB133111EBL;
+
+	}
+
+
+	// Private Classes
+	/**
+	 * A distinct chunk, the number of times it occurs and the next chunk with the same
+	 * fingerprint, if any.
+	 */
+	private static class Chunk {
+
+		private ByteBuffer bytes;
+		private long fingerprint;
+		private long occurrences;
+		private Chunk next;
+
+		public Chunk(ByteBuffer bytes, long fingerprint, long occurrences) {
+
+			this.bytes = bytes;
+			this.fingerprint = fingerprint;
+			this.occurrences = occurrences;
+
+		}
+
+	}
+
+}
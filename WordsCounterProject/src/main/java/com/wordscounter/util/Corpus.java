@@ -0,0 +1,86 @@
+package com.wordscounter.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+
+/**
+ * Ordered set of texts whose words are counted, stored in files or in memory.
+ *
+ * <p>Every text is given as a list of consecutive windows of UTF-8 bytes, with no copy.
+ * Every window but the last one of a text ends right after a whitespace byte, so no word
+ * is split between two windows and every window can be parsed on its own. The windows
+ * are read-only, and every call gets new views of them, so many threads can read the
+ * same text at the same time.
+ *
+ * @author Arekku
+ *
+ */
+public interface Corpus {
+
+	/**
+	 * Gets the number of texts.
+	 *
+	 * @return the number of texts.
+	 */
+	int size();
+
+	/**
+	 * Gets the name of a text, unique in the corpus, like the path of a file.
+	 *
+	 * @param index the index of the text, starting at 0.
+	 * @return the name of the text.
+	 */
+	String getName(int index);
+
+	/**
+	 * Gets the number of bytes of a text.
+	 *
+	 * @param index the index of the text, starting at 0.
+	 * @return the number of bytes of the text.
+	 * @throws IOException if the text can't be described.
+	 */
+	long getSize(int index) throws IOException;
+
+	/**
+	 * Gets the last time a text was modified. A text that changes gets a later time.
+	 *
+	 * @param index the index of the text, starting at 0.
+	 * @return the last modified time of the text.
+	 * @throws IOException if the text can't be described.
+	 */
+	FileTime getLastModifiedTime(int index) throws IOException;
+
+	/**
+	 * Gets the bytes of a text, in a list of windows that can be parsed on their own.
+	 *
+	 * @param index the index of the text, starting at 0.
+	 * @return the list of windows that cover the whole text.
+	 * @throws IOException if the text can't be read.
+	 */
+	List<? extends ByteBuffer> map(int index) throws IOException;
+
+	/**
+	 * Gets all the bytes of a text in a single buffer, with blocking reads if the text is
+	 * not in memory. A virtual thread that reads it pins its carrier thread while it
+	 * waits, but the scheduler adds a carrier for a while to make up for it, which it
+	 * can't do for the page faults of a mapped text.
+	 *
+	 * @param index the index of the text, starting at 0.
+	 * @return a buffer with the bytes of the text, from position 0 to its limit.
+	 * @throws IOException if the text can't be read, or if it is too big for a single
+	 *         buffer.
+	 */
+	ByteBuffer read(int index) throws IOException;
+
+	/**
+	 * Releases the memory held by the texts, if any. The corpus can't be used
+	 * afterwards. This implementation does nothing.
+	 */
+	default void release() {
+
+	}
+
+}
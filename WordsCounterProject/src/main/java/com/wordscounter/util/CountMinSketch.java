@@ -0,0 +1,174 @@
+package com.wordscounter.util;
+
+
+/**
+ * Count-Min Sketch: approximate counts of any number of words in a fixed amount of
+ * memory.
+ *
+ * <p>The sketch is a matrix of counters with a row for every hash function. Adding a
+ * word increments one counter per row, and the estimate of a word is the minimum of its
+ * counters. Collisions can only add to a counter, so the estimate is never less than
+ * the real count, and it exceeds it by more than <i>e / width * totalCount</i> with a
+ * probability of <i>e^-depth</i> at most.
+ *
+ * <p>The functions of the rows are derived from a 64 bit hash of the UTF-8 bytes of the
+ * word, mixed again for every row, so two words that collide in a row are not more likely
+ * to collide in the others. Sketches with the same size can be merged by adding their
+ * counters. A sketch is not thread safe.
+ *
+ * @author Arekku
+ *
+ */
+public class CountMinSketch {
+
+	// Attributes
+	private long[] counters;
+	private int width;
+	private int depth;
+	private long totalCount;
+
+
+	// Constructors
+	/**
+	 * Creates an empty CountMinSketch.
+	 *
+	 * @param width the number of counters per row. It is rounded up to a power of two.
+	 * @param depth the number of rows.
+	 */
+	public CountMinSketch(int width, int depth) {
+
+		this.width = Integer.highestOneBit(Math.max(2, width) - 1) << 1;
+		this.depth = Math.max(1, depth);
+		this.counters = new long[this.width * this.depth];
+
+	}
+
+
+	// Getters
+	/**
+	 * Getter
+	 *
+	 * @return the number of counters per row.
+	 */
+	public int getWidth() {
+		return width;
+	}
+	/**
+	 * Getter
+	 *
+	 * @return the number of rows.
+	 */
+	public int getDepth() {
+		return depth;
+	}
+	/**
+	 * Getter
+	 *
+	 * @return the number of occurrences added to the sketch.
+	 */
+	public long getTotalCount() {
+		return totalCount;
+	}
+	/**
+	 * Getter
+	 *
+	 * @return the number of bytes taken by the counters.
+	 */
+	public long getMemoryUsage() {
+		return (long) counters.length * 8;
+	}
+
+
+	// Public Methods
+	/**
+	 * Adds a number of occurrences of a word.
+	 *
+	 * @param hash the 64 bit hash of the UTF-8 bytes of the word.
+	 * @param count the number of occurrences to add.
+	 */
+	public void add(long hash, long count) {
+
+		for (int row = 0; row < depth; row++) {
+			counters[getIndex(row, hash)] += count;
+		}
+
+		totalCount += count;
+
+	}
+
+	/**
+	 * Estimates the count of a word.
+	 *
+	 * @param hash the 64 bit hash of the UTF-8 bytes of the word.
+	 * @return the estimated count, never less than the real one.
+	 */
+	public long estimate(long hash) {
+
+		long estimate = Long.MAX_VALUE;
+
+		for (int row = 0; row < depth; row++) {
+			estimate = Math.min(estimate, counters[getIndex(row, hash)]);
+		}
+
+		return estimate;
+
+	}
+
+	/**
+	 * Adds the counters of another sketch of the same size to this one.
+	 *
+	 * @param other the sketch to add.
+	 */
+	public void addAll(CountMinSketch other) {
+
+		if (other.width != width || other.depth != depth) {
+			throw new IllegalArgumentException("Sketches of different sizes can't be merged.");
+		}
+
+		for (int i = 0; i < counters.length; i++) {
+			counters[i] += other.counters[i];
+		}
+
+		totalCount += other.totalCount;
+
+	}
+
+	/**
+	 * Gets the maximum amount an estimate exceeds the real count, with the probability
+	 * given by {@link #getConfidence()}.
+	 *
+	 * @return the error bound of the estimates.
+	 */
+	public long getErrorBound() {
+
+		return (long) Math.ceil(Math.E / width * totalCount);
+
+	}
+
+	/**
+	 * Gets the probability that an estimate doesn't exceed the real count by more than
+	 * {@link #getErrorBound()}.
+	 *
+	 * @return the confidence of the error bound, between 0 and 1.
+	 */
+	public double getConfidence() {
+
+		return 1 - Math.exp(-depth);
+
+	}
+
+
+	// Private Methods
+	/**
+	 * Gets the index of the counter of a word in a row, with a different mix of the
+	 * hash for every row.
+	 */
+	private int getIndex(int row, long hash) {
+
+		long h = WordKeys.mix64(hash + (row + 1) * 0x9E3779B97F4A7C15L);
+
+		return row * width + (int) (h & (width - 1));
+
+	}
+
+}
@@ -0,0 +1,281 @@
+package com.wordscounter.util;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.function.ObjLongConsumer;
+import java.util.stream.IntStream;
+
+import com.wordscounter.model.Frequency;
+import com.wordscounter.model.FrequencyMap;
+import com.wordscounter.model.OrderEnum;
+
+
+/**
+ * Counts of words encoded with the IDs of a <i>WordDictionary</i>.
+ *
+ * <p>Counting a word of the dictionary is a lookup of its ID and an increment of
+ * <i>counts[id]</i>. Words that are not in the dictionary are counted apart, in a
+ * <i>WordTable</i>, so the dictionary is never modified while the words are counted and
+ * many threads can share it. Two counts of the same dictionary are merged by adding their
+ * arrays, element by element, which the JIT compiler turns into vector instructions.
+ *
+ * <p>Once all the counts are merged, {@link #extend()} adds the unseen words to the
+ * dictionary, so they are known in the next runs.
+ *
+ * <p>The counts are not thread safe. Every thread must use its own instance.
+ *
+ * @author Arekku
+ *
+ */
+public class DictionaryCounts implements WordCountStore {
+
+	// Attributes
+	private WordDictionary dictionary;
+	private long[] counts;
+	private WordTable unseenWords;
+
+
+	// Constructors
+	/**
+	 * Creates empty counts for the words of a dictionary.
+	 *
+	 * @param dictionary the dictionary that gives an ID to every word.
+	 */
+	public DictionaryCounts(WordDictionary dictionary) {
+
+		this.dictionary = dictionary;
+		this.counts = new long[dictionary.size()];
+		this.unseenWords = new WordTable();
+
+	}
+
+
+	// Getters
+	/**
+	 * Getter
+	 *
+	 * @return the dictionary that gives an ID to every word.
+	 */
+	public WordDictionary getDictionary() {
+		return dictionary;
+	}
+	/**
+	 * Getter
+	 *
+	 * @return the count of every word, indexed by ID.
+	 */
+	public long[] getCounts() {
+		return counts;
+	}
+	/**
+	 * Getter
+	 *
+	 * @return the counts of the words that are not in the dictionary.
+	 */
+	public WordTable getUnseenWords() {
+		return unseenWords;
+	}
+
+
+	// Public Methods
+	/**
+	 * Gets the number of distinct words counted, in the dictionary or not.
+	 *
+	 * @return the number of distinct words counted.
+	 */
+	public int size() {
+
+		int size = unseenWords.size();
+		for (long count : counts) {
+			if (count > 0) {
+				size++;
+			}
+		}
+
+		return size;
+
+	}
+
+	/**
+	 * Adds a number of occurrences of the word stored in a range of bytes.
+	 *
+	 * @param bytes the buffer that contains the UTF-8 bytes of the word.
+	 * @param start the index of the first byte of the word.
+	 * @param end the index after the last byte of the word.
+	 * @param hash the hash of the word.
+	 * @param count the number of occurrences to add.
+	 */
+	public void add(ByteBuffer bytes, int start, int end, int hash, long count) {
+
+		int id = dictionary.getId(bytes, start, end, hash);
+
+		if (id >= 0 && id < counts.length) {
+			counts[id] += count;
+		} else {
+			unseenWords.add(bytes, start, end, hash, count);
+		}
+
+	}
+
+	/**
+	 * Adds a number of occurrences of the ASCII word stored in a range of characters.
+	 *
+	 * @param text the text that contains the word. All its characters must be ASCII.
+	 * @param start the index of the first character of the word.
+	 * @param end the index after the last character of the word.
+	 * @param hash the hash of the word.
+	 * @param count the number of occurrences to add.
+	 */
+	public void addAscii(CharSequence text, int start, int end, int hash, long count) {
+
+		int id = dictionary.getIdAscii(text, start, end, hash);
+
+		if (id >= 0 && id < counts.length) {
+			counts[id] += count;
+		} else {
+			unseenWords.addAscii(text, start, end, hash, count);
+		}
+
+	}
+
+	/**
+	 * Adds a number of occurrences of a word.
+	 *
+	 * @param word the word.
+	 * @param count the number of occurrences to add.
+	 */
+	public void add(String word, long count) {
+
+		int id = dictionary.getId(word);
+
+		if (id >= 0 && id < counts.length) {
+			counts[id] += count;
+		} else {
+			unseenWords.add(word, count);
+		}
+
+	}
+
+	/**
+	 * Calls the given action for every word counted and its count. A <i>String</i> is
+	 * created for every word.
+	 *
+	 * @param action the action to call.
+	 */
+	public void forEach(ObjLongConsumer<String> action) {
+
+		for (int id = 0; id < counts.length; id++) {
+			if (counts[id] > 0) {
+				action.accept(dictionary.getWord(id), counts[id]);
+			}
+		}
+
+		unseenWords.forEach(action);
+
+	}
+
+	/**
+	 * Gets the total number of occurrences of all the words counted, adding up the array
+	 * of counts.
+	 *
+	 * @return the number of occurrences.
+	 */
+	public long getWordsNumber() {
+
+		long wordsNumber = 0;
+		for (long count : counts) {
+			wordsNumber += count;
+		}
+
+		return wordsNumber + unseenWords.getWordsNumber();
+
+	}
+
+	/**
+	 * Gets the first words counted in the given order.
+	 *
+	 * <p>The IDs are selected over the array of counts, in parallel, with heaps bounded
+	 * to the given size, and only the entries of the selected words are created. Words
+	 * with the same count are compared by their bytes, in <i>String</i> order.
+	 *
+	 * @param order DESC to get the most used words, or ASC to get the less used ones.
+	 * @param size the maximum number of entries to get.
+	 * @return the first entries, sorted in the given order.
+	 */
+	public List<Entry<String, Frequency>> getTopList(OrderEnum order, final int size) {
+
+		final long[] counts = this.counts;
+
+		Comparator<Integer> byCount = (id1, id2) -> Long.compare(counts[id1], counts[id2]);
+		if (order == OrderEnum.DESC) {
+			byCount = byCount.reversed();
+		}
+		final Comparator<Integer> comparator = byCount.thenComparing((id1, id2) -> dictionary.compareWords(id1, id2));
+
+		BoundedHeap<Integer> ids = IntStream.range(0, counts.length).parallel().filter(id -> counts[id] > 0).collect(
+				() -> new BoundedHeap<Integer>(size, comparator),
+				(heap, id) -> heap.offer(id),
+				(left, right) -> left.addAll(right));
+
+		BoundedHeap<Entry<String, Frequency>> heap = new BoundedHeap<Entry<String, Frequency>>(size, FrequencyMap.getComparator(order));
+		for (int id : ids.toSortedList()) {
+			heap.offer(new SimpleImmutableEntry<String, Frequency>(dictionary.getWord(id), new Frequency(counts[id])));
+		}
+		unseenWords.forEach((word, count) -> heap.offer(new SimpleImmutableEntry<String, Frequency>(word, new Frequency(count))));
+
+		return heap.toSortedList();
+
+	}
+
+	/**
+	 * Adds the counts of another instance of the same dictionary to this one.
+	 *
+	 * @param other the counts to add.
+	 */
+	public void addAll(DictionaryCounts other) {
+
+		long[] otherCounts = other.counts;
+
+		if (otherCounts.length > counts.length) {
+			counts = Arrays.copyOf(counts, otherCounts.length);
+		}
+
+		for (int id = 0; id < otherCounts.length; id++) {
+			counts[id] += otherCounts[id];
+		}
+
+		unseenWords.addAll(other.unseenWords);
+
+	}
+
+	/**
+	 * Adds the unseen words to the dictionary, and moves their counts to the array.
+	 *
+	 * <p>It modifies the dictionary, so no other thread can use it at the same time.
+	 *
+	 * @return the number of words added to the dictionary.
+	 */
+	public int extend() {
+
+		int previousSize = dictionary.size();
+
+		unseenWords.forEach((word, count) -> {
+			int id = dictionary.add(word);
+			if (id >= counts.length) {
+				counts = Arrays.copyOf(counts, Math.max(id + 1, counts.length * 2));
+			}
+			counts[id] += count;
+		});
+
+		counts = Arrays.copyOf(counts, dictionary.size());
+		unseenWords = new WordTable();
+
+		return dictionary.size() - previousSize;
+
+	}
+
+}
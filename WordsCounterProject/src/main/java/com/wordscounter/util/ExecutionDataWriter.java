@@ -0,0 +1,394 @@
+package com.wordscounter.util;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.wordscounter.model.ExecutionData;
+import com.wordscounter.model.ExecutionTypeEnum;
+import com.wordscounter.model.Frequency;
+import com.wordscounter.model.MetricsData;
+import com.wordscounter.model.PipelineData;
+import com.wordscounter.model.ThreadData;
+
+
+/**
+ * Writes a list of executions to a file that other programs can read, as JSON or CSV.
+ *
+ * <p>Besides every execution, it writes a summary of the execution times of every
+ * execution type: the number of executions, the mean, the minimum, the maximum and the
+ * percentiles 50, 90, 95 and 99, in milliseconds. The percentiles are computed with the
+ * nearest-rank method, so every percentile is one of the times measured.
+ *
+ * <p>The JSON file holds the parameters of the run, the executions and the summary. The
+ * CSV file holds a row for every execution, and the summary is written to another CSV file
+ * with the same name and the suffix <i>_summary</i>. The metrics of every execution are
+ * written with it: the phases and the threads in the JSON file, and the phases and the
+ * totals in the CSV file. Their times are in nanoseconds, but the time of the garbage
+ * collections, in milliseconds.
+ *
+ * @author Arekku
+ *
+ */
+public class ExecutionDataWriter {
+
+	// Constants
+	private static final int[] PERCENTILES = { 50, 90, 95, 99 };
+	private static final String FILE_ENCODING = "UTF-8";
+	private static final String SUMMARY_SUFFIX = "_summary";
+	private static final String CSV_EXTENSION = ".csv";
+
+
+	// Public Methods
+	/**
+	 * Gets the execution times of every execution type, sorted from the shortest.
+	 *
+	 * @param executionDataList the list of executions.
+	 * @return the sorted execution times, in milliseconds, of every execution type with
+	 *         one execution at least, in the order of the types.
+	 */
+	public static Map<ExecutionTypeEnum, long[]> getExecutionTimes(List<ExecutionData> executionDataList) {
+
+		Map<ExecutionTypeEnum, List<Long>> times = new EnumMap<ExecutionTypeEnum, List<Long>>(ExecutionTypeEnum.class);
+		for (ExecutionData execData : executionDataList) {
+			times.computeIfAbsent(execData.getExecutionType(), type -> new ArrayList<Long>()).add(execData.getExecutionTime());
+		}
+
+		Map<ExecutionTypeEnum, long[]> sortedTimes = new EnumMap<ExecutionTypeEnum, long[]>(ExecutionTypeEnum.class);
+		for (Entry<ExecutionTypeEnum, List<Long>> entry : times.entrySet()) {
+			long[] values = entry.getValue().stream().mapToLong(Long::longValue).toArray();
+			Arrays.sort(values);
+			sortedTimes.put(entry.getKey(), values);
+		}
+
+		return sortedTimes;
+
+	}
+
+	/**
+	 * Gets a percentile of a list of values, with the nearest-rank method.
+	 *
+	 * @param sortedValues the values, sorted from the smallest. It can't be empty.
+	 * @param percentile the percentile to get, from 0 to 100.
+	 * @return the smallest value that is bigger than or equal to the given percent of the
+	 *         values.
+	 */
+	public static long getPercentile(long[] sortedValues, double percentile) {
+
+		int rank = (int) Math.ceil(percentile / 100 * sortedValues.length);
+
+		return sortedValues[Math.min(Math.max(rank, 1), sortedValues.length) - 1];
+
+	}
+
+	/**
+	 * Gets the mean of a list of values.
+	 *
+	 * @param values the values. It can't be empty.
+	 * @return the mean of the values.
+	 */
+	public static double getMean(long[] values) {
+
+		double sum = 0;
+		for (long value : values) {
+			sum += value;
+		}
+
+		return sum / values.length;
+
+	}
+
+	/**
+	 * Writes the parameters of a run, its executions and their summary to a JSON file.
+	 *
+	 * @param path the path of the file to write.
+	 * @param parameters the parameters of the run, by name. Numbers and booleans are
+	 *        written as such, and any other value as a string.
+	 * @param executionDataList the list of executions.
+	 * @throws IOException if the file can't be written.
+	 */
+	public static void writeJson(String path, Map<String, Object> parameters, List<ExecutionData> executionDataList) throws IOException {
+
+		StringBuilder json = new StringBuilder();
+
+		json.append("{\n  \"parameters\": {");
+		String separator = "\n";
+		for (Entry<String, Object> parameter : parameters.entrySet()) {
+			json.append(separator).append("    ").append(toJson(parameter.getKey())).append(": ").append(toJson(parameter.getValue()));
+			separator = ",\n";
+		}
+		json.append("\n  },\n  \"executions\": [");
+
+		separator = "\n";
+		for (ExecutionData execData : executionDataList) {
+
+			json.append(separator).append("    {");
+			json.append("\"id\": ").append(execData.getId());
+			json.append(", \"executionType\": ").append(toJson(execData.getExecutionType().name()));
+			json.append(", \"corpusType\": ").append(toJson(execData.getCorpusType().name()));
+			json.append(", \"workingFilesNumber\": ").append(execData.getWorkingFilesNumber());
+			json.append(", \"workingFilesSize\": ").append(execData.getWorkingFilesSize());
+			json.append(", \"threadsNumber\": ").append(execData.getThreadsNumber());
+			json.append(", \"executionTime\": ").append(execData.getExecutionTime());
+
+			if (execData.getDistinctWordsError() > 0) {
+				json.append(", \"distinctWords\": ").append(execData.getDistinctWords());
+				json.append(", \"distinctWordsError\": ").append(toJson(execData.getDistinctWordsError()));
+			}
+
+			PipelineData pipelineData = execData.getPipelineData();
+			if (pipelineData != null) {
+				json.append(", \"pipeline\": {\"readersNumber\": ").append(pipelineData.getReadersNumber());
+				json.append(", \"parsersNumber\": ").append(pipelineData.getParsersNumber());
+				json.append(", \"maxQueueDepth\": ").append(pipelineData.getMaxQueueDepth());
+				json.append(", \"averageQueueDepth\": ").append(toJson(pipelineData.getAverageQueueDepth()));
+				json.append(", \"readersStallTime\": ").append(pipelineData.getReadersStallTime());
+				json.append(", \"parsersStallTime\": ").append(pipelineData.getParsersStallTime()).append("}");
+			}
+
+			MetricsData metricsData = execData.getMetricsData();
+			if (metricsData != null) {
+				json.append(", \"metrics\": ").append(toJson(metricsData));
+			}
+
+			json.append(", \"mostUsedWords\": ").append(toJson(execData.getMostUsedWords()));
+			json.append(", \"lessUsedWords\": ").append(toJson(execData.getLessUsedWords()));
+			json.append("}");
+
+			separator = ",\n";
+
+		}
+		json.append("\n  ],\n  \"summary\": [");
+
+		separator = "\n";
+		for (Entry<ExecutionTypeEnum, long[]> entry : getExecutionTimes(executionDataList).entrySet()) {
+
+			long[] times = entry.getValue();
+
+			json.append(separator).append("    {");
+			json.append("\"executionType\": ").append(toJson(entry.getKey().name()));
+			json.append(", \"executions\": ").append(times.length);
+			json.append(", \"mean\": ").append(toJson(getMean(times)));
+			json.append(", \"min\": ").append(times[0]);
+			for (int percentile : PERCENTILES) {
+				json.append(", \"p").append(percentile).append("\": ").append(getPercentile(times, percentile));
+			}
+			json.append(", \"max\": ").append(times[times.length - 1]);
+			json.append("}");
+
+			separator = ",\n";
+
+		}
+		json.append("\n  ]\n}\n");
+
+		FileUtils.write(path, FILE_ENCODING, json.toString());
+
+	}
+
+	/**
+	 * Writes the executions to a CSV file, and their summary to another CSV file with the
+	 * suffix <i>_summary</i>.
+	 *
+	 * @param path the path of the file of executions.
+	 * @param executionDataList the list of executions.
+	 * @throws IOException if a file can't be written.
+	 */
+	public static void writeCsv(String path, List<ExecutionData> executionDataList) throws IOException {
+
+		StringBuilder csv = new StringBuilder("id,executionType,corpusType,workingFilesNumber,workingFilesSize,threadsNumber,executionTime,distinctWords,"
+				+ "elapsedTime,phaseTimes,bytesPerSecond,wordsPerSecond,allocatedBytes,gcCount,gcTime,mostUsedWords,lessUsedWords\n");
+
+		for (ExecutionData execData : executionDataList) {
+
+			csv.append(execData.getId()).append(',')
+					.append(execData.getExecutionType().name()).append(',')
+					.append(execData.getCorpusType().name()).append(',')
+					.append(execData.getWorkingFilesNumber()).append(',')
+					.append(execData.getWorkingFilesSize()).append(',')
+					.append(execData.getThreadsNumber()).append(',')
+					.append(execData.getExecutionTime()).append(',')
+					.append(execData.getDistinctWordsError() > 0 ? String.valueOf(execData.getDistinctWords()) : "").append(',')
+					.append(toCsv(execData.getMetricsData())).append(',')
+					.append(toCsv(execData.getMostUsedWords())).append(',')
+					.append(toCsv(execData.getLessUsedWords())).append('\n');
+
+		}
+
+		FileUtils.write(path, FILE_ENCODING, csv.toString());
+
+		StringBuilder summary = new StringBuilder("executionType,executions,mean,min");
+		for (int percentile : PERCENTILES) {
+			summary.append(",p").append(percentile);
+		}
+		summary.append(",max\n");
+
+		for (Entry<ExecutionTypeEnum, long[]> entry : getExecutionTimes(executionDataList).entrySet()) {
+
+			long[] times = entry.getValue();
+
+			summary.append(entry.getKey().name()).append(',')
+					.append(times.length).append(',')
+					.append(String.format(Locale.ROOT, "%.3f", getMean(times))).append(',')
+					.append(times[0]);
+			for (int percentile : PERCENTILES) {
+				summary.append(',').append(getPercentile(times, percentile));
+			}
+			summary.append(',').append(times[times.length - 1]).append('\n');
+
+		}
+
+		FileUtils.write(getSummaryPath(path), FILE_ENCODING, summary.toString());
+
+	}
+
+	/**
+	 * Builds the path of the summary of a CSV file of executions.
+	 *
+	 * @param path the path of the file of executions.
+	 * @return the path of the file of the summary.
+	 */
+	public static String getSummaryPath(String path) {
+
+		if (path.toLowerCase(Locale.ROOT).endsWith(CSV_EXTENSION)) {
+			return path.substring(0, path.length() - CSV_EXTENSION.length()) + SUMMARY_SUFFIX + CSV_EXTENSION;
+		}
+
+		return path + SUMMARY_SUFFIX;
+
+	}
+
+
+	// Private Methods
+	private static String toJson(Object value) {
+
+		if (value instanceof Double) {
+			double number = (Double) value;
+			return Double.isFinite(number) ? String.format(Locale.ROOT, "%.6f", number) : "null";
+		}
+		if (value instanceof Number || value instanceof Boolean) {
+			return String.valueOf(value);
+		}
+		if (value == null) {
+			return "null";
+		}
+
+		String text = value.toString();
+		StringBuilder json = new StringBuilder("\"");
+
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == '"' || c == '\\') {
+				json.append('\\').append(c);
+			} else if (c < ' ') {
+				json.append(String.format("\\u%04x", (int) c));
+			} else {
+				json.append(c);
+			}
+		}
+
+		return json.append('"').toString();
+
+	}
+
+	private static String toJson(MetricsData metricsData) {
+
+		StringBuilder json = new StringBuilder("{");
+
+		json.append("\"elapsedTime\": ").append(metricsData.getElapsedTime());
+		json.append(", \"phases\": {");
+		String separator = "";
+		for (Entry<String, Long> phase : metricsData.getPhaseTimes().entrySet()) {
+			json.append(separator).append(toJson(phase.getKey())).append(": ").append(phase.getValue());
+			separator = ", ";
+		}
+		json.append("}");
+		json.append(", \"bytes\": ").append(metricsData.getBytesNumber());
+		json.append(", \"words\": ").append(metricsData.getWordsNumber());
+		json.append(", \"bytesPerSecond\": ").append(toJson(metricsData.getBytesPerSecond()));
+		json.append(", \"wordsPerSecond\": ").append(toJson(metricsData.getWordsPerSecond()));
+		json.append(", \"allocatedBytes\": ").append(metricsData.getAllocatedBytes());
+		json.append(", \"gcCount\": ").append(metricsData.getGcCount());
+		json.append(", \"gcTime\": ").append(metricsData.getGcTime());
+		json.append(", \"threads\": [");
+		separator = "";
+		for (ThreadData threadData : metricsData.getThreadsData()) {
+			json.append(separator).append("{\"name\": ").append(toJson(threadData.getName()));
+			json.append(", \"busyTime\": ").append(threadData.getBusyTime());
+			json.append(", \"idleTime\": ").append(threadData.getIdleTime());
+			json.append(", \"allocatedBytes\": ").append(threadData.getAllocatedBytes()).append("}");
+			separator = ", ";
+		}
+
+		return json.append("]}").toString();
+
+	}
+
+	private static String toJson(List<Entry<String, Frequency>> words) {
+
+		StringBuilder json = new StringBuilder("[");
+
+		for (Entry<String, Frequency> word : words) {
+			if (json.length() > 1) {
+				json.append(", ");
+			}
+			json.append("{\"word\": ").append(toJson(word.getKey())).append(", \"count\": ").append(word.getValue().getCount()).append("}");
+		}
+
+		return json.append("]").toString();
+
+	}
+
+	/**
+	 * Writes a list of words as a single CSV field, with the words and their counts
+	 * separated by spaces, like <i>word=count other=count</i>.
+	 */
+	private static String toCsv(List<Entry<String, Frequency>> words) {
+
+		StringBuilder csv = new StringBuilder();
+
+		for (Entry<String, Frequency> word : words) {
+			if (csv.length() > 0) {
+				csv.append(' ');
+			}
+			csv.append(word.getKey()).append('=').append(word.getValue().getCount());
+		}
+
+		return "\"" + csv.toString().replace("\"", "\"\"") + "\"";
+
+	}
+
+	/**
+	 * Writes the metrics of an execution as CSV fields: the elapsed time, the phases as a
+	 * single field like <i>phase=time other=time</i>, the throughput, the memory allocated
+	 * and the garbage collections. An execution with no metrics has empty fields.
+	 */
+	private static String toCsv(MetricsData metricsData) {
+
+		if (metricsData == null) {
+			return ",,,,,,";
+		}
+
+		StringBuilder phases = new StringBuilder();
+		for (Entry<String, Long> phase : metricsData.getPhaseTimes().entrySet()) {
+			if (phases.length() > 0) {
+				phases.append(' ');
+			}
+			phases.append(phase.getKey().replace(' ', '_')).append('=').append(phase.getValue());
+		}
+
+		return metricsData.getElapsedTime() + ","
+				+ "\"" + phases + "\","
+				+ String.format(Locale.ROOT, "%.3f", metricsData.getBytesPerSecond()) + ","
+				+ String.format(Locale.ROOT, "%.3f", metricsData.getWordsPerSecond()) + ","
+				+ metricsData.getAllocatedBytes() + ","
+				+ metricsData.getGcCount() + ","
+				+ metricsData.getGcTime();
+
+	}
+
+}
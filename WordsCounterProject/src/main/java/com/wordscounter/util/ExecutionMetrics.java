@@ -0,0 +1,372 @@
+package com.wordscounter.util;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinPool.ForkJoinWorkerThreadFactory;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.ThreadFactory;
+
+import com.sun.management.ThreadMXBean;
+import com.wordscounter.model.MetricsData;
+import com.wordscounter.model.ThreadData;
+
+
+/**
+ * Measures where the time of an execution goes: the time of every phase, the time every
+ * thread is busy or idle, the memory allocated and the garbage collections.
+ *
+ * <p>The phases are measured in the thread that runs the execution, with
+ * <i>System.nanoTime</i>: every call to {@link #endPhase(String)} ends a phase, that
+ * started when the previous one ended. The threads of the pools are created by the
+ * factories of this class, so every one is measured from its creation until it ends or
+ * the execution stops. A thread is busy while it runs on a processor, which is its CPU
+ * time, and idle while it waits: for work, for a lock, or for the disc.
+ *
+ * <p>The bytes allocated by every thread are read from the <i>ThreadMXBean</i> of the
+ * JVM, with <i>getThreadAllocatedBytes</i>. The threads that are not created by the
+ * factories, like the virtual threads, are not measured one by one, but their memory is
+ * included in the total of the execution. The values the JVM can't measure are -1.
+ *
+ * @author Arekku
+ *
+ */
+public class ExecutionMetrics {
+
+	// Constants
+	private static final ThreadMXBean THREADS = getThreadMXBean();
+
+
+	// Attributes
+	private long startTime;
+	private long phaseStartTime;
+	private Map<String, Long> phaseTimes;
+
+	private long startAllocatedBytes;
+	private long startGcCount;
+	private long startGcTime;
+
+	private Queue<ThreadMetrics> threads;
+
+
+	// Constructors
+	/**
+	 * Creates an ExecutionMetrics and starts measuring the current thread and its first
+	 * phase.
+	 */
+	public ExecutionMetrics() {
+
+		threads = new ConcurrentLinkedQueue<ThreadMetrics>();
+		phaseTimes = new LinkedHashMap<String, Long>();
+
+		startAllocatedBytes = getAllocatedBytes();
+		startGcCount = getGcCount();
+		startGcTime = getGcTime();
+
+		threads.add(new ThreadMetrics(Thread.currentThread(), getCurrentThreadCpuTime(), getCurrentThreadAllocatedBytes()));
+
+		startTime = System.nanoTime();
+		phaseStartTime = startTime;
+
+	}
+
+
+	// Public Methods
+	/**
+	 * Ends the current phase, and starts the next one. A phase that ends more than once
+	 * adds up its times.
+	 *
+	 * @param phase the name of the phase that ends.
+	 */
+	public void endPhase(String phase) {
+
+		long time = System.nanoTime();
+		phaseTimes.merge(phase, time - phaseStartTime, Long::sum);
+		phaseStartTime = time;
+
+	}
+
+	/**
+	 * Gets a factory of threads for the pools of the execution, which measures every
+	 * thread it creates.
+	 *
+	 * @return a factory of threads named like the default ones.
+	 */
+	public ThreadFactory newThreadFactory() {
+
+		final ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+
+		return task -> {
+
+			final ThreadMetrics metrics = new ThreadMetrics();
+
+			Thread thread = defaultFactory.newThread(() -> {
+				try {
+					task.run();
+				} finally {
+					metrics.end();
+				}
+			});
+
+			metrics.thread = thread;
+			threads.add(metrics);
+
+			return thread;
+
+		};
+
+	}
+
+	/**
+	 * Gets a factory of threads for the Fork/Join pools of the execution, which measures
+	 * every thread it creates.
+	 *
+	 * @return a factory of Fork/Join threads named like the default ones.
+	 */
+	public ForkJoinWorkerThreadFactory newForkJoinThreadFactory() {
+
+		return pool -> {
+
+			final ThreadMetrics metrics = new ThreadMetrics();
+
+			ForkJoinWorkerThread thread = new ForkJoinWorkerThread(pool) {
+				@Override
+				protected void onTermination(Throwable exception) {
+					metrics.end();
+					super.onTermination(exception);
+				}
+			};
+
+			metrics.thread = thread;
+			threads.add(metrics);
+
+			return thread;
+
+		};
+
+	}
+
+	/**
+	 * Gets a Fork/Join pool whose threads are measured.
+	 *
+	 * @param threadsNumber the parallelism of the pool.
+	 * @param asyncMode true for FIFO scheduling of the tasks never joined, like
+	 *        <i>Executors.newWorkStealingPool</i>, or false for LIFO, like the default.
+	 * @return the pool.
+	 */
+	public ForkJoinPool newForkJoinPool(int threadsNumber, boolean asyncMode) {
+
+		return new ForkJoinPool(threadsNumber, newForkJoinThreadFactory(), null, asyncMode);
+
+	}
+
+	/**
+	 * Stops measuring the execution. The current phase is not ended.
+	 *
+	 * @return the metrics of the execution. The times are in nanoseconds, but the time of
+	 *         the garbage collections, in milliseconds.
+	 */
+	public MetricsData stop() {
+
+		long endTime = System.nanoTime();
+
+		long allocatedBytes = getAllocatedBytes();
+		if (allocatedBytes >= 0 && startAllocatedBytes >= 0) {
+			allocatedBytes -= startAllocatedBytes;
+		} else {
+			allocatedBytes = -1;
+		}
+
+		List<ThreadData> threadsData = new ArrayList<ThreadData>();
+		for (ThreadMetrics metrics : threads) {
+			threadsData.add(metrics.getData(endTime));
+		}
+
+		return new MetricsData(endTime - startTime,
+				new LinkedHashMap<String, Long>(phaseTimes),
+				threadsData,
+				allocatedBytes,
+				getGcCount() - startGcCount,
+				getGcTime() - startGcTime);
+
+	}
+
+	/**
+	 * Gets the bytes allocated in the heap by all the threads since the JVM started.
+	 *
+	 * @return the bytes allocated, or -1 if the JVM can't measure them.
+	 */
+	public static long getAllocatedBytes() {
+
+		if (THREADS == null || !THREADS.isThreadAllocatedMemoryEnabled()) {
+			return -1;
+		}
+
+		return THREADS.getTotalThreadAllocatedBytes();
+
+	}
+
+	/**
+	 * Gets the number of garbage collections since the JVM started.
+	 *
+	 * @return the number of collections of all the collectors.
+	 */
+	public static long getGcCount() {
+
+		long count = 0;
+		for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += Math.max(0, collector.getCollectionCount());
+		}
+
+		return count;
+
+	}
+
+	/**
+	 * Gets the time of the garbage collections since the JVM started.
+	 *
+	 * @return the time of the collections of all the collectors, in milliseconds.
+	 */
+	public static long getGcTime() {
+
+		long time = 0;
+		for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+			time += Math.max(0, collector.getCollectionTime());
+		}
+
+		return time;
+
+	}
+
+
+	// Private Methods
+	/**
+	 * Gets the ThreadMXBean of the JVM, with the measurement of CPU time and allocated
+	 * memory enabled, or null if the JVM doesn't have it.
+	 */
+	private static ThreadMXBean getThreadMXBean() {
+
+		if (!(ManagementFactory.getThreadMXBean() instanceof ThreadMXBean)) {
+			return null;
+		}
+
+		ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+		if (threads.isThreadCpuTimeSupported() && !threads.isThreadCpuTimeEnabled()) {
+			threads.setThreadCpuTimeEnabled(true);
+		}
+		if (threads.isThreadAllocatedMemorySupported() && !threads.isThreadAllocatedMemoryEnabled()) {
+			threads.setThreadAllocatedMemoryEnabled(true);
+		}
+
+		return threads;
+
+	}
+
+	private static long getCurrentThreadCpuTime() {
+
+		return THREADS != null && THREADS.isThreadCpuTimeEnabled() ? THREADS.getCurrentThreadCpuTime() : -1;
+
+	}
+
+	private static long getCurrentThreadAllocatedBytes() {
+
+		return THREADS != null && THREADS.isThreadAllocatedMemoryEnabled() ? THREADS.getCurrentThreadAllocatedBytes() : -1;
+
+	}
+
+
+	// Private Classes
+	/**
+	 * Measures a thread, from its creation, or from the start of the execution if it
+	 * already existed, until it ends or the execution stops.
+	 */
+	private static class ThreadMetrics {
+
+		private volatile Thread thread;
+		private long startTime;
+		private long startCpuTime;
+		private long startAllocatedBytes;
+
+		private volatile boolean ended;
+		private long endTime;
+		private long endCpuTime;
+		private long endAllocatedBytes;
+
+		/**
+		 * Measures a new thread, that has not run yet.
+		 */
+		private ThreadMetrics() {
+
+			this.startTime = System.nanoTime();
+
+		}
+
+		/**
+		 * Measures a thread that already ran.
+		 */
+		private ThreadMetrics(Thread thread, long startCpuTime, long startAllocatedBytes) {
+
+			this();
+			this.thread = thread;
+			this.startCpuTime = startCpuTime;
+			this.startAllocatedBytes = startAllocatedBytes;
+
+		}
+
+		/**
+		 * Saves the final values of the thread. It must be called by the thread itself,
+		 * as it ends.
+		 */
+		private void end() {
+
+			endTime = System.nanoTime();
+			endCpuTime = getCurrentThreadCpuTime();
+			endAllocatedBytes = getCurrentThreadAllocatedBytes();
+			ended = true;
+
+		}
+
+		/**
+		 * Gets the data of the thread: its final values, if it ended, or its current
+		 * values otherwise.
+		 */
+		private ThreadData getData(long stopTime) {
+
+			long time = stopTime;
+			long cpuTime = -1;
+			long allocatedBytes = -1;
+
+			if (!ended && THREADS != null) {
+				long threadId = thread.threadId();
+				cpuTime = thread == Thread.currentThread() ? getCurrentThreadCpuTime() : THREADS.getThreadCpuTime(threadId);
+				allocatedBytes = thread == Thread.currentThread() ? getCurrentThreadAllocatedBytes() : THREADS.getThreadAllocatedBytes(threadId);
+			}
+
+			// The thread may have ended while it was read
+			if (ended) {
+				time = endTime;
+				cpuTime = endCpuTime;
+				allocatedBytes = endAllocatedBytes;
+			}
+
+			long busyTime = cpuTime >= 0 && startCpuTime >= 0 ? cpuTime - startCpuTime : -1;
+			long idleTime = busyTime >= 0 ? Math.max(0, time - startTime - busyTime) : -1;
+
+			return new ThreadData(thread.getName(),
+					busyTime,
+					idleTime,
+					allocatedBytes >= 0 && startAllocatedBytes >= 0 ? allocatedBytes - startAllocatedBytes : -1);
+
+		}
+
+	}
+
+}
@@ -0,0 +1,138 @@
+package com.wordscounter.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+
+
+/**
+ * Corpus of texts stored in files.
+ *
+ * <p>The files are mapped in memory when their bytes are requested, and read with
+ * blocking calls by {@link #read(int)}. Nothing is kept open between calls. Every map or
+ * read is recorded as a {@link FileReadEvent}, and the event of a map is marked as mapped,
+ * as it reads no byte.
+ *
+ * @author Arekku
+ *
+ */
+public class FileCorpus implements Corpus {
+
+	// Attributes
+	private List<String> filePaths;
+
+
+	// Constructors
+	/**
+	 * Creates a FileCorpus with the given files.
+	 *
+	 * @param filePaths the paths of the files, in order.
+	 */
+	public FileCorpus(List<String> filePaths) {
+
+		this.filePaths = filePaths;
+
+	}
+
+
+	// Public Methods
+	/**
+	 * Gets the number of files.
+	 *
+	 * @return the number of files.
+	 */
+	public int size() {
+
+		return filePaths.size();
+
+	}
+
+	/**
+	 * Gets the path of a file.
+	 *
+	 * @param index the index of the file, starting at 0.
+	 * @return the path of the file.
+	 */
+	public String getName(int index) {
+
+		return filePaths.get(index);
+
+	}
+
+	/**
+	 * Gets the size of a file.
+	 *
+	 * @param index the index of the file, starting at 0.
+	 * @return the number of bytes of the file.
+	 * @throws IOException if the size can't be read.
+	 */
+	public long getSize(int index) throws IOException {
+
+		return Files.size(Paths.get(filePaths.get(index)));
+
+	}
+
+	/**
+	 * Gets the last modified time of a file.
+	 *
+	 * @param index the index of the file, starting at 0.
+	 * @return the last modified time of the file.
+	 * @throws IOException if the time can't be read.
+	 */
+	public FileTime getLastModifiedTime(int index) throws IOException {
+
+		return Files.getLastModifiedTime(Paths.get(filePaths.get(index)));
+
+	}
+
+	/**
+	 * Maps a file in memory. See {@link FileUtils#map(String)}.
+	 *
+	 * <p>Its {@link FileReadEvent} only measures the mapping. The bytes are read when they
+	 * are first accessed, or loaded with <i>MappedByteBuffer.load</i>.
+	 *
+	 * @param index the index of the file, starting at 0.
+	 * @return the list of windows that cover the whole file.
+	 * @throws IOException if the file can't be mapped.
+	 */
+	public List<MappedByteBuffer> map(int index) throws IOException {
+
+		FileReadEvent event = new FileReadEvent();
+		event.begin();
+
+		List<MappedByteBuffer> windows = FileUtils.map(filePaths.get(index));
+
+		long bytes = 0;
+		for (MappedByteBuffer window : windows) {
+			bytes += window.remaining();
+		}
+		event.commit(index + 1, filePaths.get(index), bytes, true);
+
+		return windows;
+
+	}
+
+	/**
+	 * Reads all the bytes of a file. See {@link FileUtils#readBytes(String)}.
+	 *
+	 * @param index the index of the file, starting at 0.
+	 * @return a buffer with the content of the file.
+	 * @throws IOException if the file can't be read, or if it is too big.
+	 */
+	public ByteBuffer read(int index) throws IOException {
+
+		FileReadEvent event = new FileReadEvent();
+		event.begin();
+
+		ByteBuffer bytes = FileUtils.readBytes(filePaths.get(index));
+		event.commit(index + 1, filePaths.get(index), bytes.remaining());
+
+		return bytes;
+
+	}
+
+}
@@ -0,0 +1,206 @@
+package com.wordscounter.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.CRC32C;
+
+
+/**
+ * Cache of the words counted in every file of a set, to count them again after some
+ * files change without parsing the files that didn't.
+ *
+ * <p>Every file is described by its size and last modified time and, optionally, by a
+ * CRC32C checksum of its content, which finds the changes that keep the size and the
+ * time. The counts of every file are kept apart, and the total of all the files is
+ * updated with the difference only: when a file changes, its old counts are subtracted
+ * from the total and its new counts are added.
+ *
+ * <p>A file is described before it is read, so if it changes while it is read, it is
+ * found changed the next time. The cache is not thread safe.
+ *
+ * @author Arekku
+ *
+ */
+public class FileCountsCache {
+
+	// Attributes
+	private boolean contentHashed;
+	private Map<String, CachedFile> files;
+	private Map<String, CachedFile> pendingFiles;
+	private WordTable total;
+
+
+	// Constructors
+	/**
+	 * Creates an empty FileCountsCache.
+	 *
+	 * @param contentHashed true to compare the content of the files too, and not only their
+	 *        size and last modified time.
+	 */
+	public FileCountsCache(boolean contentHashed) {
+
+		this.contentHashed = contentHashed;
+		this.files = new HashMap<String, CachedFile>();
+		this.pendingFiles = new HashMap<String, CachedFile>();
+		this.total = new WordTable();
+
+	}
+
+
+	// Getters
+	/**
+	 * Getter
+	 *
+	 * @return true if the content of the files is compared too.
+	 */
+	public boolean isContentHashed() {
+		return contentHashed;
+	}
+	/**
+	 * Getter
+	 *
+	 * @return the counts of all the files of the cache.
+	 */
+	public WordTable getTotal() {
+		return total;
+	}
+
+
+	// Public Methods
+	/**
+	 * Finds the files that must be counted again: the ones that are not in the cache and
+	 * the ones that changed since they were counted. Files of the cache that are not in
+	 * the given corpus are removed, with their counts. The files are identified by their
+	 * names in the corpus, so the texts of a <i>MemoryCorpus</i> can be cached too.
+	 *
+	 * <p>The current description of every file found is kept until its new counts are
+	 * given with {@link #update(String, WordTable)}.
+	 *
+	 * @param corpus the corpus with all the files of the set.
+	 * @return the indexes in the corpus of the files to count again.
+	 * @throws IOException if a file can't be described.
+	 */
+	public List<Integer> getChangedFiles(Corpus corpus) throws IOException {
+
+		Set<String> names = new HashSet<String>();
+		for (int i = 0; i < corpus.size(); i++) {
+			names.add(corpus.getName(i));
+		}
+
+		Iterator<Map.Entry<String, CachedFile>> it = files.entrySet().iterator();
+		while (it.hasNext()) {
+			Map.Entry<String, CachedFile> entry = it.next();
+			if (!names.contains(entry.getKey())) {
+				total.subtractAll(entry.getValue().counts);
+				it.remove();
+			}
+		}
+
+		List<Integer> changedFiles = new ArrayList<Integer>();
+		pendingFiles.clear();
+
+		for (int i = 0; i < corpus.size(); i++) {
+
+			String name = corpus.getName(i);
+			CachedFile current = describe(corpus, i);
+			CachedFile cached = files.get(name);
+
+			if (cached == null || !cached.isSameFile(current)) {
+				changedFiles.add(i);
+				pendingFiles.put(name, current);
+			}
+
+		}
+
+		return changedFiles;
+
+	}
+
+	/**
+	 * Replaces the counts of a file found by {@link #getChangedFiles(Corpus)}, and
+	 * updates the total with the difference.
+	 *
+	 * @param path the name of the file in the corpus.
+	 * @param counts the new counts of the file.
+	 */
+	public void update(String path, WordTable counts) {
+
+		CachedFile current = pendingFiles.remove(path);
+		if (current == null) {
+			throw new IllegalStateException("The file " + path + " wasn't found changed.");
+		}
+
+		CachedFile cached = files.put(path, current);
+		if (cached != null) {
+			total.subtractAll(cached.counts);
+		}
+
+		current.counts = counts;
+		total.addAll(counts);
+
+	}
+
+	/**
+	 * Removes all the files and counts of the cache.
+	 */
+	public void clear() {
+
+		files.clear();
+		pendingFiles.clear();
+		total = new WordTable();
+
+	}
+
+
+	// Private Methods
+	/**
+	 * Describes a file with its size, its last modified time and, if the content is
+	 * compared, its checksum.
+	 */
+	private CachedFile describe(Corpus corpus, int index) throws IOException {
+
+		CachedFile cachedFile = new CachedFile();
+		cachedFile.size = corpus.getSize(index);
+		cachedFile.lastModifiedTime = corpus.getLastModifiedTime(index);
+
+		if (contentHashed) {
+			CRC32C checksum = new CRC32C();
+			for (ByteBuffer window : corpus.map(index)) {
+				checksum.update(window);
+			}
+			cachedFile.checksum = checksum.getValue();
+		}
+
+		return cachedFile;
+
+	}
+
+
+	// Private Classes
+	/**
+	 * Description of a file and the words counted in it.
+	 */
+	private static class CachedFile {
+
+		private long size;
+		private FileTime lastModifiedTime;
+		private long checksum;
+		private WordTable counts;
+
+		public boolean isSameFile(CachedFile other) {
+
+			return size == other.size && lastModifiedTime.equals(other.lastModifiedTime) && checksum == other.checksum;
+
+		}
+
+	}
+
+}
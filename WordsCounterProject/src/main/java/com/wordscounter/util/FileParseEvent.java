@@ -0,0 +1,63 @@
+package com.wordscounter.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+/**
+ * Java Flight Recorder event of the count of the words of a file, or of a chunk of a
+ * file.
+ *
+ * <p>Like every event, it records the thread that counted the words.
+ *
+ * @author Arekku
+ *
+ */
+@Name("com.wordscounter.FileParse")
+@Label("File Parse")
+@Category("Words Counter")
+@Description("Count of the words of a file, or of a chunk of a file")
+@StackTrace(false)
+public class FileParseEvent extends jdk.jfr.Event {
+
+	// Attributes
+	@Label("File Number")
+	@Description("Number of the file, starting at 1")
+	private int fileNumber;
+
+	@Label("Bytes")
+	@DataAmount
+	private long bytes;
+
+	@Label("Words")
+	@Description("Number of words counted")
+	private long wordsNumber;
+
+
+	// Public Methods
+	/**
+	 * Ends the event and records it, if it is enabled and lasted longer than its
+	 * threshold.
+	 *
+	 * @param fileNumber the number of the file parsed, starting at 1.
+	 * @param bytes the number of bytes parsed.
+	 * @param wordsNumber the number of words counted.
+	 */
+	public void commit(int fileNumber, long bytes, long wordsNumber) {
+
+		end();
+
+		if (shouldCommit()) {
+			this.fileNumber = fileNumber;
+			this.bytes = bytes;
+			this.wordsNumber = wordsNumber;
+			commit();
+		}
+
+	}
+
+}
@@ -0,0 +1,88 @@
+package com.wordscounter.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+/**
+ * Java Flight Recorder event of the read of a file, from the start of the read until its
+ * bytes are available.
+ *
+ * <p>When a file is mapped in memory, the event only measures the mapping, and its field
+ * <i>mapped</i> is true: no byte is read yet, they are paged in while they are parsed,
+ * so that time is part of the {@link FileParseEvent} of the file. Where the bytes of a
+ * mapped file are loaded before they are parsed, the load is recorded as another event,
+ * with <i>mapped</i> false.
+ *
+ * <p>Like every event, it records the thread that read the file.
+ *
+ * @author Arekku
+ *
+ */
+@Name("com.wordscounter.FileRead")
+@Label("File Read")
+@Category("Words Counter")
+@Description("Read of a file")
+@StackTrace(false)
+public class FileReadEvent extends jdk.jfr.Event {
+
+	// Attributes
+	@Label("File Number")
+	@Description("Number of the file, starting at 1")
+	private int fileNumber;
+
+	@Label("Path")
+	private String path;
+
+	@Label("Bytes")
+	@DataAmount
+	private long bytes;
+
+	@Label("Mapped")
+	@Description("True if the file was only mapped, so its bytes were not read yet")
+	private boolean mapped;
+
+
+	// Public Methods
+	/**
+	 * Ends the event and records it, if it is enabled and lasted longer than its
+	 * threshold.
+	 *
+	 * @param fileNumber the number of the file read, starting at 1.
+	 * @param path the path of the file read.
+	 * @param bytes the number of bytes read.
+	 */
+	public void commit(int fileNumber, String path, long bytes) {
+
+		commit(fileNumber, path, bytes, false);
+
+	}
+
+	/**
+	 * Ends the event and records it, if it is enabled and lasted longer than its
+	 * threshold.
+	 *
+	 * @param fileNumber the number of the file read, starting at 1.
+	 * @param path the path of the file read.
+	 * @param bytes the number of bytes read or mapped.
+	 * @param mapped true if the file was only mapped, so its bytes were not read yet.
+	 */
+	public void commit(int fileNumber, String path, long bytes, boolean mapped) {
+
+		end();
+
+		if (shouldCommit()) {
+			this.fileNumber = fileNumber;
+			this.path = path;
+			this.bytes = bytes;
+			this.mapped = mapped;
+			commit();
+		}
+
+	}
+
+}
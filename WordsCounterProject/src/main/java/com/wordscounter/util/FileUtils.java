@@ -5,11 +5,22 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
 
 
 public class FileUtils {
 
+	public static final int DEFAULT_MAPPING_WINDOW_SIZE = 1 << 30;
+	public static final int MAX_READ_SIZE = Integer.MAX_VALUE - 8;
+
 	public static String read(String path, String encoding) throws IOException {
 
 		StringBuilder text = new StringBuilder();
@@ -42,5 +53,200 @@ public class FileUtils {
 
 	}
 
-}
+	/**
+	 * Writes the content of a list of buffers to a file, in order, replacing its content.
+	 *
+	 * <p>The buffers are written with gathering writes, so many buffers are written with a
+	 * single system call. The bytes of direct buffers are copied to the file with no
+	 * intermediate copy, while the channel copies the ones of heap buffers to a temporary
+	 * direct buffer first. The same bytes can be written many times by giving duplicates
+	 * of the same buffer. The positions of the buffers are moved to their limits.
+	 *
+	 * @param path the path of the file to write.
+	 * @param buffers the buffers to write, from their positions to their limits.
+	 * @throws IOException if the file can't be written.
+	 */
+	public static void write(String path, ByteBuffer[] buffers) throws IOException {
+
+		FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+		try {
+
+			int first = 0;
+			while (first < buffers.length) {
+				channel.write(buffers, first, buffers.length - first);
+				while (first < buffers.length && !buffers[first].hasRemaining()) {
+					first++;
+				}
+			}
+
+		} finally {
+			channel.close();
+		}
+
+	}
+
+	/**
+	 * Reads all the bytes of a file into a buffer on the heap.
+	 *
+	 * <p>Unlike {@link #map(String)}, the bytes are read with blocking calls instead of page
+	 * faults. A virtual thread that reads a file still pins its carrier thread while it
+	 * waits for the disk, as file I/O is not asynchronous on Java 21, but the scheduler
+	 * sees the blocking call and adds a carrier for a while to make up for it. A page
+	 * fault blocks the carrier without the scheduler knowing.
+	 *
+	 * @param path the path of the file to read.
+	 * @return a buffer with the content of the file, from position 0 to its limit.
+	 * @throws IOException if the file can't be read, or if it is bigger than
+	 *         {@link #MAX_READ_SIZE}.
+	 */
+	public static ByteBuffer readBytes(String path) throws IOException {
+
+		FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+
+		try {
+
+			long fileSize = channel.size();
+			if (fileSize > MAX_READ_SIZE) {
+				throw new IOException("The file " + path + " is too big to be read in memory.");
+			}
+
+			ByteBuffer bytes = ByteBuffer.allocate((int) fileSize);
+			while (bytes.hasRemaining() && channel.read(bytes) >= 0) {
+				continue;
+			}
+
+			bytes.flip();
+			return bytes;
+
+		} finally {
+			channel.close();
+		}
+
+	}
+
+	/**
+	 * Maps a file in memory and returns a read-only view of its bytes, with no copy.
+	 *
+	 * <p>See {@link #map(String, int)}. The windows are 1 GB long at most.
+	 *
+	 * @param path the path of the file to map.
+	 * @return the list of windows that cover the whole file.
+	 * @throws IOException if the file can't be mapped.
+	 */
+	public static List<MappedByteBuffer> map(String path) throws IOException {
+
+		return map(path, DEFAULT_MAPPING_WINDOW_SIZE);
+
+	}
+
+	/**
+	 * Maps a file in memory and returns a read-only view of its bytes, with no copy.
+	 *
+	 * <p>A single buffer can't address more than 2 GB, so the file is mapped in a list of
+	 * consecutive windows. Every window but the last one ends right after a whitespace
+	 * byte, so no word is split between two windows and every window can be parsed on
+	 * its own. The bytes are expected to be encoded in UTF-8 or another ASCII compatible
+	 * encoding.
+	 *
+	 * @param path the path of the file to map.
+	 * @param windowSize the maximum size of every window, in bytes.
+	 * @return the list of windows that cover the whole file.
+	 * @throws IOException if the file can't be mapped, or if it contains a word longer
+	 *         than the window size.
+	 */
+	public static List<MappedByteBuffer> map(String path, int windowSize) throws IOException {
+
+		List<MappedByteBuffer> windows = new ArrayList<MappedByteBuffer>();
+		FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+
+		try {
 
+			long fileSize = channel.size();
+			long position = 0;
+
+			while (position < fileSize) {
+
+				int length = (int) Math.min(windowSize, fileSize - position);
+				MappedByteBuffer buffer = channel.map(MapMode.READ_ONLY, position, length);
+
+				if (position + length < fileSize) {
+					int end = length;
+					while (end > 0 && !WordTokenizer.isWhitespace(buffer.get(end - 1))) {
+						end--;
+					}
+					if (end == 0) {
+						throw new IOException("The file " + path + " contains a word longer than " + windowSize + " bytes.");
+					}
+					length = end;
+					buffer = channel.map(MapMode.READ_ONLY, position, length);
+				}
+
+				windows.add(buffer);
+				position += length;
+
+			}
+
+		} finally {
+			channel.close();
+		}
+
+		return windows;
+
+	}
+
+	/**
+	 * Splits a buffer in consecutive chunks that can be parsed on their own.
+	 *
+	 * <p>Every chunk is at least chunkSize bytes long, and it is extended up to the next
+	 * whitespace byte, so no word is split between two chunks. The last chunk takes the
+	 * remaining bytes. The chunks share the content of the buffer, with no copy.
+	 *
+	 * @param buffer the buffer to split, from its position to its limit.
+	 * @param chunkSize the minimum size of every chunk, in bytes.
+	 * @return the list of chunks that cover the whole buffer.
+	 */
+	public static List<ByteBuffer> split(ByteBuffer buffer, int chunkSize) {
+
+		List<ByteBuffer> chunks = new ArrayList<ByteBuffer>();
+
+		int limit = buffer.limit();
+		int start = buffer.position();
+
+		while (start < limit) {
+
+			int end = findWordBoundary(buffer, (int) Math.min((long) start + chunkSize, limit));
+
+			ByteBuffer chunk = buffer.duplicate();
+			chunk.limit(end);
+			chunk.position(start);
+			chunks.add(chunk.slice());
+
+			start = end;
+
+		}
+
+		return chunks;
+
+	}
+
+	/**
+	 * Finds the first index of a buffer, from the given one, where a new word can start.
+	 *
+	 * @param buffer the buffer to look into, up to its limit.
+	 * @param index the index to start looking from. It must be greater than 0.
+	 * @return the first index, from the given one, right after a whitespace byte, or the
+	 *         limit of the buffer if there is none.
+	 */
+	public static int findWordBoundary(ByteBuffer buffer, int index) {
+
+		int limit = buffer.limit();
+		while (index < limit && !WordTokenizer.isWhitespace(buffer.get(index - 1))) {
+			index++;
+		}
+
+		return index;
+
+	}
+
+}
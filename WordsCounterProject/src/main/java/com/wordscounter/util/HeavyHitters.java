@@ -0,0 +1,266 @@
+package com.wordscounter.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.function.ObjLongConsumer;
+
+import com.wordscounter.model.Frequency;
+import com.wordscounter.model.FrequencyMap;
+import com.wordscounter.model.OrderEnum;
+
+
+/**
+ * Store of the most used words only, with approximate counts, in a fixed amount of
+ * memory that doesn't depend on the number of distinct words.
+ *
+ * <p>Every word is added to a <i>SpaceSavingSummary</i>, which keeps the candidates to
+ * be the most used words, and to a <i>CountMinSketch</i>, which estimates the count of
+ * any word. Both give counts that are never less than the real ones, so the count of a
+ * word is the minimum of both. The summary also gives a lower bound of the count, and
+ * the difference between both bounds is the error of the word.
+ *
+ * <p>Only the words of the summary are stored, so {@link #forEach(ObjLongConsumer)} only
+ * gives them, and the less used words are not known. The stores of many threads can be
+ * merged if they have the same sizes. A store is not thread safe.
+ *
+ * @author Arekku
+ *
+ */
+public class HeavyHitters implements WordCountStore {
+
+	// Attributes
+	private SpaceSavingSummary summary;
+	private CountMinSketch sketch;
+
+	private ByteBuffer asciiWord;
+
+
+	// Constructors
+	/**
+	 * Creates an empty HeavyHitters store.
+	 *
+	 * @param summarySize the number of words kept as candidates to be the most used.
+	 * @param sketchWidth the number of counters per row of the sketch.
+	 * @param sketchDepth the number of rows of the sketch.
+	 */
+	public HeavyHitters(int summarySize, int sketchWidth, int sketchDepth) {
+
+		this.summary = new SpaceSavingSummary(summarySize);
+		this.sketch = new CountMinSketch(sketchWidth, sketchDepth);
+
+		this.asciiWord = ByteBuffer.allocate(64);
+
+	}
+
+
+	// Getters
+	/**
+	 * Getter
+	 *
+	 * @return the summary of the most used words.
+	 */
+	public SpaceSavingSummary getSummary() {
+		return summary;
+	}
+	/**
+	 * Getter
+	 *
+	 * @return the sketch that estimates the count of any word.
+	 */
+	public CountMinSketch getSketch() {
+		return sketch;
+	}
+	/**
+	 * Getter
+	 *
+	 * @return the number of bytes taken by the summary and the sketch, approximately.
+	 */
+	public long getMemoryUsage() {
+		return summary.getMemoryUsage() + sketch.getMemoryUsage();
+	}
+
+
+	// Public Methods
+	/**
+	 * Gets the number of words in the summary.
+	 *
+	 * @return the number of words in the summary.
+	 */
+	public int size() {
+
+		return summary.size();
+
+	}
+
+	/**
+	 * Adds a number of occurrences of the word stored in a range of bytes.
+	 *
+	 * @param bytes the buffer that contains the UTF-8 bytes of the word.
+	 * @param start the index of the first byte of the word.
+	 * @param end the index after the last byte of the word.
+	 * @param hash the hash of the word.
+	 * @param count the number of occurrences to add.
+	 */
+	public void add(ByteBuffer bytes, int start, int end, int hash, long count) {
+
+		if (end == start) {
+			return;
+		}
+
+		sketch.add(WordKeys.hash64(bytes, start, end), count);
+		summary.add(bytes, start, end, hash, count);
+
+	}
+
+	/**
+	 * Adds a number of occurrences of the ASCII word stored in a range of characters.
+	 *
+	 * @param text the text that contains the word. All its characters must be ASCII.
+	 * @param start the index of the first character of the word.
+	 * @param end the index after the last character of the word.
+	 * @param hash the hash of the word.
+	 * @param count the number of occurrences to add.
+	 */
+	public void addAscii(CharSequence text, int start, int end, int hash, long count) {
+
+		int length = end - start;
+		if (length > asciiWord.capacity()) {
+			asciiWord = ByteBuffer.allocate(Math.max(length, asciiWord.capacity() * 2));
+		}
+
+		for (int i = 0; i < length; i++) {
+			asciiWord.put(i, (byte) text.charAt(start + i));
+		}
+
+		add(asciiWord, 0, length, hash, count);
+
+	}
+
+	/**
+	 * Adds a number of occurrences of a word.
+	 *
+	 * @param word the word.
+	 * @param count the number of occurrences to add.
+	 */
+	public void add(String word, long count) {
+
+		ByteBuffer bytes = ByteBuffer.wrap(word.getBytes(StandardCharsets.UTF_8));
+
+		add(bytes, 0, bytes.limit(), WordTable.hash(bytes, 0, bytes.limit()), count);
+
+	}
+
+	/**
+	 * Merges another store with the same sizes into this one.
+	 *
+	 * @param other the store to merge.
+	 */
+	public void addAll(HeavyHitters other) {
+
+		sketch.addAll(other.sketch);
+		summary.addAll(other.summary);
+
+	}
+
+	/**
+	 * Gets the total number of occurrences of all the words added, counted by the
+	 * sketch.
+	 *
+	 * @return the number of occurrences.
+	 */
+	public long getWordsNumber() {
+
+		return sketch.getTotalCount();
+
+	}
+
+	/**
+	 * Checks if the store keeps every word added. Only the words of the summary are kept.
+	 *
+	 * @return false.
+	 */
+	public boolean keepsAllWords() {
+
+		return false;
+
+	}
+
+	/**
+	 * Calls the given action for every word of the summary and its count.
+	 *
+	 * @param action the action to call.
+	 */
+	public void forEach(ObjLongConsumer<String> action) {
+
+		for (int entry = 0; entry < summary.size(); entry++) {
+			action.accept(summary.getWord(entry), getCount(entry));
+		}
+
+	}
+
+	/**
+	 * Gets the most used words, with their approximate counts. The less used words are
+	 * not known, so an empty list is returned for them.
+	 *
+	 * @param order DESC to get the most used words. ASC gives an empty list.
+	 * @param size the maximum number of entries to get.
+	 * @return the first entries, sorted in the given order.
+	 */
+	public List<Entry<String, Frequency>> getTopList(OrderEnum order, int size) {
+
+		if (order != OrderEnum.DESC) {
+			return Collections.emptyList();
+		}
+
+		BoundedHeap<Entry<String, Frequency>> heap = new BoundedHeap<Entry<String, Frequency>>(size, FrequencyMap.getComparator(order));
+
+		for (int entry = 0; entry < summary.size(); entry++) {
+			heap.offer(new SimpleImmutableEntry<String, Frequency>(summary.getWord(entry), new Frequency(getCount(entry))));
+		}
+
+		return heap.toSortedList();
+
+	}
+
+	/**
+	 * Gets the maximum amount the count of a word exceeds its real count.
+	 *
+	 * <p>The real count of a word of the summary is at least its count minus its error
+	 * in the summary. A word that is not in the summary can have been used from 0 to its
+	 * estimate in the sketch times.
+	 *
+	 * @param word the word.
+	 * @return the error of the count of the word.
+	 */
+	public long getError(String word) {
+
+		int entry = summary.getEntry(word);
+
+		if (entry < 0) {
+			ByteBuffer bytes = ByteBuffer.wrap(word.getBytes(StandardCharsets.UTF_8));
+			return sketch.estimate(WordKeys.hash64(bytes, 0, bytes.limit()));
+		}
+
+		long lowerBound = summary.getCount(entry) - summary.getError(entry);
+
+		return Math.max(0, getCount(entry) - lowerBound);
+
+	}
+
+
+	// Private Methods
+	/**
+	 * Gets the count of an entry of the summary: the minimum of the summary and the
+	 * sketch.
+	 */
+	private long getCount(int entry) {
+
+		return Math.min(summary.getCount(entry), sketch.estimate(summary.getHash64(entry)));
+
+	}
+
+}
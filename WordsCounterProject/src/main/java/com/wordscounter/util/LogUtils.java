@@ -2,9 +2,27 @@ package com.wordscounter.util;
 
 public class LogUtils {
 
+	private static volatile boolean quiet;
+
+
+	/**
+	 * Silences the information messages, so they don't take time from the executions
+	 * measured. Errors are always printed.
+	 * 
+	 * @param quiet true to silence the information messages.
+	 */
+	public static void setQuiet(boolean quiet) {
+		LogUtils.quiet = quiet;
+	}
+
+	public static boolean isQuiet() {
+		return quiet;
+	}
 
 	public static void info(String message) {
-		System.out.println(message);
+		if (!quiet) {
+			System.out.println(message);
+		}
 	}
 
 	public static void emptyLine() {
@@ -26,11 +44,13 @@ public class LogUtils {
 	}
 
 	public static void infoProgress(String message, int step, int total) {
-		System.out.print(message + " " + String.valueOf(step) + "/" + String.valueOf(total) + "\r");
+		if (!quiet) {
+			System.out.print(message + " " + String.valueOf(step) + "/" + String.valueOf(total) + "\r");
+		}
 	}
 
 	public static void error(String error) {
-		info("[ERROR] " + error);
+		System.out.println("[ERROR] " + error);
 	}
 
 }
@@ -0,0 +1,56 @@
+package com.wordscounter.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+/**
+ * Java Flight Recorder event of the merge of the counts of a table of words into another
+ * one.
+ *
+ * <p>Like every event, it records the thread that merged the tables.
+ *
+ * @author Arekku
+ *
+ */
+@Name("com.wordscounter.MapMerge")
+@Label("Map Merge")
+@Category("Words Counter")
+@Description("Merge of the counts of a table of words into another one")
+@StackTrace(false)
+public class MapMergeEvent extends jdk.jfr.Event {
+
+	// Attributes
+	@Label("Words Merged")
+	@Description("Distinct words of the table merged into the other one")
+	private int mergedWords;
+
+	@Label("Distinct Words")
+	@Description("Distinct words of the table after the merge")
+	private int distinctWords;
+
+
+	// Public Methods
+	/**
+	 * Ends the event and records it, if it is enabled and lasted longer than its
+	 * threshold.
+	 *
+	 * @param mergedWords the distinct words of the table merged into the other one.
+	 * @param distinctWords the distinct words of the table after the merge.
+	 */
+	public void commit(int mergedWords, int distinctWords) {
+
+		end();
+
+		if (shouldCommit()) {
+			this.mergedWords = mergedWords;
+			this.distinctWords = distinctWords;
+			commit();
+		}
+
+	}
+
+}
@@ -0,0 +1,61 @@
+package com.wordscounter.util;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+/**
+ * Java Flight Recorder event of the sort of the words of a map, or of the selection of
+ * its most or less used words.
+ *
+ * <p>Like every event, it records the thread that sorted the words.
+ *
+ * @author Arekku
+ *
+ */
+@Name("com.wordscounter.MapSort")
+@Label("Map Sort")
+@Category("Words Counter")
+@Description("Sort of the words of a map, or selection of its most or less used words")
+@StackTrace(false)
+public class MapSortEvent extends jdk.jfr.Event {
+
+	// Attributes
+	@Label("Order")
+	private String order;
+
+	@Label("Distinct Words")
+	@Description("Distinct words of the map")
+	private int distinctWords;
+
+	@Label("List Size")
+	@Description("Number of words of the sorted list")
+	private int listSize;
+
+
+	// Public Methods
+	/**
+	 * Ends the event and records it, if it is enabled and lasted longer than its
+	 * threshold.
+	 *
+	 * @param order the order of the list.
+	 * @param distinctWords the distinct words of the map.
+	 * @param listSize the number of words of the sorted list.
+	 */
+	public void commit(String order, int distinctWords, int listSize) {
+
+		end();
+
+		if (shouldCommit()) {
+			this.order = order;
+			this.distinctWords = distinctWords;
+			this.listSize = listSize;
+			commit();
+		}
+
+	}
+
+}
@@ -0,0 +1,333 @@
+package com.wordscounter.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+
+/**
+ * Corpus of texts generated in memory, outside of the heap, so the words can be counted
+ * with no disc access at all.
+ *
+ * <p>The texts are built with a seed, so the same arguments always build the same texts,
+ * in one of two ways: as a random combination of base texts, like the working files, or
+ * as random words of a synthetic vocabulary, whose frequencies follow Zipf's law: the
+ * word of rank <i>r</i> appears in proportion to <i>1 / r^s</i>. The most frequent words
+ * of the vocabulary are the shortest ones, like in natural languages.
+ *
+ * <p>Every text is stored in direct buffers of 1 GB at most, that end right after a
+ * whitespace, so a text can be bigger than 2 GB. The direct memory of the JVM must be big
+ * enough for all the texts (see <i>-XX:MaxDirectMemorySize</i>). The texts are built in
+ * parallel, and the memory is released by {@link #release()} without waiting for the
+ * garbage collector.
+ *
+ * @author Arekku
+ *
+ */
+public class MemoryCorpus implements Corpus {
+
+	// Constants
+	private static final String TEXT_NAME = "MemoryText_";
+	private static final int WINDOW_SIZE = FileUtils.DEFAULT_MAPPING_WINDOW_SIZE;
+
+	private static final int MIN_WORD_LENGTH = 1;
+	private static final int MAX_WORD_LENGTH = 12;
+	private static final int WORDS_PER_LINE = 12;
+	private static final long SEED_INCREMENT = 0x9E3779B97F4A7C15L;
+
+
+	// Attributes
+	private List<List<ByteBuffer>> texts;
+	private FileTime creationTime;
+
+
+	// Constructors
+	private MemoryCorpus(List<List<ByteBuffer>> texts) {
+
+		this.texts = texts;
+		this.creationTime = FileTime.from(Instant.now());
+
+	}
+
+
+	// Public Methods
+	/**
+	 * Builds a corpus where every text is a random combination of base texts.
+	 *
+	 * @param baseTexts the UTF-8 bytes of the base texts, from their positions to their
+	 *        limits. Every base text must end with a whitespace.
+	 * @param textsNumber the number of texts to build.
+	 * @param partsPerText the number of base texts in every text.
+	 * @param seed the seed of the random choices.
+	 * @return the corpus.
+	 */
+	public static MemoryCorpus fromBaseTexts(final ByteBuffer[] baseTexts, int textsNumber, final int partsPerText, final long seed) {
+
+		return new MemoryCorpus(IntStream.range(0, textsNumber).parallel().mapToObj(index -> {
+
+			SplittableRandom random = new SplittableRandom(seed + (index + 1) * SEED_INCREMENT);
+			List<ByteBuffer> windows = new ArrayList<ByteBuffer>();
+
+			int part = 0;
+			while (part < partsPerText) {
+
+				List<ByteBuffer> windowParts = new ArrayList<ByteBuffer>();
+				long windowSize = 0;
+
+				while (part < partsPerText) {
+					ByteBuffer baseText = baseTexts[random.nextInt(baseTexts.length)];
+					if (!windowParts.isEmpty() && windowSize + baseText.remaining() > WINDOW_SIZE) {
+						break;
+					}
+					windowParts.add(baseText.duplicate());
+					windowSize += baseText.remaining();
+					part++;
+				}
+
+				ByteBuffer window = ByteBuffer.allocateDirect((int) windowSize);
+				for (ByteBuffer windowPart : windowParts) {
+					window.put(windowPart);
+				}
+				windows.add(window.flip());
+
+			}
+
+			return windows;
+
+		}).collect(Collectors.toList()));
+
+	}
+
+	/**
+	 * Builds a corpus where every text is made of random words of a synthetic
+	 * vocabulary, with frequencies that follow Zipf's law.
+	 *
+	 * @param textsNumber the number of texts to build.
+	 * @param textSize the size of every text, in bytes. Texts can be a few bytes
+	 *        shorter, so they end at a whitespace.
+	 * @param vocabularySize the number of distinct words of the vocabulary.
+	 * @param exponent the exponent <i>s</i> of Zipf's law. 1 is close to natural
+	 *        languages, and the bigger it is, the more frequent the first words are.
+	 * @param seed the seed of the vocabulary and the random choices.
+	 * @return the corpus.
+	 */
+	public static MemoryCorpus fromZipf(int textsNumber, final long textSize, int vocabularySize, double exponent, final long seed) {
+
+		final byte[][] vocabulary = newVocabulary(Math.max(1, vocabularySize), seed);
+
+		// Cumulative frequency of every rank, for the inverse transform sampling
+		final double[] cumulative = new double[vocabulary.length];
+		double sum = 0;
+		for (int rank = 0; rank < cumulative.length; rank++) {
+			sum += 1 / Math.pow(rank + 1, exponent);
+			cumulative[rank] = sum;
+		}
+		for (int rank = 0; rank < cumulative.length; rank++) {
+			cumulative[rank] /= sum;
+		}
+
+		return new MemoryCorpus(IntStream.range(0, textsNumber).parallel().mapToObj(index -> {
+
+			SplittableRandom random = new SplittableRandom(seed + (index + 1) * SEED_INCREMENT);
+			List<ByteBuffer> windows = new ArrayList<ByteBuffer>();
+
+			long remaining = textSize;
+			int lineWords = 0;
+
+			while (remaining > MAX_WORD_LENGTH) {
+
+				ByteBuffer window = ByteBuffer.allocateDirect((int) Math.min(WINDOW_SIZE, remaining));
+
+				while (window.remaining() > MAX_WORD_LENGTH) {
+
+					int rank = Arrays.binarySearch(cumulative, random.nextDouble());
+					if (rank < 0) {
+						rank = Math.min(-rank - 1, cumulative.length - 1);
+					}
+
+					window.put(vocabulary[rank]);
+
+					if (++lineWords == WORDS_PER_LINE) {
+						window.put((byte) '\n');
+						lineWords = 0;
+					} else {
+						window.put((byte) ' ');
+					}
+
+				}
+
+				remaining -= window.position();
+				windows.add(window.flip());
+
+			}
+
+			return windows;
+
+		}).collect(Collectors.toList()));
+
+	}
+
+	/**
+	 * Gets the number of texts.
+	 *
+	 * @return the number of texts.
+	 */
+	public int size() {
+
+		return texts.size();
+
+	}
+
+	/**
+	 * Gets the name of a text.
+	 *
+	 * @param index the index of the text, starting at 0.
+	 * @return the name of the text.
+	 */
+	public String getName(int index) {
+
+		return TEXT_NAME + (index + 1);
+
+	}
+
+	/**
+	 * Gets the number of bytes of a text.
+	 *
+	 * @param index the index of the text, starting at 0.
+	 * @return the number of bytes of the text.
+	 */
+	public long getSize(int index) {
+
+		long size = 0;
+		for (ByteBuffer window : texts.get(index)) {
+			size += window.limit();
+		}
+
+		return size;
+
+	}
+
+	/**
+	 * Gets the number of bytes of all the texts.
+	 *
+	 * @return the number of bytes of the corpus.
+	 */
+	public long getSize() {
+
+		long size = 0;
+		for (int i = 0; i < texts.size(); i++) {
+			size += getSize(i);
+		}
+
+		return size;
+
+	}
+
+	/**
+	 * Gets the time the corpus was built. Texts never change once they are built.
+	 *
+	 * @param index the index of the text, starting at 0.
+	 * @return the time the corpus was built.
+	 */
+	public FileTime getLastModifiedTime(int index) {
+
+		return creationTime;
+
+	}
+
+	/**
+	 * Gets read-only views of the windows of a text, with no copy.
+	 *
+	 * @param index the index of the text, starting at 0.
+	 * @return the list of windows that cover the whole text.
+	 */
+	public List<ByteBuffer> map(int index) {
+
+		List<ByteBuffer> windows = new ArrayList<ByteBuffer>();
+		for (ByteBuffer window : texts.get(index)) {
+			windows.add(window.asReadOnlyBuffer());
+		}
+
+		return windows;
+
+	}
+
+	/**
+	 * Gets a read-only view of a text, with no copy.
+	 *
+	 * @param index the index of the text, starting at 0.
+	 * @return a buffer with the bytes of the text.
+	 * @throws IOException if the text is stored in more than one window.
+	 */
+	public ByteBuffer read(int index) throws IOException {
+
+		List<ByteBuffer> windows = map(index);
+
+		if (windows.isEmpty()) {
+			return ByteBuffer.allocate(0);
+		}
+		if (windows.size() > 1) {
+			throw new IOException("The text " + getName(index) + " is too big to be read in a single buffer.");
+		}
+
+		return windows.get(0);
+
+	}
+
+	/**
+	 * Releases the memory of all the texts. The views given before can't be used
+	 * afterwards.
+	 */
+	public void release() {
+
+		for (List<ByteBuffer> windows : texts) {
+			for (ByteBuffer window : windows) {
+				Utils.free(window);
+			}
+		}
+
+		texts = new ArrayList<List<ByteBuffer>>();
+
+	}
+
+
+	// Private Methods
+	/**
+	 * Builds a vocabulary of distinct random ASCII words, sorted by length, so the
+	 * shortest words get the first ranks.
+	 */
+	private static byte[][] newVocabulary(int vocabularySize, long seed) {
+
+		SplittableRandom random = new SplittableRandom(seed);
+		Set<String> words = new LinkedHashSet<String>();
+
+		while (words.size() < vocabularySize) {
+
+			char[] word = new char[MIN_WORD_LENGTH + random.nextInt(MAX_WORD_LENGTH - MIN_WORD_LENGTH + 1)];
+			for (int i = 0; i < word.length; i++) {
+				word[i] = (char) ('a' + random.nextInt(26));
+			}
+
+			words.add(new String(word));
+
+		}
+
+		return words.stream()
+				.sorted(Comparator.comparingInt(String::length))
+				.map(word -> word.getBytes(StandardCharsets.US_ASCII))
+				.toArray(byte[][]::new);
+
+	}
+
+}
@@ -0,0 +1,639 @@
+package com.wordscounter.util;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.function.ObjLongConsumer;
+import java.util.stream.IntStream;
+
+import com.wordscounter.model.Frequency;
+import com.wordscounter.model.OrderEnum;
+
+
+/**
+ * Hash table of words and counts stored outside of the heap, in direct buffers.
+ *
+ * <p>It works like <i>WordTable</i>, but the UTF-8 bytes of the words are appended to a
+ * list of direct buffers, the arena, and every slot of the table takes 24 bytes of
+ * another list of direct buffers: the count, the address of the word in the arena, its
+ * hash and its length. The heap only holds the buffer objects, so the garbage collector
+ * never scans the words, and the number of words is limited by the memory of the machine
+ * instead of the size of the heap, up to 2^30 slots.
+ *
+ * <p>The memory is allocated in pages, as the table grows, and it is released by
+ * {@link #release()} without waiting for the garbage collector. The table can't be used
+ * after it is released.
+ *
+ * <p>A table is not thread safe, but it can be read by many threads at the same time.
+ *
+ * @author Arekku
+ *
+ */
+public class OffHeapWordTable implements WordCountStore {
+
+	// Constants
+	private static final int DEFAULT_CAPACITY = 1024;
+	private static final int MAX_CAPACITY = 1 << 30;
+
+	private static final int SLOT_SIZE = 24;
+	private static final int COUNT = 0;
+	private static final int KEY = 8;
+	private static final int HASH = 16;
+	private static final int LENGTH = 20;
+
+	private static final int SLOT_PAGE_BITS = 20;
+	private static final int SLOT_PAGE_MASK = (1 << SLOT_PAGE_BITS) - 1;
+
+	private static final int MIN_KEYS_PAGE_SIZE = 64 * 1024;
+	private static final int MAX_KEYS_PAGE_SIZE = 64 * 1024 * 1024;
+
+
+	// Attributes
+	private ByteBuffer[] slotPages;
+	private int capacity;
+	private int size;
+
+	private List<ByteBuffer> keyPages;
+	private long allocatedBytes;
+
+
+	// Constructors
+	/**
+	 * Creates an empty OffHeapWordTable.
+	 */
+	public OffHeapWordTable() {
+
+		this(DEFAULT_CAPACITY, MIN_KEYS_PAGE_SIZE);
+
+	}
+
+	/**
+	 * Creates an empty OffHeapWordTable with room for the given number of words.
+	 *
+	 * @param expectedWords the number of words expected.
+	 * @param expectedKeysSize the number of bytes expected for all the words. The first
+	 *        page of the arena takes this size, up to 64 MB.
+	 */
+	public OffHeapWordTable(int expectedWords, long expectedKeysSize) {
+
+		long minCapacity = Math.max(16, (long) expectedWords * 4 / 3);
+		if (minCapacity > MAX_CAPACITY) {
+			throw new IllegalArgumentException("The table can't hold " + expectedWords + " words.");
+		}
+
+		this.capacity = Integer.highestOneBit((int) minCapacity - 1) << 1;
+		this.slotPages = allocateSlotPages(capacity);
+
+		this.keyPages = new ArrayList<ByteBuffer>();
+		addKeysPage((int) Math.min(MAX_KEYS_PAGE_SIZE, Math.max(MIN_KEYS_PAGE_SIZE, expectedKeysSize)));
+
+	}
+
+
+	// Getters
+	/**
+	 * Getter
+	 *
+	 * @return the number of distinct words in the table.
+	 */
+	public int size() {
+		return size;
+	}
+	/**
+	 * Getter
+	 *
+	 * @return the number of bytes allocated outside of the heap.
+	 */
+	public long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+
+
+	// Public Methods
+	/**
+	 * Adds a number of occurrences of the word stored in a range of bytes.
+	 *
+	 * @param bytes the buffer that contains the UTF-8 bytes of the word.
+	 * @param start the index of the first byte of the word.
+	 * @param end the index after the last byte of the word.
+	 * @param hash the hash of the word.
+	 * @param count the number of occurrences to add.
+	 */
+	public void add(ByteBuffer bytes, int start, int end, int hash, long count) {
+
+		int length = end - start;
+		if (length == 0) {
+			return;
+		}
+
+		int slot = findSlot(bytes, start, length, hash);
+
+		if (slot >= 0) {
+			addCount(slot, count);
+		} else {
+			ByteBuffer keysPage = getKeysPage(length);
+			int offset = keysPage.position();
+			keysPage.put(offset, bytes, start, length).position(offset + length);
+			insert(-slot - 1, hash, getKey(offset), length, count);
+		}
+
+	}
+
+	/**
+	 * Adds a number of occurrences of the ASCII word stored in a range of characters.
+	 *
+	 * @param text the text that contains the word. All its characters must be ASCII.
+	 * @param start the index of the first character of the word.
+	 * @param end the index after the last character of the word.
+	 * @param hash the hash of the word.
+	 * @param count the number of occurrences to add.
+	 */
+	public void addAscii(CharSequence text, int start, int end, int hash, long count) {
+
+		int length = end - start;
+		if (length == 0) {
+			return;
+		}
+
+		int slot = findSlot(text, start, length, hash);
+
+		if (slot >= 0) {
+			addCount(slot, count);
+		} else {
+			ByteBuffer keysPage = getKeysPage(length);
+			int offset = keysPage.position();
+			for (int i = 0; i < length; i++) {
+				keysPage.put((byte) text.charAt(start + i));
+			}
+			insert(-slot - 1, hash, getKey(offset), length, count);
+		}
+
+	}
+
+	/**
+	 * Adds a number of occurrences of a word.
+	 *
+	 * @param word the word.
+	 * @param count the number of occurrences to add.
+	 */
+	public void add(String word, long count) {
+
+		ByteBuffer bytes = ByteBuffer.wrap(word.getBytes(StandardCharsets.UTF_8));
+
+		add(bytes, 0, bytes.limit(), WordTable.hash(bytes, 0, bytes.limit()), count);
+
+	}
+
+	/**
+	 * Adds the counts of all the words of another table to this one.
+	 *
+	 * @param other the table to add.
+	 */
+	public void addAll(OffHeapWordTable other) {
+
+		for (int slot = 0; slot < other.capacity; slot++) {
+
+			ByteBuffer page = other.getSlotPage(slot);
+			int offset = getSlotOffset(slot);
+			int length = page.getInt(offset + LENGTH);
+
+			if (length != 0) {
+				long key = page.getLong(offset + KEY);
+				int start = getKeyOffset(key);
+				add(other.getKeyPage(key), start, start + length, page.getInt(offset + HASH), page.getLong(offset + COUNT));
+			}
+
+		}
+
+	}
+
+	/**
+	 * Gets the count of a word.
+	 *
+	 * @param word the word.
+	 * @return the number of occurrences of the word, or 0 if it is not in the table.
+	 */
+	public long getCount(String word) {
+
+		ByteBuffer bytes = ByteBuffer.wrap(word.getBytes(StandardCharsets.UTF_8));
+		int slot = findSlot(bytes, 0, bytes.limit(), WordTable.hash(bytes, 0, bytes.limit()));
+
+		return slot >= 0 ? getCount(slot) : 0;
+
+	}
+
+	/**
+	 * Calls the given action for every word of the table and its count.
+	 * A <i>String</i> is created for every word.
+	 *
+	 * @param action the action to call.
+	 */
+	public void forEach(ObjLongConsumer<String> action) {
+
+		for (int slot = 0; slot < capacity; slot++) {
+			if (getLength(slot) != 0) {
+				action.accept(getWord(slot), getCount(slot));
+			}
+		}
+
+	}
+
+	/**
+	 * Calls the given action for every word of the table, with its UTF-8 bytes in place
+	 * out of the heap, and its count.
+	 *
+	 * @param action the action to call.
+	 */
+	public void forEachBytes(WordBytesConsumer action) {
+
+		for (int slot = 0; slot < capacity; slot++) {
+
+			ByteBuffer page = getSlotPage(slot);
+			int offset = getSlotOffset(slot);
+			int length = page.getInt(offset + LENGTH);
+
+			if (length != 0) {
+				long key = page.getLong(offset + KEY);
+				int start = getKeyOffset(key);
+				action.accept(getKeyPage(key), start, start + length, page.getLong(offset + COUNT));
+			}
+
+		}
+
+	}
+
+	/**
+	 * Gets the total number of occurrences of all the words of the table, reading the
+	 * counts in place.
+	 *
+	 * @return the number of occurrences.
+	 */
+	public long getWordsNumber() {
+
+		long wordsNumber = 0;
+		for (int slot = 0; slot < capacity; slot++) {
+			if (getLength(slot) != 0) {
+				wordsNumber += getCount(slot);
+			}
+		}
+
+		return wordsNumber;
+
+	}
+
+	/**
+	 * Gets the first words of the table in the given order.
+	 *
+	 * <p>The slots are selected in parallel with heaps bounded to the given size, reading
+	 * the counts and the words in place, and only the entries of the selected words are
+	 * created. Words with the same count are compared by their bytes, in <i>String</i>
+	 * order.
+	 *
+	 * @param order DESC to get the most used words, or ASC to get the less used ones.
+	 * @param size the maximum number of entries to get.
+	 * @return the first entries, sorted in the given order.
+	 */
+	public List<Entry<String, Frequency>> getTopList(OrderEnum order, final int size) {
+
+		Comparator<Integer> byCount = (slot1, slot2) -> Long.compare(getCount(slot1), getCount(slot2));
+		if (order == OrderEnum.DESC) {
+			byCount = byCount.reversed();
+		}
+		final Comparator<Integer> comparator = byCount.thenComparing((slot1, slot2) -> compareWords(slot1, slot2));
+
+		BoundedHeap<Integer> slots = IntStream.range(0, capacity).parallel().filter(slot -> getLength(slot) != 0).collect(
+				() -> new BoundedHeap<Integer>(size, comparator),
+				(heap, slot) -> heap.offer(slot),
+				(left, right) -> left.addAll(right));
+
+		List<Entry<String, Frequency>> topList = new ArrayList<Entry<String, Frequency>>();
+		for (int slot : slots.toSortedList()) {
+			topList.add(new SimpleImmutableEntry<String, Frequency>(getWord(slot), new Frequency(getCount(slot))));
+		}
+
+		return topList;
+
+	}
+
+	/**
+	 * Releases all the memory of the table, without waiting for the garbage collector.
+	 * The table can't be used afterwards.
+	 */
+	public void release() {
+
+		if (slotPages != null) {
+
+			for (ByteBuffer page : slotPages) {
+				Utils.free(page);
+			}
+			for (ByteBuffer page : keyPages) {
+				Utils.free(page);
+			}
+
+			slotPages = null;
+			keyPages = null;
+			capacity = 0;
+			size = 0;
+			allocatedBytes = 0;
+
+		}
+
+	}
+
+
+	// Private Methods
+	/**
+	 * Looks for the slot of the word stored in a range of bytes.
+	 *
+	 * @return the slot of the word, or <i>-(slot + 1)</i> with the empty slot where the
+	 *         word should be inserted.
+	 */
+	private int findSlot(ByteBuffer bytes, int start, int length, int hash) {
+
+		int mask = capacity - 1;
+		int slot = WordKeys.mix(hash) & mask;
+
+		while (true) {
+
+			ByteBuffer page = getSlotPage(slot);
+			int offset = getSlotOffset(slot);
+			int slotLength = page.getInt(offset + LENGTH);
+
+			if (slotLength == 0) {
+				return -slot - 1;
+			}
+			if (slotLength == length && page.getInt(offset + HASH) == hash && matches(page.getLong(offset + KEY), bytes, start, length)) {
+				return slot;
+			}
+
+			slot = (slot + 1) & mask;
+
+		}
+
+	}
+
+	/**
+	 * Looks for the slot of the ASCII word stored in a range of characters.
+	 *
+	 * @return the slot of the word, or <i>-(slot + 1)</i> with the empty slot where the
+	 *         word should be inserted.
+	 */
+	private int findSlot(CharSequence text, int start, int length, int hash) {
+
+		int mask = capacity - 1;
+		int slot = WordKeys.mix(hash) & mask;
+
+		while (true) {
+
+			ByteBuffer page = getSlotPage(slot);
+			int offset = getSlotOffset(slot);
+			int slotLength = page.getInt(offset + LENGTH);
+
+			if (slotLength == 0) {
+				return -slot - 1;
+			}
+			if (slotLength == length && page.getInt(offset + HASH) == hash && matches(page.getLong(offset + KEY), text, start, length)) {
+				return slot;
+			}
+
+			slot = (slot + 1) & mask;
+
+		}
+
+	}
+
+	/**
+	 * Checks if the word stored at an address of the arena is equal to a range of bytes.
+	 */
+	private boolean matches(long key, ByteBuffer bytes, int start, int length) {
+
+		return WordKeys.matches(getKeyPage(key), getKeyOffset(key), bytes, start, length);
+
+	}
+
+	/**
+	 * Checks if the word stored at an address of the arena is equal to a range of ASCII
+	 * characters.
+	 */
+	private boolean matches(long key, CharSequence text, int start, int length) {
+
+		return WordKeys.matches(getKeyPage(key), getKeyOffset(key), text, start, length);
+
+	}
+
+	/**
+	 * Compares the words of two slots in <i>String</i> order.
+	 */
+	private int compareWords(int slot1, int slot2) {
+
+		long key1 = getSlotPage(slot1).getLong(getSlotOffset(slot1) + KEY);
+		long key2 = getSlotPage(slot2).getLong(getSlotOffset(slot2) + KEY);
+
+		return Utils.compareUtf8(getKeyPage(key1), getKeyOffset(key1), getLength(slot1), getKeyPage(key2), getKeyOffset(key2), getLength(slot2));
+
+	}
+
+	/**
+	 * Fills an empty slot with a word already appended to the arena.
+	 */
+	private void insert(int slot, int hash, long key, int length, long count) {
+
+		ByteBuffer page = getSlotPage(slot);
+		int offset = getSlotOffset(slot);
+
+		page.putLong(offset + COUNT, count);
+		page.putLong(offset + KEY, key);
+		page.putInt(offset + HASH, hash);
+		page.putInt(offset + LENGTH, length);
+
+		if ((long) ++size * 4 > (long) capacity * 3) {
+			resize();
+		}
+
+	}
+
+	/**
+	 * Adds a number of occurrences to the count of a slot.
+	 */
+	private void addCount(int slot, long count) {
+
+		ByteBuffer page = getSlotPage(slot);
+		int offset = getSlotOffset(slot);
+
+		page.putLong(offset + COUNT, page.getLong(offset + COUNT) + count);
+
+	}
+
+	/**
+	 * Gets the count of a slot.
+	 */
+	private long getCount(int slot) {
+
+		return getSlotPage(slot).getLong(getSlotOffset(slot) + COUNT);
+
+	}
+
+	/**
+	 * Gets the length of the word of a slot, or 0 if the slot is empty.
+	 */
+	private int getLength(int slot) {
+
+		return getSlotPage(slot).getInt(getSlotOffset(slot) + LENGTH);
+
+	}
+
+	/**
+	 * Creates a String with the word of a slot.
+	 */
+	private String getWord(int slot) {
+
+		long key = getSlotPage(slot).getLong(getSlotOffset(slot) + KEY);
+		byte[] word = new byte[getLength(slot)];
+		getKeyPage(key).get(getKeyOffset(key), word);
+
+		return new String(word, StandardCharsets.UTF_8);
+
+	}
+
+	/**
+	 * Gets the page that contains a slot.
+	 */
+	private ByteBuffer getSlotPage(int slot) {
+
+		return slotPages[slot >>> SLOT_PAGE_BITS];
+
+	}
+
+	/**
+	 * Gets the offset of a slot in its page.
+	 */
+	private static int getSlotOffset(int slot) {
+
+		return (slot & SLOT_PAGE_MASK) * SLOT_SIZE;
+
+	}
+
+	/**
+	 * Gets the page of the arena of a word address: its high 32 bits.
+	 */
+	private ByteBuffer getKeyPage(long key) {
+
+		return keyPages.get((int) (key >>> 32));
+
+	}
+
+	/**
+	 * Gets the offset in its page of a word address: its low 32 bits.
+	 */
+	private static int getKeyOffset(long key) {
+
+		return (int) key;
+
+	}
+
+	/**
+	 * Gets the address of a word just appended to the last page of the arena.
+	 */
+	private long getKey(int offset) {
+
+		return ((long) (keyPages.size() - 1) << 32) | offset;
+
+	}
+
+	/**
+	 * Gets the last page of the arena, adding a new one if there is no room for a word
+	 * of the given length. Every new page doubles the size of the previous one, up to
+	 * 64 MB, or takes the length of the word if it is longer.
+	 */
+	private ByteBuffer getKeysPage(int length) {
+
+		ByteBuffer keysPage = keyPages.get(keyPages.size() - 1);
+
+		if (keysPage.remaining() < length) {
+			int pageSize = (int) Math.min(MAX_KEYS_PAGE_SIZE, (long) keysPage.capacity() * 2);
+			keysPage = addKeysPage(Math.max(pageSize, length));
+		}
+
+		return keysPage;
+
+	}
+
+	/**
+	 * Adds a new page to the arena.
+	 */
+	private ByteBuffer addKeysPage(int pageSize) {
+
+		ByteBuffer keysPage = ByteBuffer.allocateDirect(pageSize);
+		keyPages.add(keysPage);
+		allocatedBytes += pageSize;
+
+		return keysPage;
+
+	}
+
+	/**
+	 * Allocates the pages of a table of the given capacity. Direct buffers are filled
+	 * with zeros, so all the slots are empty.
+	 */
+	private ByteBuffer[] allocateSlotPages(int capacity) {
+
+		int slotsPerPage = Math.min(capacity, 1 << SLOT_PAGE_BITS);
+		ByteBuffer[] pages = new ByteBuffer[capacity / slotsPerPage];
+
+		for (int i = 0; i < pages.length; i++) {
+			pages[i] = ByteBuffer.allocateDirect(slotsPerPage * SLOT_SIZE).order(ByteOrder.nativeOrder());
+			allocatedBytes += slotsPerPage * SLOT_SIZE;
+		}
+
+		return pages;
+
+	}
+
+	/**
+	 * Doubles the capacity of the table, and releases the previous pages.
+	 */
+	private void resize() {
+
+		if (capacity == MAX_CAPACITY) {
+			throw new IllegalStateException("The table can't hold more than " + (MAX_CAPACITY / 4 * 3) + " words.");
+		}
+
+		ByteBuffer[] oldPages = slotPages;
+		int oldCapacity = capacity;
+
+		capacity = oldCapacity * 2;
+		slotPages = allocateSlotPages(capacity);
+
+		int mask = capacity - 1;
+
+		for (int oldSlot = 0; oldSlot < oldCapacity; oldSlot++) {
+
+			ByteBuffer oldPage = oldPages[oldSlot >>> SLOT_PAGE_BITS];
+			int oldOffset = getSlotOffset(oldSlot);
+
+			if (oldPage.getInt(oldOffset + LENGTH) != 0) {
+
+				int slot = WordKeys.mix(oldPage.getInt(oldOffset + HASH)) & mask;
+				while (getLength(slot) != 0) {
+					slot = (slot + 1) & mask;
+				}
+
+				getSlotPage(slot).put(getSlotOffset(slot), oldPage, oldOffset, SLOT_SIZE);
+
+			}
+
+		}
+
+		for (ByteBuffer oldPage : oldPages) {
+			allocatedBytes -= oldPage.capacity();
+			Utils.free(oldPage);
+		}
+
+	}
+
+}
@@ -0,0 +1,446 @@
+package com.wordscounter.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ * Space-Saving summary: the most used words of a text, with approximate counts, in a
+ * fixed number of entries.
+ *
+ * <p>Words are counted exactly while there is room in the summary. When it is full, a
+ * new word replaces the word with the minimum count, and it takes that count plus its
+ * own occurrences. The minimum count becomes the error of the new word, as it is the
+ * most it can have been overestimated. So the count of a word is never less than its
+ * real count, and never exceeds it by more than its error. Every word used more than
+ * <i>totalCount / capacity</i> times is always in the summary.
+ *
+ * <p>The entries are kept in a min-heap by count, so the minimum is replaced and any
+ * count is incremented in logarithmic time. Words are looked up by their UTF-8 bytes
+ * and the hash computed by <i>WordTokenizer</i>, and a copy of the bytes is only made
+ * when a word enters the summary.
+ *
+ * <p>Two summaries are merged as described by Agarwal et al. in <i>Mergeable
+ * Summaries</i>: a word missing in one of them takes its minimum count, and only the
+ * entries with the highest counts are kept. A summary is not thread safe.
+ *
+ * @author Arekku
+ *
+ */
+public class SpaceSavingSummary {
+
+	// Attributes
+	private int capacity;
+	private int size;
+
+	private WordKey[] keys;
+	private long[] counts;
+	private long[] errors;
+
+	private int[] heap;
+	private int[] heapPositions;
+
+	private Map<WordKey, Integer> index;
+	private WordKey probe;
+
+
+	// Constructors
+	/**
+	 * Creates an empty SpaceSavingSummary.
+	 *
+	 * @param capacity the maximum number of words in the summary.
+	 */
+	public SpaceSavingSummary(int capacity) {
+
+		this.capacity = Math.max(1, capacity);
+
+		this.keys = new WordKey[this.capacity];
+		this.counts = new long[this.capacity];
+		this.errors = new long[this.capacity];
+
+		this.heap = new int[this.capacity];
+		this.heapPositions = new int[this.capacity];
+
+		this.index = new HashMap<WordKey, Integer>(this.capacity * 2);
+		this.probe = new WordKey();
+
+	}
+
+
+	// Getters
+	/**
+	 * Getter
+	 *
+	 * @return the maximum number of words in the summary.
+	 */
+	public int getCapacity() {
+		return capacity;
+	}
+	/**
+	 * Getter
+	 *
+	 * @return the number of words in the summary.
+	 */
+	public int size() {
+		return size;
+	}
+	/**
+	 * Getter
+	 *
+	 * @return the minimum count of the summary if it is full, or 0 if it is not. Any word
+	 *         missing in the summary is used this number of times at most.
+	 */
+	public long getMinCount() {
+		return size < capacity ? 0 : counts[heap[0]];
+	}
+	/**
+	 * Getter
+	 *
+	 * @param entry the index of an entry, from 0 to <i>size() - 1</i>.
+	 * @return the word of the entry.
+	 */
+	public String getWord(int entry) {
+		return keys[entry].toString();
+	}
+	/**
+	 * Getter
+	 *
+	 * @param entry the index of an entry, from 0 to <i>size() - 1</i>.
+	 * @return the hash of the word of the entry.
+	 */
+	public int getHash(int entry) {
+		return keys[entry].hash;
+	}
+	/**
+	 * Getter
+	 *
+	 * @param entry the index of an entry, from 0 to <i>size() - 1</i>.
+	 * @return the 64 bit hash of the UTF-8 bytes of the word of the entry, as given to a
+	 *         <i>CountMinSketch</i>.
+	 */
+	public long getHash64(int entry) {
+		return WordKeys.hash64(keys[entry].bytes, keys[entry].start, keys[entry].start + keys[entry].length);
+	}
+	/**
+	 * Getter
+	 *
+	 * @param entry the index of an entry, from 0 to <i>size() - 1</i>.
+	 * @return the count of the entry, never less than the real count of the word.
+	 */
+	public long getCount(int entry) {
+		return counts[entry];
+	}
+	/**
+	 * Getter
+	 *
+	 * @param entry the index of an entry, from 0 to <i>size() - 1</i>.
+	 * @return the maximum amount the count of the entry exceeds the real count.
+	 */
+	public long getError(int entry) {
+		return errors[entry];
+	}
+	/**
+	 * Getter
+	 *
+	 * @return the number of bytes taken by the summary, approximately.
+	 */
+	public long getMemoryUsage() {
+
+		long memory = (long) capacity * (8 + 8 + 4 + 4 + 4 + 64);
+		for (int entry = 0; entry < size; entry++) {
+			memory += keys[entry].length;
+		}
+
+		return memory;
+
+	}
+
+
+	// Public Methods
+	/**
+	 * Adds a number of occurrences of the word stored in a range of bytes.
+	 *
+	 * @param bytes the buffer that contains the UTF-8 bytes of the word.
+	 * @param start the index of the first byte of the word.
+	 * @param end the index after the last byte of the word.
+	 * @param hash the hash of the word.
+	 * @param count the number of occurrences to add.
+	 */
+	public void add(ByteBuffer bytes, int start, int end, int hash, long count) {
+
+		Integer entry = index.get(probe.set(bytes, start, end - start, hash));
+
+		if (entry != null) {
+			counts[entry] += count;
+			siftDown(heapPositions[entry]);
+		} else if (size < capacity) {
+			insert(probe.copy(), count, 0);
+		} else {
+			replaceMin(probe.copy(), count);
+		}
+
+	}
+
+	/**
+	 * Adds a number of occurrences of a word.
+	 *
+	 * @param word the word.
+	 * @param count the number of occurrences to add.
+	 */
+	public void add(String word, long count) {
+
+		ByteBuffer bytes = ByteBuffer.wrap(word.getBytes(StandardCharsets.UTF_8));
+
+		add(bytes, 0, bytes.limit(), WordTable.hash(bytes, 0, bytes.limit()), count);
+
+	}
+
+	/**
+	 * Gets the entry of a word.
+	 *
+	 * @param word the word.
+	 * @return the index of the entry of the word, or -1 if it is not in the summary.
+	 */
+	public int getEntry(String word) {
+
+		ByteBuffer bytes = ByteBuffer.wrap(word.getBytes(StandardCharsets.UTF_8));
+		Integer entry = index.get(probe.set(bytes, 0, bytes.limit(), WordTable.hash(bytes, 0, bytes.limit())));
+
+		return entry != null ? entry : -1;
+
+	}
+
+	/**
+	 * Merges another summary with the same capacity into this one.
+	 *
+	 * <p>The words of both summaries are added together. A word missing in one of them
+	 * takes its minimum count, as both its count and its error, so the counts are still
+	 * upper bounds. Then only the words with the highest counts are kept.
+	 *
+	 * @param other the summary to merge.
+	 */
+	public void addAll(SpaceSavingSummary other) {
+
+		long minCount = getMinCount();
+		long otherMinCount = other.getMinCount();
+
+		List<Integer> candidates = new ArrayList<Integer>(size + other.size);
+		WordKey[] mergedKeys = Arrays.copyOf(keys, size + other.size);
+		long[] mergedCounts = Arrays.copyOf(counts, size + other.size);
+		long[] mergedErrors = Arrays.copyOf(errors, size + other.size);
+		boolean[] found = new boolean[size];
+		int mergedSize = size;
+
+		for (int otherEntry = 0; otherEntry < other.size; otherEntry++) {
+
+			Integer entry = index.get(other.keys[otherEntry]);
+
+			if (entry != null) {
+				mergedCounts[entry] += other.counts[otherEntry];
+				mergedErrors[entry] += other.errors[otherEntry];
+				found[entry] = true;
+			} else {
+				mergedKeys[mergedSize] = other.keys[otherEntry];
+				mergedCounts[mergedSize] = other.counts[otherEntry] + minCount;
+				mergedErrors[mergedSize] = other.errors[otherEntry] + minCount;
+				mergedSize++;
+			}
+
+		}
+
+		for (int entry = 0; entry < mergedSize; entry++) {
+			if (entry < size && !found[entry]) {
+				mergedCounts[entry] += otherMinCount;
+				mergedErrors[entry] += otherMinCount;
+			}
+			candidates.add(entry);
+		}
+
+		candidates.sort((entry1, entry2) -> Long.compare(mergedCounts[entry2], mergedCounts[entry1]));
+
+		size = 0;
+		index.clear();
+
+		for (int entry : candidates.subList(0, Math.min(capacity, candidates.size()))) {
+			insert(mergedKeys[entry], mergedCounts[entry], mergedErrors[entry]);
+		}
+
+	}
+
+
+	// Private Methods
+	/**
+	 * Adds a new entry to the summary, which must not be full.
+	 */
+	private void insert(WordKey key, long count, long error) {
+
+		int entry = size++;
+
+		keys[entry] = key;
+		counts[entry] = count;
+		errors[entry] = error;
+		index.put(key, entry);
+
+		heap[entry] = entry;
+		heapPositions[entry] = entry;
+		siftUp(entry);
+
+	}
+
+	/**
+	 * Replaces the word with the minimum count with a new one.
+	 */
+	private void replaceMin(WordKey key, long count) {
+
+		int entry = heap[0];
+		long minCount = counts[entry];
+
+		index.remove(keys[entry]);
+
+		keys[entry] = key;
+		counts[entry] = minCount + count;
+		errors[entry] = minCount;
+		index.put(key, entry);
+
+		siftDown(0);
+
+	}
+
+	/**
+	 * Moves the entry at a position of the heap up, while its count is less than the
+	 * count of its parent.
+	 */
+	private void siftUp(int position) {
+
+		int entry = heap[position];
+
+		while (position > 0) {
+			int parent = (position - 1) / 2;
+			if (counts[heap[parent]] <= counts[entry]) {
+				break;
+			}
+			moveTo(heap[parent], position);
+			position = parent;
+		}
+
+		moveTo(entry, position);
+
+	}
+
+	/**
+	 * Moves the entry at a position of the heap down, while its count is greater than the
+	 * count of any of its children.
+	 */
+	private void siftDown(int position) {
+
+		int entry = heap[position];
+
+		while (true) {
+			int child = position * 2 + 1;
+			if (child >= size) {
+				break;
+			}
+			if (child + 1 < size && counts[heap[child + 1]] < counts[heap[child]]) {
+				child++;
+			}
+			if (counts[entry] <= counts[heap[child]]) {
+				break;
+			}
+			moveTo(heap[child], position);
+			position = child;
+		}
+
+		moveTo(entry, position);
+
+	}
+
+	/**
+	 * Puts an entry at a position of the heap.
+	 */
+	private void moveTo(int entry, int position) {
+
+		heap[position] = entry;
+		heapPositions[entry] = position;
+
+	}
+
+
+	// Private Classes
+	/**
+	 * Key of the index of words: a range of UTF-8 bytes and its hash. The same instance
+	 * is reused to look up the words, and copied when a word enters the summary.
+	 */
+	private static class WordKey {
+
+		private ByteBuffer bytes;
+		private int start;
+		private int length;
+		private int hash;
+
+		public WordKey set(ByteBuffer bytes, int start, int length, int hash) {
+
+			this.bytes = bytes;
+			this.start = start;
+			this.length = length;
+			this.hash = hash;
+
+			return this;
+
+		}
+
+		public WordKey copy() {
+
+			byte[] copy = new byte[length];
+			bytes.get(start, copy);
+
+			return new WordKey().set(ByteBuffer.wrap(copy), 0, length, hash);
+
+		}
+
+		@Override
+		public int hashCode() {
+
+			return hash;
+
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+
+			if (!(obj instanceof WordKey)) {
+				return false;
+			}
+
+			WordKey other = (WordKey) obj;
+			if (other.hash != hash || other.length != length) {
+				return false;
+			}
+
+			for (int i = 0; i < length; i++) {
+				if (bytes.get(start + i) != other.bytes.get(other.start + i)) {
+					return false;
+				}
+			}
+
+			return true;
+
+		}
+
+		@Override
+		public String toString() {
+
+			byte[] word = new byte[length];
+			bytes.get(start, word);
+
+			return new String(word, StandardCharsets.UTF_8);
+
+		}
+
+	}
+
+}
@@ -0,0 +1,572 @@
+package com.wordscounter.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.PriorityQueue;
+import java.util.function.ObjLongConsumer;
+
+import com.wordscounter.model.Frequency;
+import com.wordscounter.model.FrequencyMap;
+import com.wordscounter.model.OrderEnum;
+
+
+/**
+ * Store of words and counts that never takes more than a memory budget, spilling the
+ * words to disc when it is full.
+ *
+ * <p>The words are counted into a <i>WordTable</i>. When the table takes more memory
+ * than the budget, its words are written to a temporary file, sorted, as a run, and
+ * the table starts again empty. A word can be in many runs. When the results are
+ * requested, the runs are merged by reading many of them at the same time, always from
+ * the smallest word, so every word is found once with its total count and the merge
+ * only keeps one word per run in memory. The most and less used words are selected
+ * during the merge.
+ *
+ * <p>Every run read at the same time takes an open file and a buffer, from 8 kb to 64 kb,
+ * so the runs merged at once are limited by the memory budget, to 128 at most. When
+ * there are more runs, the first ones are merged into a bigger run, just enough of them
+ * to merge the rest at once, so the fewest words are written again.
+ *
+ * <p>The stores of many threads can be merged by taking their runs. The temporary files
+ * are deleted by {@link #release()}.
+ *
+ * <p>A store is not thread safe. Every thread must use its own instance.
+ *
+ * @author Arekku
+ *
+ */
+public class SpillingWordTable implements WordCountStore {
+
+	// Constants
+	private static final String RUN_FILE_PREFIX = "WordsCounter_run_";
+	private static final String RUN_FILE_SUFFIX = ".tmp";
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final int MIN_READ_BUFFER_SIZE = 8 * 1024;
+	private static final long MIN_MEMORY_BUDGET = 1024 * 1024;
+	private static final int MAX_MERGE_FAN_IN = 128;
+
+
+	// Attributes
+	private long memoryBudget;
+	private WordTable wordTable;
+	private List<Path> runs;
+	private long wordsNumber;
+
+	private int mergedSize;
+	private int topListsSize;
+	private List<Entry<String, Frequency>> mostUsedWords;
+	private List<Entry<String, Frequency>> lessUsedWords;
+
+
+	// Constructors
+	/**
+	 * Creates an empty SpillingWordTable.
+	 *
+	 * @param memoryBudget the maximum number of bytes the words in memory can take,
+	 *        approximately. It is never less than 1 MB.
+	 */
+	public SpillingWordTable(long memoryBudget) {
+
+		this.memoryBudget = Math.max(MIN_MEMORY_BUDGET, memoryBudget);
+		this.wordTable = new WordTable();
+		this.runs = new ArrayList<Path>();
+
+		this.mergedSize = -1;
+		this.topListsSize = -1;
+
+	}
+
+
+	// Getters
+	/**
+	 * Getter
+	 *
+	 * @return the number of runs written to disc.
+	 */
+	public int getRunsNumber() {
+		return runs.size();
+	}
+
+
+	// Public Methods
+	/**
+	 * Gets the number of distinct words counted. The runs are merged to find it, the
+	 * first time it is requested.
+	 *
+	 * @return the number of distinct words counted.
+	 */
+	public int size() {
+
+		if (mergedSize < 0 || wordTable.size() > 0) {
+			merge((word, count) -> {});
+		}
+
+		return mergedSize;
+
+	}
+
+	/**
+	 * Adds a number of occurrences of the word stored in a range of bytes.
+	 *
+	 * @param bytes the buffer that contains the UTF-8 bytes of the word.
+	 * @param start the index of the first byte of the word.
+	 * @param end the index after the last byte of the word.
+	 * @param hash the hash of the word.
+	 * @param count the number of occurrences to add.
+	 */
+	public void add(ByteBuffer bytes, int start, int end, int hash, long count) {
+
+		wordTable.add(bytes, start, end, hash, count);
+		wordsNumber += count;
+		checkMemoryBudget();
+
+	}
+
+	/**
+	 * Adds a number of occurrences of the ASCII word stored in a range of characters.
+	 *
+	 * @param text the text that contains the word. All its characters must be ASCII.
+	 * @param start the index of the first character of the word.
+	 * @param end the index after the last character of the word.
+	 * @param hash the hash of the word.
+	 * @param count the number of occurrences to add.
+	 */
+	public void addAscii(CharSequence text, int start, int end, int hash, long count) {
+
+		wordTable.addAscii(text, start, end, hash, count);
+		wordsNumber += count;
+		checkMemoryBudget();
+
+	}
+
+	/**
+	 * Adds a number of occurrences of a word.
+	 *
+	 * @param word the word.
+	 * @param count the number of occurrences to add.
+	 */
+	public void add(String word, long count) {
+
+		wordTable.add(word, count);
+		wordsNumber += count;
+		checkMemoryBudget();
+
+	}
+
+	/**
+	 * Takes all the words of another store. The other store is empty afterwards.
+	 *
+	 * @param other the store to add.
+	 */
+	public void addAll(SpillingWordTable other) {
+
+		other.spill();
+
+		runs.addAll(other.runs);
+		other.runs.clear();
+
+		wordsNumber += other.wordsNumber;
+		other.wordsNumber = 0;
+
+		resetResults();
+
+	}
+
+	/**
+	 * Gets the total number of occurrences of all the words counted, with no merge of
+	 * the runs.
+	 *
+	 * @return the number of occurrences.
+	 */
+	public long getWordsNumber() {
+
+		return wordsNumber;
+
+	}
+
+	/**
+	 * Calls the given action for every word counted and its total count, in the order
+	 * of <i>String.compareTo</i>. The runs are merged while the action is called, so the
+	 * words are never in memory at the same time.
+	 *
+	 * @param action the action to call.
+	 */
+	public void forEach(ObjLongConsumer<String> action) {
+
+		merge(action);
+
+	}
+
+	/**
+	 * Gets the first words counted in the given order.
+	 *
+	 * <p>The most and less used words are selected with heaps bounded to the given size
+	 * during a single merge of the runs, so the second list is returned without merging
+	 * them again.
+	 *
+	 * @param order DESC to get the most used words, or ASC to get the less used ones.
+	 * @param size the maximum number of entries to get.
+	 * @return the first entries, sorted in the given order.
+	 */
+	public List<Entry<String, Frequency>> getTopList(OrderEnum order, int size) {
+
+		if (topListsSize != size || wordTable.size() > 0) {
+
+			final BoundedHeap<Entry<String, Frequency>> mostUsed = new BoundedHeap<Entry<String, Frequency>>(size, FrequencyMap.getComparator(OrderEnum.DESC));
+			final BoundedHeap<Entry<String, Frequency>> lessUsed = new BoundedHeap<Entry<String, Frequency>>(size, FrequencyMap.getComparator(OrderEnum.ASC));
+
+			merge((word, count) -> {
+				Entry<String, Frequency> entry = new SimpleImmutableEntry<String, Frequency>(word, new Frequency(count));
+				mostUsed.offer(entry);
+				lessUsed.offer(entry);
+			});
+
+			mostUsedWords = mostUsed.toSortedList();
+			lessUsedWords = lessUsed.toSortedList();
+			topListsSize = size;
+
+		}
+
+		return order == OrderEnum.DESC ? mostUsedWords : lessUsedWords;
+
+	}
+
+	/**
+	 * Deletes the runs written to disc and forgets all the words counted.
+	 */
+	public void release() {
+
+		for (Path run : runs) {
+			deleteRun(run);
+		}
+
+		runs.clear();
+		wordTable = new WordTable();
+
+		resetResults();
+
+	}
+
+
+	// Private Methods
+	/**
+	 * Spills the table to disc if it takes more memory than the budget.
+	 */
+	private void checkMemoryBudget() {
+
+		if (wordTable.getMemoryUsage() > memoryBudget) {
+			spill();
+		}
+
+	}
+
+	/**
+	 * Writes the words of the table to a new run, sorted, and empties the table.
+	 */
+	private void spill() {
+
+		if (wordTable.size() == 0) {
+			return;
+		}
+
+		try {
+
+			Path run = Files.createTempFile(RUN_FILE_PREFIX, RUN_FILE_SUFFIX);
+			runs.add(run);
+
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), BUFFER_SIZE));
+
+			try {
+				out.writeInt(wordTable.size());
+				wordTable.writeSorted(out);
+			} finally {
+				out.close();
+			}
+
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+		wordTable = new WordTable();
+
+		resetResults();
+
+	}
+
+	/**
+	 * Merges all the runs, calling the given action for every word and its total count.
+	 * The words still in memory are spilled first, and the runs are merged by groups
+	 * while there are more than can be read at the same time.
+	 */
+	private void merge(final ObjLongConsumer<String> action) {
+
+		spill();
+
+		int fanIn = getMergeFanIn();
+
+		try {
+
+			while (runs.size() > fanIn) {
+				List<Path> group = runs.subList(0, Math.min(fanIn, runs.size() - fanIn + 1));
+				Path run = mergeToRun(group);
+				group.clear();
+				runs.add(run);
+			}
+
+			mergedSize = mergeRuns(runs, getReadBufferSize(runs.size()), (word, length, count) -> action.accept(new String(word, 0, length, StandardCharsets.UTF_8), count));
+
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+
+	}
+
+	/**
+	 * Merges the given runs into a new run, and deletes them. If the merge fails, the new
+	 * run is deleted and the given runs are kept.
+	 * @return the new run.
+	 */
+	private Path mergeToRun(List<Path> group) throws IOException {
+
+		Path run = Files.createTempFile(RUN_FILE_PREFIX, RUN_FILE_SUFFIX);
+		boolean merged = false;
+
+		try {
+
+			final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), BUFFER_SIZE));
+			int wordsNumber;
+
+			try {
+				// The number of words is written when it is known
+				out.writeInt(0);
+				wordsNumber = mergeRuns(group, getReadBufferSize(group.size()), (word, length, count) -> {
+					out.writeInt(length);
+					out.write(word, 0, length);
+					out.writeLong(count);
+				});
+			} finally {
+				out.close();
+			}
+
+			FileChannel channel = FileChannel.open(run, StandardOpenOption.WRITE);
+			try {
+				channel.write(ByteBuffer.allocate(Integer.BYTES).putInt(0, wordsNumber), 0);
+			} finally {
+				channel.close();
+			}
+
+			merged = true;
+
+		} finally {
+			if (!merged) {
+				deleteRun(run);
+			}
+		}
+
+		for (Path mergedRun : group) {
+			Files.deleteIfExists(mergedRun);
+		}
+
+		return run;
+
+	}
+
+	/**
+	 * Deletes a run, logging the error if it can't be deleted.
+	 */
+	private static void deleteRun(Path run) {
+
+		try {
+			Files.deleteIfExists(run);
+		} catch (IOException e) {
+			LogUtils.error("The run " + run + " can't be deleted: " + e);
+		}
+
+	}
+
+	/**
+	 * Merges the given runs, reading all of them at the same time, and calls the given
+	 * action for every word and its total count, in order.
+	 * @return the number of distinct words.
+	 */
+	private static int mergeRuns(List<Path> runs, int bufferSize, WordAction action) throws IOException {
+
+		PriorityQueue<RunReader> readers = new PriorityQueue<RunReader>(Math.max(1, runs.size()));
+		List<RunReader> openReaders = new ArrayList<RunReader>();
+
+		try {
+
+			for (Path run : runs) {
+				RunReader reader = new RunReader(run, bufferSize);
+				openReaders.add(reader);
+				if (reader.next()) {
+					readers.add(reader);
+				}
+			}
+
+			byte[] word = new byte[64];
+			int distinctWords = 0;
+
+			while (!readers.isEmpty()) {
+
+				RunReader reader = readers.poll();
+				if (reader.length > word.length) {
+					word = new byte[Math.max(reader.length, word.length * 2)];
+				}
+				int length = reader.length;
+				System.arraycopy(reader.word, 0, word, 0, length);
+				long count = reader.count;
+
+				if (reader.next()) {
+					readers.add(reader);
+				}
+
+				while (!readers.isEmpty() && readers.peek().compareTo(word, length) == 0) {
+					RunReader other = readers.poll();
+					count += other.count;
+					if (other.next()) {
+						readers.add(other);
+					}
+				}
+
+				action.accept(word, length, count);
+				distinctWords++;
+
+			}
+
+			return distinctWords;
+
+		} finally {
+			for (RunReader reader : openReaders) {
+				reader.close();
+			}
+		}
+
+	}
+
+	/**
+	 * Gets the number of runs that can be read at the same time, with a buffer each,
+	 * within the memory budget.
+	 */
+	private int getMergeFanIn() {
+
+		return (int) Math.min(MAX_MERGE_FAN_IN, Math.max(2, memoryBudget / MIN_READ_BUFFER_SIZE));
+
+	}
+
+	/**
+	 * Gets the size of the buffer of every run read at the same time, so all of them
+	 * take the memory budget at most.
+	 */
+	private int getReadBufferSize(int runsNumber) {
+
+		return (int) Math.min(BUFFER_SIZE, Math.max(MIN_READ_BUFFER_SIZE, memoryBudget / Math.max(1, runsNumber)));
+
+	}
+
+	/**
+	 * Forgets the results of the last merge, after the words change.
+	 */
+	private void resetResults() {
+
+		mergedSize = -1;
+		topListsSize = -1;
+		mostUsedWords = null;
+		lessUsedWords = null;
+
+	}
+
+
+	// Private Classes
+	/**
+	 * Reads the words of a run, one by one, in order. Readers are sorted by their
+	 * current word.
+	 */
+	private static class RunReader implements Comparable<RunReader> {
+
+		private DataInputStream in;
+		private int remaining;
+
+		private byte[] word;
+		private int length;
+		private long count;
+
+		public RunReader(Path run, int bufferSize) throws IOException {
+
+			this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(run), bufferSize));
+			this.remaining = in.readInt();
+			this.word = new byte[64];
+
+		}
+
+		/**
+		 * Reads the next word of the run.
+		 * @return false if there are no more words.
+		 */
+		public boolean next() throws IOException {
+
+			if (remaining == 0) {
+				return false;
+			}
+
+			length = in.readInt();
+			if (length > word.length) {
+				word = new byte[Math.max(length, word.length * 2)];
+			}
+			in.readFully(word, 0, length);
+			count = in.readLong();
+
+			remaining--;
+			return true;
+
+		}
+
+		public int compareTo(RunReader other) {
+
+			return Utils.compareUtf8(word, 0, length, other.word, 0, other.length);
+
+		}
+
+		public int compareTo(byte[] other, int otherLength) {
+
+			return Utils.compareUtf8(word, 0, length, other, 0, otherLength);
+
+		}
+
+		public void close() {
+
+			try {
+				in.close();
+			} catch (IOException e) {
+				LogUtils.error("A run can't be closed: " + e);
+			}
+
+		}
+
+	}
+
+	/**
+	 * Action called for every word of a merge, with its UTF-8 bytes and its total count.
+	 * The bytes are only valid during the call.
+	 */
+	private interface WordAction {
+
+		void accept(byte[] word, int length, long count) throws IOException;
+
+	}
+
+}
@@ -1,10 +1,15 @@
 package com.wordscounter.util;
 
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 import java.text.DecimalFormat;
 import java.text.NumberFormat;
+import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentMap;
 
@@ -13,6 +18,29 @@ import com.wordscounter.model.Frequency;
 
 public class Utils {
 
+	private static final Object UNSAFE;
+	private static final Method INVOKE_CLEANER;
+
+	static {
+
+		Object unsafe = null;
+		Method invokeCleaner = null;
+
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+			theUnsafe.setAccessible(true);
+			unsafe = theUnsafe.get(null);
+			invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+		} catch (ReflectiveOperationException | RuntimeException e) {
+			LogUtils.info("Direct buffers will be released by the garbage collector: " + e);
+		}
+
+		UNSAFE = unsafe;
+		INVOKE_CLEANER = invokeCleaner;
+
+	}
+
 	public static String formatTime(long time) {
 
 		NumberFormat formatter = new DecimalFormat("#0.000");
@@ -42,10 +70,13 @@ public class Utils {
 
 		List<Entry<String, Frequency>> topList = new LinkedList<Entry<String, Frequency>>();
 
-		for (int i = 1; i <= topWordsNumber; i++) {
+		ListIterator<Entry<String, Frequency>> it = list.listIterator(list.size());
+		int i = 0;
 
-			topList.add(list.get(list.size()-i));
+		while (it.hasPrevious() && i < topWordsNumber) {
 
+			topList.add(it.previous());
+			i++;
 		}
 
 		return topList;
@@ -54,19 +85,100 @@ public class Utils {
 
 	public static void countWords(String fileText, ConcurrentMap<String, Frequency> wordsMap) {
 
-		String[] fileWords = fileText.split("\\s+");
+		new WordTokenizer(wordsMap).countWords(fileText);
+
+	}
+
+	public static void mergeWords(Map<String, Frequency> target, Map<String, Frequency> source) {
 
-		for (String word : fileWords) {
+		for (Entry<String, Frequency> entry : source.entrySet()) {
 
-			Frequency freq = wordsMap.get(word);
+			Frequency freq = target.get(entry.getKey());
 			if (freq == null) {
-				wordsMap.put(word, new Frequency());
+				target.put(entry.getKey(), entry.getValue());
 			} else {
-				freq.incrementFrequency();
+				freq.addFrequency(entry.getValue().getCount());
+			}
+
+		}
+
+	}
+
+	/**
+	 * Compares two words stored as UTF-8 bytes in the same order as
+	 * <i>String.compareTo</i>, without decoding them.
+	 */
+	public static int compareUtf8(ByteBuffer bytes1, int start1, int length1, ByteBuffer bytes2, int start2, int length2) {
+
+		int length = Math.min(length1, length2);
+
+		for (int i = 0; i < length; i++) {
+
+			int b1 = bytes1.get(start1 + i) & 0xFF;
+			int b2 = bytes2.get(start2 + i) & 0xFF;
+
+			if (b1 != b2) {
+				return compareUtf8(b1, b2);
 			}
 
 		}
 
+		return length1 - length2;
+
+	}
+
+	/**
+	 * Compares two words stored as UTF-8 bytes in arrays in the same order as
+	 * <i>String.compareTo</i>, without decoding them.
+	 */
+	public static int compareUtf8(byte[] bytes1, int start1, int length1, byte[] bytes2, int start2, int length2) {
+
+		int i = Arrays.mismatch(bytes1, start1, start1 + length1, bytes2, start2, start2 + length2);
+
+		if (i < 0) {
+			return 0;
+		}
+		if (i == length1 || i == length2) {
+			return length1 - length2;
+		}
+
+		return compareUtf8(bytes1[start1 + i] & 0xFF, bytes2[start2 + i] & 0xFF);
+
+	}
+
+	/**
+	 * Compares the first UTF-8 bytes that differ in two words.
+	 */
+	private static int compareUtf8(int b1, int b2) {
+
+		// UTF-8 sorts by code point, but Strings sort by UTF-16 char, where the
+		// surrogates of U+10000 and above come before U+E000 to U+FFFF.
+		if (b1 >= 0xF0 && (b2 == 0xEE || b2 == 0xEF)) {
+			return -1;
+		}
+		if (b2 >= 0xF0 && (b1 == 0xEE || b1 == 0xEF)) {
+			return 1;
+		}
+
+		return b1 - b2;
+
+	}
+
+	/**
+	 * Releases the memory of a direct buffer now, if the JVM allows it. Otherwise it is
+	 * released by the garbage collector. The buffer, and any view of it, can't be used
+	 * afterwards.
+	 */
+	public static void free(ByteBuffer buffer) {
+
+		if (INVOKE_CLEANER != null) {
+			try {
+				INVOKE_CLEANER.invoke(UNSAFE, buffer);
+			} catch (ReflectiveOperationException e) {
+				LogUtils.error("The direct buffer can't be released: " + e);
+			}
+		}
+
 	}
 
 	public static boolean isNumeric(String str) {
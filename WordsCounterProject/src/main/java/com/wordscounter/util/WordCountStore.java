@@ -0,0 +1,50 @@
+package com.wordscounter.util;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * Storage of words and counts that <i>WordTokenizer</i> can count into, and that a
+ * <i>FrequencyMap</i> can hold instead of its own entries.
+ *
+ * <p>Words are identified by their UTF-8 bytes, and looked up with the hash computed by
+ * <i>WordTokenizer</i>, that is, <i>31 * hash + b</i> over their bytes. Empty words are
+ * ignored. The words and counts are read through {@link WordCountView}. Implementations
+ * are not required to be thread safe.
+ *
+ * @author Arekku
+ *
+ */
+public interface WordCountStore extends WordCountView {
+
+	/**
+	 * Adds a number of occurrences of the word stored in a range of bytes.
+	 *
+	 * @param bytes the buffer that contains the UTF-8 bytes of the word.
+	 * @param start the index of the first byte of the word.
+	 * @param end the index after the last byte of the word.
+	 * @param hash the hash of the word.
+	 * @param count the number of occurrences to add.
+	 */
+	void add(ByteBuffer bytes, int start, int end, int hash, long count);
+
+	/**
+	 * Adds a number of occurrences of the ASCII word stored in a range of characters.
+	 *
+	 * @param text the text that contains the word. All its characters must be ASCII.
+	 * @param start the index of the first character of the word.
+	 * @param end the index after the last character of the word.
+	 * @param hash the hash of the word.
+	 * @param count the number of occurrences to add.
+	 */
+	void addAscii(CharSequence text, int start, int end, int hash, long count);
+
+	/**
+	 * Adds a number of occurrences of a word.
+	 *
+	 * @param word the word.
+	 * @param count the number of occurrences to add.
+	 */
+	void add(String word, long count);
+
+}
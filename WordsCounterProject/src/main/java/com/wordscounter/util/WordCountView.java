@@ -0,0 +1,173 @@
+package com.wordscounter.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.ObjLongConsumer;
+
+import com.wordscounter.model.Frequency;
+import com.wordscounter.model.FrequencyMap;
+import com.wordscounter.model.OrderEnum;
+
+
+/**
+ * Read only view of words and their counts, that a <i>FrequencyMap</i> can hold instead
+ * of its own entries.
+ *
+ * <p>It gives the words, their counts and the most and less used of them, but no word can
+ * be added to it. The stores that words are counted into are <i>WordCountStore</i>s, and
+ * the ones that are only read, like a loaded <i>WordsSnapshot</i>, are views alone.
+ * Implementations are not required to be thread safe.
+ *
+ * @author Arekku
+ *
+ */
+public interface WordCountView {
+
+	/**
+	 * Gets the number of distinct words stored.
+	 *
+	 * @return the number of distinct words.
+	 */
+	int size();
+
+	/**
+	 * Gets the count of a word.
+	 *
+	 * <p>This implementation looks for the word in {@link #forEach(ObjLongConsumer)}, so
+	 * it creates a <i>String</i> for every word. Implementations should look it up.
+	 *
+	 * @param word the word.
+	 * @return the number of occurrences of the word, or 0 if it is not stored.
+	 */
+	default long getCount(String word) {
+
+		final long[] count = new long[1];
+		forEach((stored, storedCount) -> {
+			if (stored.equals(word)) {
+				count[0] = storedCount;
+			}
+		});
+
+		return count[0];
+
+	}
+
+	/**
+	 * Calls the given action for every word stored and its count.
+	 * A <i>String</i> is created for every word.
+	 *
+	 * @param action the action to call.
+	 */
+	void forEach(ObjLongConsumer<String> action);
+
+	/**
+	 * Calls the given action for every word stored, with its UTF-8 bytes, and its count.
+	 *
+	 * <p>This implementation encodes the words given by {@link #forEach(ObjLongConsumer)}.
+	 * Implementations should give the bytes they store, with no <i>String</i>.
+	 *
+	 * @param action the action to call.
+	 */
+	default void forEachBytes(WordBytesConsumer action) {
+
+		forEach((word, count) -> {
+			byte[] bytes = word.getBytes(StandardCharsets.UTF_8);
+			action.accept(ByteBuffer.wrap(bytes), 0, bytes.length, count);
+		});
+
+	}
+
+	/**
+	 * Checks if the store keeps every word added, so {@link #forEach(ObjLongConsumer)}
+	 * gives all of them. This implementation returns true.
+	 *
+	 * @return true if every word is kept, or false if only some of them, or none, are.
+	 */
+	default boolean keepsAllWords() {
+
+		return true;
+
+	}
+
+	/**
+	 * Gets the total number of occurrences of all the words stored.
+	 *
+	 * <p>This implementation adds the counts given by {@link #forEach(ObjLongConsumer)},
+	 * so it creates a <i>String</i> for every word. Implementations should add them up
+	 * without creating the words.
+	 *
+	 * @return the number of occurrences, or -1 if it is not known.
+	 */
+	default long getWordsNumber() {
+
+		final long[] wordsNumber = new long[1];
+		forEach((word, count) -> wordsNumber[0] += count);
+
+		return wordsNumber[0];
+
+	}
+
+	/**
+	 * Adds the counts of all the words stored to a map.
+	 *
+	 * @param wordsMap the map that will store the frequency of every word.
+	 */
+	default void copyTo(Map<String, Frequency> wordsMap) {
+
+		forEach((word, count) -> FrequencyMap.getFrequency(wordsMap, word).addFrequency(count));
+
+	}
+
+	/**
+	 * Gets the first words stored in the given order, like
+	 * {@link FrequencyMap#getTopList(OrderEnum, int)}.
+	 *
+	 * <p>This implementation creates a <i>String</i> for every word. Implementations
+	 * should only create the entries of the words selected.
+	 *
+	 * @param order DESC to get the most used words, or ASC to get the less used ones.
+	 * @param size the maximum number of entries to get.
+	 * @return the first entries, sorted in the given order.
+	 */
+	default List<Entry<String, Frequency>> getTopList(OrderEnum order, int size) {
+
+		BoundedHeap<Entry<String, Frequency>> heap = new BoundedHeap<Entry<String, Frequency>>(size, FrequencyMap.getComparator(order));
+
+		forEach((word, count) -> heap.offer(new SimpleImmutableEntry<String, Frequency>(word, new Frequency(count))));
+
+		return heap.toSortedList();
+
+	}
+
+	/**
+	 * Releases the memory held outside of the heap, if any. The store can't be used
+	 * afterwards. This implementation does nothing.
+	 */
+	default void release() {
+
+	}
+
+
+	/**
+	 * Action called for every word of a store, with its UTF-8 bytes and its count.
+	 */
+	interface WordBytesConsumer {
+
+		/**
+		 * Accepts a word and its count.
+		 *
+		 * @param bytes the buffer that contains the UTF-8 bytes of the word. They may
+		 *        change after the call, so they must be copied to be kept.
+		 * @param start the index of the first byte of the word.
+		 * @param end the index after the last byte of the word.
+		 * @param count the number of occurrences of the word.
+		 */
+		void accept(ByteBuffer bytes, int start, int end, long count);
+
+	}
+
+}
@@ -0,0 +1,348 @@
+package com.wordscounter.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+
+/**
+ * Dictionary that gives every word a dense integer ID, in the order the words are added.
+ *
+ * <p>The UTF-8 bytes of the words are appended to a single byte array, and the hash,
+ * offset and length of every word are stored at the index of its ID. The lookup table
+ * only stores <i>ID + 1</i> per slot, with linear probing, and it is never more than
+ * half full. IDs never change, so the count of every word can be kept in a plain
+ * <i>long[]</i> indexed by ID.
+ *
+ * <p>Words are looked up with the hash computed by <i>WordTokenizer</i>, like in
+ * <i>WordTable</i>. Empty words are ignored.
+ *
+ * <p>Looking up words is thread safe as long as no thread adds words at the same time.
+ * The dictionary can be saved to a file, one word per line, and loaded back with the
+ * same IDs.
+ *
+ * @author Arekku
+ *
+ */
+public class WordDictionary {
+
+	// Constants
+	private static final int DEFAULT_CAPACITY = 1024;
+	private static final int DEFAULT_KEYS_CAPACITY = 8 * 1024;
+
+
+	// Attributes
+	private int[] slots;
+
+	private int[] hashes;
+	private int[] keyOffsets;
+	private int[] keyLengths;
+	private int size;
+
+	private byte[] keys;
+	private int keysSize;
+
+
+	// Constructors
+	/**
+	 * Creates an empty WordDictionary.
+	 */
+	public WordDictionary() {
+
+		this(DEFAULT_CAPACITY);
+
+	}
+
+	/**
+	 * Creates an empty WordDictionary with room for the given number of words.
+	 *
+	 * @param expectedWords the number of words expected.
+	 */
+	public WordDictionary(int expectedWords) {
+
+		int capacity = Integer.highestOneBit(Math.max(16, expectedWords * 2)) << 1;
+
+		this.slots = new int[capacity];
+
+		this.hashes = new int[capacity / 2];
+		this.keyOffsets = new int[capacity / 2];
+		this.keyLengths = new int[capacity / 2];
+
+		this.keys = new byte[DEFAULT_KEYS_CAPACITY];
+
+	}
+
+
+	// Getters
+	/**
+	 * Getter
+	 *
+	 * @return the number of words in the dictionary, which is also the next ID.
+	 */
+	public int size() {
+		return size;
+	}
+
+
+	// Public Methods
+	/**
+	 * Gets the ID of the word stored in a range of bytes.
+	 *
+	 * @param bytes the buffer that contains the UTF-8 bytes of the word.
+	 * @param start the index of the first byte of the word.
+	 * @param end the index after the last byte of the word.
+	 * @param hash the hash of the word.
+	 * @return the ID of the word, or -1 if it is not in the dictionary.
+	 */
+	public int getId(ByteBuffer bytes, int start, int end, int hash) {
+
+		int length = end - start;
+		int mask = slots.length - 1;
+		int slot = WordKeys.mix(hash) & mask;
+
+		int id;
+		while ((id = slots[slot] - 1) >= 0) {
+			if (hashes[id] == hash && keyLengths[id] == length && WordKeys.matches(keys, keyOffsets[id], bytes, start, length)) {
+				return id;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		return -1;
+
+	}
+
+	/**
+	 * Gets the ID of the ASCII word stored in a range of characters.
+	 *
+	 * @param text the text that contains the word. All its characters must be ASCII.
+	 * @param start the index of the first character of the word.
+	 * @param end the index after the last character of the word.
+	 * @param hash the hash of the word.
+	 * @return the ID of the word, or -1 if it is not in the dictionary.
+	 */
+	public int getIdAscii(CharSequence text, int start, int end, int hash) {
+
+		int length = end - start;
+		int mask = slots.length - 1;
+		int slot = WordKeys.mix(hash) & mask;
+
+		int id;
+		while ((id = slots[slot] - 1) >= 0) {
+			if (hashes[id] == hash && keyLengths[id] == length && WordKeys.matches(keys, keyOffsets[id], text, start, length)) {
+				return id;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		return -1;
+
+	}
+
+	/**
+	 * Gets the ID of a word.
+	 *
+	 * @param word the word.
+	 * @return the ID of the word, or -1 if it is not in the dictionary.
+	 */
+	public int getId(String word) {
+
+		ByteBuffer bytes = ByteBuffer.wrap(word.getBytes(StandardCharsets.UTF_8));
+
+		return getId(bytes, 0, bytes.limit(), WordTable.hash(bytes, 0, bytes.limit()));
+
+	}
+
+	/**
+	 * Adds a word to the dictionary, if it is not present yet.
+	 *
+	 * @param bytes the buffer that contains the UTF-8 bytes of the word.
+	 * @param start the index of the first byte of the word.
+	 * @param end the index after the last byte of the word.
+	 * @param hash the hash of the word.
+	 * @return the ID of the word, or -1 if the word is empty.
+	 */
+	public int add(ByteBuffer bytes, int start, int end, int hash) {
+
+		int length = end - start;
+		if (length == 0) {
+			return -1;
+		}
+
+		int mask = slots.length - 1;
+		int slot = WordKeys.mix(hash) & mask;
+
+		int id;
+		while ((id = slots[slot] - 1) >= 0) {
+			if (hashes[id] == hash && keyLengths[id] == length && WordKeys.matches(keys, keyOffsets[id], bytes, start, length)) {
+				return id;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		ensureKeysCapacity(length);
+		bytes.get(start, keys, keysSize, length);
+
+		id = size++;
+		hashes[id] = hash;
+		keyOffsets[id] = keysSize;
+		keyLengths[id] = length;
+		slots[slot] = id + 1;
+
+		keysSize += length;
+
+		if (size == hashes.length) {
+			resize();
+		}
+
+		return id;
+
+	}
+
+	/**
+	 * Adds a word to the dictionary, if it is not present yet.
+	 *
+	 * @param word the word.
+	 * @return the ID of the word, or -1 if the word is empty.
+	 */
+	public int add(String word) {
+
+		ByteBuffer bytes = ByteBuffer.wrap(word.getBytes(StandardCharsets.UTF_8));
+
+		return add(bytes, 0, bytes.limit(), WordTable.hash(bytes, 0, bytes.limit()));
+
+	}
+
+	/**
+	 * Gets the word of an ID.
+	 *
+	 * @param id the ID of the word.
+	 * @return the word.
+	 */
+	public String getWord(int id) {
+
+		return new String(keys, keyOffsets[id], keyLengths[id], StandardCharsets.UTF_8);
+
+	}
+
+	/**
+	 * Compares the words of two IDs in the same order as <i>String.compareTo</i>, without
+	 * creating any <i>String</i>.
+	 *
+	 * @param id1 the ID of the first word.
+	 * @param id2 the ID of the second word.
+	 * @return a negative number, zero or a positive number if the first word is less
+	 *         than, equal to or greater than the second one.
+	 */
+	public int compareWords(int id1, int id2) {
+
+		ByteBuffer bytes = ByteBuffer.wrap(keys);
+
+		return Utils.compareUtf8(bytes, keyOffsets[id1], keyLengths[id1], bytes, keyOffsets[id2], keyLengths[id2]);
+
+	}
+
+	/**
+	 * Saves the words of the dictionary to a file, one word per line, in order of ID.
+	 *
+	 * @param path the path of the file.
+	 * @throws IOException if the file can't be written.
+	 */
+	public void save(String path) throws IOException {
+
+		ByteBuffer bytes = ByteBuffer.allocate(keysSize + size);
+		for (int id = 0; id < size; id++) {
+			bytes.put(keys, keyOffsets[id], keyLengths[id]).put((byte) '\n');
+		}
+		bytes.flip();
+
+		FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+		try {
+			while (bytes.hasRemaining()) {
+				channel.write(bytes);
+			}
+		} finally {
+			channel.close();
+		}
+
+	}
+
+	/**
+	 * Loads a dictionary saved with {@link #save(String)}. Every word gets the ID it had
+	 * when it was saved.
+	 *
+	 * @param path the path of the file.
+	 * @return the dictionary.
+	 * @throws IOException if the file can't be read.
+	 */
+	public static WordDictionary load(String path) throws IOException {
+
+		ByteBuffer bytes = FileUtils.readBytes(path);
+		WordDictionary dictionary = new WordDictionary();
+
+		int length = bytes.limit();
+		int i = 0;
+
+		while (i < length) {
+
+			int start = i;
+			while (i < length && !WordTokenizer.isWhitespace(bytes.get(i))) {
+				i++;
+			}
+
+			dictionary.add(bytes, start, i, WordTable.hash(bytes, start, i));
+			i++;
+
+		}
+
+		return dictionary;
+
+	}
+
+
+	// Private Methods
+	/**
+	 * Makes room in the keys for a word of the given length.
+	 */
+	private void ensureKeysCapacity(int length) {
+
+		if (keysSize + length > keys.length) {
+			long capacity = Math.max((long) keys.length * 2, (long) keysSize + length);
+			if (capacity > FileUtils.MAX_READ_SIZE) {
+				throw new IllegalStateException("The words of the dictionary exceed " + FileUtils.MAX_READ_SIZE + " bytes.");
+			}
+			keys = Arrays.copyOf(keys, (int) capacity);
+		}
+
+	}
+
+	/**
+	 * Doubles the capacity of the dictionary. The IDs don't change.
+	 */
+	private void resize() {
+
+		int capacity = slots.length * 2;
+		slots = new int[capacity];
+
+		hashes = Arrays.copyOf(hashes, capacity / 2);
+		keyOffsets = Arrays.copyOf(keyOffsets, capacity / 2);
+		keyLengths = Arrays.copyOf(keyLengths, capacity / 2);
+
+		int mask = capacity - 1;
+
+		for (int id = 0; id < size; id++) {
+			int slot = WordKeys.mix(hashes[id]) & mask;
+			while (slots[slot] != 0) {
+				slot = (slot + 1) & mask;
+			}
+			slots[slot] = id + 1;
+		}
+
+	}
+
+}
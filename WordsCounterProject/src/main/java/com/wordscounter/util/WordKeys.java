@@ -0,0 +1,158 @@
+package com.wordscounter.util;
+
+import java.nio.ByteBuffer;
+
+
+/**
+ * Helpers shared by the hash tables and the sketches of words: the mix of the hashes into
+ * slots, the checks of the words stored as UTF-8 bytes against the words looked up, and
+ * a 64 bit hash of the bytes of a word.
+ *
+ * <p>The 32 bit hash of <i>WordTable</i> is a polynomial, so many short words share it,
+ * like "Aa" and "BB". That only costs a comparison in a table, but a sketch can't tell
+ * such words apart, so the sketches hash the bytes again with {@link #hash64}.
+ *
+ * @author Arekku
+ *
+ */
+final class WordKeys {
+
+	// Methods
+	/**
+	 * Spreads the bits of a hash, so similar words don't collide in the low bits.
+	 */
+	static int mix(int hash) {
+
+		int h = hash * 0x9E3779B9;
+		return h ^ (h >>> 16);
+
+	}
+
+	/**
+	 * Computes a 64 bit hash of the UTF-8 bytes of a word. The bytes are taken 8 at a time,
+	 * and every block is mixed before it is added, so all the bits of the hash depend on
+	 * all the bytes.
+	 */
+	static long hash64(ByteBuffer bytes, int start, int end) {
+
+		long h = (end - start) * 0x9E3779B97F4A7C15L;
+		long block = 0;
+
+		for (int i = start; i < end; i++) {
+			block = block << 8 | (bytes.get(i) & 0xFF);
+			if (((i - start) & 7) == 7) {
+				h = addBlock(h, block);
+				block = 0;
+			}
+		}
+
+		return mix64(h ^ mix64(block));
+
+	}
+
+	/**
+	 * Computes the 64 bit hash of an ASCII word stored in a range of characters, the
+	 * same as the one of its bytes.
+	 */
+	static long hash64(CharSequence text, int start, int end) {
+
+		long h = (end - start) * 0x9E3779B97F4A7C15L;
+		long block = 0;
+
+		for (int i = start; i < end; i++) {
+			block = block << 8 | (text.charAt(i) & 0xFF);
+			if (((i - start) & 7) == 7) {
+				h = addBlock(h, block);
+				block = 0;
+			}
+		}
+
+		return mix64(h ^ mix64(block));
+
+	}
+
+	/**
+	 * Adds a block of 8 bytes to a 64 bit hash.
+	 */
+	private static long addBlock(long h, long block) {
+
+		return Long.rotateLeft(h ^ mix64(block), 29) * 0x9E3779B97F4A7C15L;
+
+	}
+
+	/**
+	 * Spreads the bits of a 64 bit value, with the finalizer of SplitMix64.
+	 */
+	static long mix64(long value) {
+
+		long h = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+		h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+		return h ^ (h >>> 31);
+
+	}
+
+	/**
+	 * Checks if the word stored at an offset of an array of keys is equal to a range of
+	 * bytes.
+	 */
+	static boolean matches(byte[] keys, int offset, ByteBuffer bytes, int start, int length) {
+
+		for (int i = 0; i < length; i++) {
+			if (keys[offset + i] != bytes.get(start + i)) {
+				return false;
+			}
+		}
+
+		return true;
+
+	}
+
+	/**
+	 * Checks if the word stored at an offset of an array of keys is equal to a range of
+	 * ASCII characters.
+	 */
+	static boolean matches(byte[] keys, int offset, CharSequence text, int start, int length) {
+
+		for (int i = 0; i < length; i++) {
+			if (keys[offset + i] != text.charAt(start + i)) {
+				return false;
+			}
+		}
+
+		return true;
+
+	}
+
+	/**
+	 * Checks if the word stored at an offset of a buffer of keys is equal to a range of
+	 * bytes.
+	 */
+	static boolean matches(ByteBuffer keys, int offset, ByteBuffer bytes, int start, int length) {
+
+		for (int i = 0; i < length; i++) {
+			if (keys.get(offset + i) != bytes.get(start + i)) {
+				return false;
+			}
+		}
+
+		return true;
+
+	}
+
+	/**
+	 * Checks if the word stored at an offset of a buffer of keys is equal to a range of
+	 * ASCII characters.
+	 */
+	static boolean matches(ByteBuffer keys, int offset, CharSequence text, int start, int length) {
+
+		for (int i = 0; i < length; i++) {
+			if (keys.get(offset + i) != text.charAt(start + i)) {
+				return false;
+			}
+		}
+
+		return true;
+
+	}
+
+}
@@ -0,0 +1,444 @@
+package com.wordscounter.util;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.ObjLongConsumer;
+
+
+/**
+ * Hash table of words and counts made only of primitive arrays.
+ *
+ * <p>The UTF-8 bytes of the words are appended to a single byte array, and every slot of
+ * the table is described by its hash, the offset and length of its word, and its count,
+ * in four parallel arrays. Collisions are solved with linear probing, and the capacity
+ * is always a power of two. There is no object per word, so lookups don't chase pointers
+ * and a word takes 30 to 50 bytes plus its characters, instead of the 100+ bytes of a
+ * <i>String</i> key and a <i>Frequency</i> value in a <i>ConcurrentHashMap</i>.
+ *
+ * <p>Words are looked up with the hash computed by <i>WordTokenizer</i>, that is,
+ * <i>31 * hash + b</i> over their UTF-8 bytes. Empty words are ignored.
+ *
+ * <p>A table is not thread safe. It is meant for single thread and per thread counting,
+ * and <i>Strings</i> are only created when the results are copied to a map.
+ *
+ * @author Arekku
+ *
+ */
+public class WordTable implements WordCountStore {
+
+	// Constants
+	private static final int DEFAULT_CAPACITY = 1024;
+	private static final int MAX_CAPACITY = 1 << 30;
+	private static final int DEFAULT_KEYS_CAPACITY = 8 * 1024;
+
+
+	// Attributes
+	private int[] hashes;
+	private int[] keyOffsets;
+	private int[] keyLengths;
+	private long[] counts;
+	private int size;
+
+	private byte[] keys;
+	private int keysSize;
+
+
+	// Constructors
+	/**
+	 * Creates an empty WordTable.
+	 */
+	public WordTable() {
+
+		this(DEFAULT_CAPACITY);
+
+	}
+
+	/**
+	 * Creates an empty WordTable with room for the given number of words.
+	 *
+	 * @param expectedWords the number of words expected.
+	 */
+	public WordTable(int expectedWords) {
+
+		long minCapacity = Math.min(MAX_CAPACITY, Math.max(16, (long) expectedWords * 4 / 3));
+		int capacity = Integer.highestOneBit((int) minCapacity - 1) << 1;
+
+		this.hashes = new int[capacity];
+		this.keyOffsets = new int[capacity];
+		this.keyLengths = new int[capacity];
+		this.counts = new long[capacity];
+
+		this.keys = new byte[DEFAULT_KEYS_CAPACITY];
+
+	}
+
+
+	// Getters
+	/**
+	 * Getter
+	 *
+	 * @return the number of distinct words in the table.
+	 */
+	public int size() {
+		return size;
+	}
+	/**
+	 * Getter
+	 *
+	 * @return the number of bytes taken by the arrays of the table.
+	 */
+	public long getMemoryUsage() {
+		return (long) hashes.length * 12 + (long) counts.length * 8 + keys.length;
+	}
+
+
+	// Public Methods
+	/**
+	 * Adds a number of occurrences of the word stored in a range of bytes.
+	 *
+	 * @param bytes the buffer that contains the UTF-8 bytes of the word.
+	 * @param start the index of the first byte of the word.
+	 * @param end the index after the last byte of the word.
+	 * @param hash the hash of the word.
+	 * @param count the number of occurrences to add.
+	 */
+	public void add(ByteBuffer bytes, int start, int end, int hash, long count) {
+
+		int length = end - start;
+		if (length == 0) {
+			return;
+		}
+
+		int mask = hashes.length - 1;
+		int slot = WordKeys.mix(hash) & mask;
+
+		while (keyLengths[slot] != 0) {
+			if (hashes[slot] == hash && keyLengths[slot] == length && WordKeys.matches(keys, keyOffsets[slot], bytes, start, length)) {
+				counts[slot] += count;
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		ensureKeysCapacity(length);
+		bytes.get(start, keys, keysSize, length);
+
+		insert(slot, hash, length, count);
+
+	}
+
+	/**
+	 * Adds a number of occurrences of the ASCII word stored in a range of characters.
+	 *
+	 * @param text the text that contains the word. All its characters must be ASCII.
+	 * @param start the index of the first character of the word.
+	 * @param end the index after the last character of the word.
+	 * @param hash the hash of the word.
+	 * @param count the number of occurrences to add.
+	 */
+	public void addAscii(CharSequence text, int start, int end, int hash, long count) {
+
+		int length = end - start;
+		if (length == 0) {
+			return;
+		}
+
+		int mask = hashes.length - 1;
+		int slot = WordKeys.mix(hash) & mask;
+
+		while (keyLengths[slot] != 0) {
+			if (hashes[slot] == hash && keyLengths[slot] == length && WordKeys.matches(keys, keyOffsets[slot], text, start, length)) {
+				counts[slot] += count;
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		ensureKeysCapacity(length);
+		for (int i = 0; i < length; i++) {
+			keys[keysSize + i] = (byte) text.charAt(start + i);
+		}
+
+		insert(slot, hash, length, count);
+
+	}
+
+	/**
+	 * Adds a number of occurrences of a word.
+	 *
+	 * @param word the word.
+	 * @param count the number of occurrences to add.
+	 */
+	public void add(String word, long count) {
+
+		ByteBuffer bytes = ByteBuffer.wrap(word.getBytes(StandardCharsets.UTF_8));
+
+		add(bytes, 0, bytes.limit(), hash(bytes, 0, bytes.limit()), count);
+
+	}
+
+	/**
+	 * Adds the counts of all the words of another table to this one.
+	 *
+	 * @param other the table to add.
+	 */
+	public void addAll(WordTable other) {
+
+		ByteBuffer otherKeys = ByteBuffer.wrap(other.keys);
+
+		for (int slot = 0; slot < other.keyLengths.length; slot++) {
+			if (other.keyLengths[slot] != 0) {
+				int start = other.keyOffsets[slot];
+				add(otherKeys, start, start + other.keyLengths[slot], other.hashes[slot], other.counts[slot]);
+			}
+		}
+
+	}
+
+	/**
+	 * Subtracts the counts of all the words of another table from this one. The words
+	 * whose count drops to 0 are removed, rebuilding the table without them.
+	 *
+	 * @param other the table to subtract. Its words that are not in this table are
+	 *        ignored.
+	 */
+	public void subtractAll(WordTable other) {
+
+		int mask = hashes.length - 1;
+		boolean emptyWords = false;
+
+		for (int otherSlot = 0; otherSlot < other.keyLengths.length; otherSlot++) {
+
+			int length = other.keyLengths[otherSlot];
+			if (length == 0) {
+				continue;
+			}
+
+			int hash = other.hashes[otherSlot];
+			int slot = WordKeys.mix(hash) & mask;
+
+			while (keyLengths[slot] != 0) {
+				if (hashes[slot] == hash && keyLengths[slot] == length
+						&& Arrays.equals(keys, keyOffsets[slot], keyOffsets[slot] + length, other.keys, other.keyOffsets[otherSlot], other.keyOffsets[otherSlot] + length)) {
+					counts[slot] -= other.counts[otherSlot];
+					emptyWords |= counts[slot] <= 0;
+					break;
+				}
+				slot = (slot + 1) & mask;
+			}
+
+		}
+
+		if (emptyWords) {
+			removeEmptyWords();
+		}
+
+	}
+
+	/**
+	 * Gets the count of a word.
+	 *
+	 * @param word the word.
+	 * @return the number of occurrences of the word, or 0 if it is not in the table.
+	 */
+	public long getCount(String word) {
+
+		ByteBuffer bytes = ByteBuffer.wrap(word.getBytes(StandardCharsets.UTF_8));
+		int length = bytes.limit();
+		int hash = hash(bytes, 0, length);
+
+		int mask = hashes.length - 1;
+		int slot = WordKeys.mix(hash) & mask;
+
+		while (keyLengths[slot] != 0) {
+			if (hashes[slot] == hash && keyLengths[slot] == length && WordKeys.matches(keys, keyOffsets[slot], bytes, 0, length)) {
+				return counts[slot];
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		return 0;
+
+	}
+
+	/**
+	 * Calls the given action for every word of the table and its count.
+	 * A <i>String</i> is created for every word.
+	 *
+	 * @param action the action to call.
+	 */
+	public void forEach(ObjLongConsumer<String> action) {
+
+		for (int slot = 0; slot < keyLengths.length; slot++) {
+			if (keyLengths[slot] != 0) {
+				action.accept(new String(keys, keyOffsets[slot], keyLengths[slot], StandardCharsets.UTF_8), counts[slot]);
+			}
+		}
+
+	}
+
+	/**
+	 * Calls the given action for every word of the table, with its UTF-8 bytes in place,
+	 * and its count.
+	 *
+	 * @param action the action to call.
+	 */
+	public void forEachBytes(WordBytesConsumer action) {
+
+		ByteBuffer bytes = ByteBuffer.wrap(keys);
+
+		for (int slot = 0; slot < keyLengths.length; slot++) {
+			if (keyLengths[slot] != 0) {
+				action.accept(bytes, keyOffsets[slot], keyOffsets[slot] + keyLengths[slot], counts[slot]);
+			}
+		}
+
+	}
+
+	/**
+	 * Writes all the words of the table and their counts to a stream, sorted by word in
+	 * the order of <i>String.compareTo</i>. Every word is written as its length in bytes,
+	 * its UTF-8 bytes and its count.
+	 *
+	 * @param out the stream to write to.
+	 * @throws IOException if the stream can't be written.
+	 */
+	public void writeSorted(DataOutput out) throws IOException {
+
+		final ByteBuffer bytes = ByteBuffer.wrap(keys);
+		Integer[] slots = new Integer[size];
+
+		int i = 0;
+		for (int slot = 0; slot < keyLengths.length; slot++) {
+			if (keyLengths[slot] != 0) {
+				slots[i++] = slot;
+			}
+		}
+
+		Arrays.sort(slots, (slot1, slot2) -> Utils.compareUtf8(bytes, keyOffsets[slot1], keyLengths[slot1], bytes, keyOffsets[slot2], keyLengths[slot2]));
+
+		for (int slot : slots) {
+			out.writeInt(keyLengths[slot]);
+			out.write(keys, keyOffsets[slot], keyLengths[slot]);
+			out.writeLong(counts[slot]);
+		}
+
+	}
+
+	/**
+	 * Computes the hash of a word stored in a range of UTF-8 bytes.
+	 *
+	 * @param bytes the buffer that contains the word.
+	 * @param start the index of the first byte of the word.
+	 * @param end the index after the last byte of the word.
+	 * @return the hash of the word.
+	 */
+	public static int hash(ByteBuffer bytes, int start, int end) {
+
+		int hash = 0;
+		for (int i = start; i < end; i++) {
+			hash = 31 * hash + bytes.get(i);
+		}
+
+		return hash;
+
+	}
+
+
+	// Private Methods
+	/**
+	 * Fills an empty slot with the word just appended to the keys.
+	 */
+	private void insert(int slot, int hash, int length, long count) {
+
+		hashes[slot] = hash;
+		keyOffsets[slot] = keysSize;
+		keyLengths[slot] = length;
+		counts[slot] = count;
+
+		keysSize += length;
+
+		if ((long) ++size * 4 > (long) hashes.length * 3) {
+			resize();
+		}
+
+	}
+
+	/**
+	 * Makes room in the keys for a word of the given length.
+	 */
+	private void ensureKeysCapacity(int length) {
+
+		if (keysSize + length > keys.length) {
+			long capacity = Math.max((long) keys.length * 2, (long) keysSize + length);
+			if (capacity > FileUtils.MAX_READ_SIZE) {
+				throw new IllegalStateException("The words of the table exceed " + FileUtils.MAX_READ_SIZE + " bytes.");
+			}
+			keys = Arrays.copyOf(keys, (int) capacity);
+		}
+
+	}
+
+	/**
+	 * Doubles the capacity of the table.
+	 */
+	private void resize() {
+
+		int[] oldHashes = hashes;
+		int[] oldKeyOffsets = keyOffsets;
+		int[] oldKeyLengths = keyLengths;
+		long[] oldCounts = counts;
+
+		int capacity = oldHashes.length * 2;
+		hashes = new int[capacity];
+		keyOffsets = new int[capacity];
+		keyLengths = new int[capacity];
+		counts = new long[capacity];
+
+		int mask = capacity - 1;
+
+		for (int i = 0; i < oldHashes.length; i++) {
+			if (oldKeyLengths[i] != 0) {
+				int slot = WordKeys.mix(oldHashes[i]) & mask;
+				while (keyLengths[slot] != 0) {
+					slot = (slot + 1) & mask;
+				}
+				hashes[slot] = oldHashes[i];
+				keyOffsets[slot] = oldKeyOffsets[i];
+				keyLengths[slot] = oldKeyLengths[i];
+				counts[slot] = oldCounts[i];
+			}
+		}
+
+	}
+
+	/**
+	 * Rebuilds the table with the words whose count is greater than 0 only.
+	 */
+	private void removeEmptyWords() {
+
+		WordTable table = new WordTable(size);
+		ByteBuffer bytes = ByteBuffer.wrap(keys);
+
+		for (int slot = 0; slot < keyLengths.length; slot++) {
+			if (keyLengths[slot] != 0 && counts[slot] > 0) {
+				int start = keyOffsets[slot];
+				table.add(bytes, start, start + keyLengths[slot], hashes[slot], counts[slot]);
+			}
+		}
+
+		hashes = table.hashes;
+		keyOffsets = table.keyOffsets;
+		keyLengths = table.keyLengths;
+		counts = table.counts;
+		size = table.size;
+
+		keys = table.keys;
+		keysSize = table.keysSize;
+
+	}
+
+}
@@ -0,0 +1,374 @@
+package com.wordscounter.util;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+import com.wordscounter.model.Frequency;
+import com.wordscounter.model.FrequencyMap;
+
+
+/**
+ * Splits a text into whitespace separated words and counts them into a map or a
+ * <i>WordCountStore</i>.
+ *
+ * <p>It scans the text once, either as characters or as UTF-8 bytes, hashing every
+ * word in place. When it counts into a map, it keeps a local table with the words
+ * already seen, so a <i>String</i> is only created the first time a word enters the map.
+ * When it counts into a <i>WordCountStore</i>, no <i>String</i> is created at all. Words
+ * are separated by the same characters matched by the regular expression <i>\s</i>.
+ *
+ * <p>A tokenizer is not thread safe. Every thread must use its own instance, but many
+ * tokenizers can count into the same <i>ConcurrentMap</i> at the same time.
+ *
+ * @author Arekku
+ *
+ */
+public class WordTokenizer {
+
+	// Constants
+	private static final int INITIAL_CAPACITY = 1024;
+
+
+	// Attributes
+	private Map<String, Frequency> wordsMap;
+	private WordCountStore store;
+
+	private String[] words;
+	private Frequency[] frequencies;
+	private int[] hashes;
+	private int size;
+
+	private long wordsNumber;
+
+
+	// Constructors
+	/**
+	 * Creates a WordTokenizer that counts the words into the given map.
+	 *
+	 * @param wordsMap the map that will store the frequency of every word.
+	 */
+	public WordTokenizer(Map<String, Frequency> wordsMap) {
+
+		this.wordsMap = wordsMap;
+
+		this.words = new String[INITIAL_CAPACITY];
+		this.frequencies = new Frequency[INITIAL_CAPACITY];
+		this.hashes = new int[INITIAL_CAPACITY];
+
+	}
+
+	/**
+	 * Creates a WordTokenizer that counts the words into the given store.
+	 *
+	 * @param store the store that will keep the count of every word.
+	 */
+	public WordTokenizer(WordCountStore store) {
+
+		this.store = store;
+
+	}
+
+
+	// Public Methods
+	/**
+	 * Counts the frequency of every word present in the given text.
+	 *
+	 * @param text the text to parse.
+	 */
+	public void countWords(CharSequence text) {
+
+		int length = text.length();
+		int i = 0;
+
+		while (i < length) {
+
+			while (i < length && isWhitespace(text.charAt(i))) {
+				i++;
+			}
+
+			if (i == length) {
+				break;
+			}
+
+			int start = i;
+			int hash = 0;
+			boolean ascii = true;
+
+			while (i < length) {
+				char c = text.charAt(i);
+				if (isWhitespace(c)) {
+					break;
+				}
+				hash = 31 * hash + c;
+				ascii &= c < 0x80;
+				i++;
+			}
+
+			wordsNumber++;
+
+			if (store != null) {
+				if (ascii) {
+					store.addAscii(text, start, i, hash, 1);
+				} else {
+					store.add(text.subSequence(start, i).toString(), 1);
+				}
+			} else {
+				countWord(text, start, i, hash, 1);
+			}
+
+		}
+
+	}
+
+	/**
+	 * Counts the frequency of every word present in the given bytes, from the position
+	 * to the limit of the buffer, without changing them.
+	 *
+	 * <p>The bytes must be encoded in UTF-8. Words made only of ASCII characters are
+	 * hashed and looked up in place. Other words are decoded before the lookup.
+	 *
+	 * @param bytes the text to parse.
+	 */
+	public void countWords(ByteBuffer bytes) {
+
+		countWords(bytes, 1);
+
+	}
+
+	/**
+	 * Counts the frequency of every word present in the given bytes, as if they were
+	 * repeated a number of times. See {@link #countWords(ByteBuffer)}.
+	 *
+	 * @param bytes the text to parse.
+	 * @param count the number of times the text occurs.
+	 */
+	public void countWords(ByteBuffer bytes, long count) {
+
+		int length = bytes.limit();
+		int i = bytes.position();
+
+		while (i < length) {
+
+			while (i < length && isWhitespace(bytes.get(i))) {
+				i++;
+			}
+
+			if (i == length) {
+				break;
+			}
+
+			int start = i;
+			int hash = 0;
+			boolean ascii = true;
+
+			while (i < length) {
+				byte b = bytes.get(i);
+				if (isWhitespace(b)) {
+					break;
+				}
+				hash = 31 * hash + b;
+				ascii &= b >= 0;
+				i++;
+			}
+
+			wordsNumber++;
+
+			if (store != null) {
+				store.add(bytes, start, i, hash, count);
+			} else if (ascii) {
+				countWord(bytes, start, i, hash, count);
+			} else {
+				String word = decode(bytes, start, i, StandardCharsets.UTF_8);
+				countWord(word, 0, word.length(), word.hashCode(), count);
+			}
+
+		}
+
+	}
+
+	/**
+	 * Gets the number of words found by this tokenizer in all the texts it parsed. A text
+	 * counted as repeated a number of times adds its words only once.
+	 *
+	 * @return the number of words found.
+	 */
+	public long getWordsNumber() {
+
+		return wordsNumber;
+
+	}
+
+	/**
+	 * Checks if a character is a word separator.
+	 *
+	 * @param c the character to check.
+	 * @return true if the character is matched by the regular expression <i>\s</i>.
+	 */
+	public static boolean isWhitespace(int c) {
+
+		return c == ' ' || c == '\n' || c == '\t' || c == '\r' || c == '\f' || c == 0x0B;
+
+	}
+
+
+	// Private Methods
+	/**
+	 * Counts occurrences of the word between start (inclusive) and end (exclusive).
+	 *
+	 * @param text the text that contains the word.
+	 * @param start the index of the first character of the word.
+	 * @param end the index after the last character of the word.
+	 * @param hash the hash of the word, compatible with <i>String.hashCode</i>.
+	 * @param count the number of occurrences to count.
+	 */
+	private void countWord(CharSequence text, int start, int end, int hash, long count) {
+
+		int mask = words.length - 1;
+		int slot = WordKeys.mix(hash) & mask;
+
+		while (words[slot] != null) {
+			if (hashes[slot] == hash && matches(words[slot], text, start, end)) {
+				frequencies[slot].addFrequency(count);
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		String word = text.subSequence(start, end).toString();
+
+		Frequency freq = FrequencyMap.getFrequency(wordsMap, word);
+		freq.addFrequency(count);
+
+		words[slot] = word;
+		frequencies[slot] = freq;
+		hashes[slot] = hash;
+
+		if (++size * 2 > words.length) {
+			resize();
+		}
+
+	}
+
+	/**
+	 * Counts occurrences of the ASCII word between start (inclusive) and end
+	 * (exclusive).
+	 *
+	 * @param bytes the text that contains the word.
+	 * @param start the index of the first byte of the word.
+	 * @param end the index after the last byte of the word.
+	 * @param hash the hash of the word, compatible with <i>String.hashCode</i>.
+	 * @param count the number of occurrences to count.
+	 */
+	private void countWord(ByteBuffer bytes, int start, int end, int hash, long count) {
+
+		int mask = words.length - 1;
+		int slot = WordKeys.mix(hash) & mask;
+
+		while (words[slot] != null) {
+			if (hashes[slot] == hash && matches(words[slot], bytes, start, end)) {
+				frequencies[slot].addFrequency(count);
+				return;
+			}
+			slot = (slot + 1) & mask;
+		}
+
+		String word = decode(bytes, start, end, StandardCharsets.US_ASCII);
+
+		Frequency freq = FrequencyMap.getFrequency(wordsMap, word);
+		freq.addFrequency(count);
+
+		words[slot] = word;
+		frequencies[slot] = freq;
+		hashes[slot] = hash;
+
+		if (++size * 2 > words.length) {
+			resize();
+		}
+
+	}
+
+	/**
+	 * Checks if a word is equal to a range of characters of a text.
+	 */
+	private static boolean matches(String word, CharSequence text, int start, int end) {
+
+		if (word.length() != end - start) {
+			return false;
+		}
+
+		for (int i = 0; i < word.length(); i++) {
+			if (word.charAt(i) != text.charAt(start + i)) {
+				return false;
+			}
+		}
+
+		return true;
+
+	}
+
+	/**
+	 * Checks if a word is equal to a range of ASCII bytes.
+	 */
+	private static boolean matches(String word, ByteBuffer bytes, int start, int end) {
+
+		if (word.length() != end - start) {
+			return false;
+		}
+
+		for (int i = 0; i < word.length(); i++) {
+			if (word.charAt(i) != bytes.get(start + i)) {
+				return false;
+			}
+		}
+
+		return true;
+
+	}
+
+	/**
+	 * Creates a String with a range of bytes.
+	 */
+	private static String decode(ByteBuffer bytes, int start, int end, Charset charset) {
+
+		byte[] word = new byte[end - start];
+
+		for (int i = 0; i < word.length; i++) {
+			word[i] = bytes.get(start + i);
+		}
+
+		return new String(word, charset);
+
+	}
+
+	/**
+	 * Doubles the capacity of the local table of words.
+	 */
+	private void resize() {
+
+		String[] oldWords = words;
+		Frequency[] oldFrequencies = frequencies;
+		int[] oldHashes = hashes;
+
+		words = new String[oldWords.length * 2];
+		frequencies = new Frequency[oldWords.length * 2];
+		hashes = new int[oldWords.length * 2];
+
+		int mask = words.length - 1;
+
+		for (int i = 0; i < oldWords.length; i++) {
+			if (oldWords[i] != null) {
+				int slot = WordKeys.mix(oldHashes[i]) & mask;
+				while (words[slot] != null) {
+					slot = (slot + 1) & mask;
+				}
+				words[slot] = oldWords[i];
+				frequencies[slot] = oldFrequencies[i];
+				hashes[slot] = oldHashes[i];
+			}
+		}
+
+	}
+
+}
@@ -0,0 +1,587 @@
+package com.wordscounter.util;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.function.ObjLongConsumer;
+
+import com.wordscounter.model.FrequencyMap;
+
+
+/**
+ * Compact file with the words of a <i>FrequencyMap</i> and their counts, that can be
+ * read without loading it.
+ *
+ * <p>The words are sorted in the order of <i>String.compareTo</i> and front coded: every
+ * word is written as the number of bytes it shares with the previous word, followed by
+ * the rest of its UTF-8 bytes, and its count. Lengths and counts are written as varints,
+ * so most of them take a single byte. Every block of 16 words starts with a full word,
+ * and the offsets of the blocks are written at the end of the file.
+ *
+ * <p>A snapshot is loaded by mapping the file in memory. A word is looked up with a
+ * binary search over the first word of the blocks and a scan of a single block, straight
+ * from the file, and the map can be rebuilt by decoding all the words in order.
+ *
+ * <p>The file starts with a header of 28 bytes: a magic number, the number of words, the
+ * number of words per block, the number of blocks, the total count of the words and the
+ * offset of the blocks index.
+ *
+ * <p>A loaded snapshot is read only, so it is a <i>WordCountView</i>, with no method to
+ * add words. It can be read by many threads at the same time.
+ *
+ * @author Arekku
+ *
+ */
+public class WordsSnapshot implements WordCountView {
+
+	// Constants
+	private static final int MAGIC_NUMBER = 0x57435331;
+	private static final int HEADER_SIZE = 28;
+	private static final int BLOCK_SIZE = 16;
+
+
+	// Attributes
+	private ByteBuffer bytes;
+	private int wordsNumber;
+	private int blockSize;
+	private int blocksNumber;
+	private long totalCount;
+	private int indexOffset;
+
+
+	// Constructors
+	/**
+	 * Creates a WordsSnapshot that reads the given bytes.
+	 *
+	 * @param bytes the content of a snapshot file.
+	 * @throws IOException if the bytes are not a snapshot.
+	 */
+	private WordsSnapshot(ByteBuffer bytes) throws IOException {
+
+		if (bytes.limit() < HEADER_SIZE || bytes.getInt(0) != MAGIC_NUMBER) {
+			throw new IOException("The file is not a snapshot of words.");
+		}
+
+		this.bytes = bytes;
+		this.wordsNumber = bytes.getInt(4);
+		this.blockSize = bytes.getInt(8);
+		this.blocksNumber = bytes.getInt(12);
+		this.totalCount = bytes.getLong(16);
+		this.indexOffset = bytes.getInt(24);
+
+		if (indexOffset < HEADER_SIZE || (long) indexOffset + blocksNumber * 4L != bytes.limit()) {
+			throw new IOException("The snapshot of words is corrupted.");
+		}
+
+	}
+
+
+	// Getters
+	/**
+	 * Getter
+	 *
+	 * @return the sum of the counts of all the words.
+	 */
+	public long getTotalCount() {
+		return totalCount;
+	}
+	/**
+	 * Getter
+	 *
+	 * @return the size of the snapshot, in bytes.
+	 */
+	public long getFileSize() {
+		return bytes.limit();
+	}
+
+
+	// Public Methods
+	/**
+	 * Saves the words of a map and their counts to a snapshot file.
+	 *
+	 * @param path the path of the file.
+	 * @param wordsMap the map with the words to save. It must keep all the words counted.
+	 * @throws IOException if the file can't be written.
+	 * @throws IllegalArgumentException if the map doesn't keep all the words counted, as
+	 *         the snapshot would miss some of them, or all.
+	 */
+	public static void save(String path, FrequencyMap wordsMap) throws IOException {
+
+		if (!wordsMap.keepsAllWords()) {
+			throw new IllegalArgumentException("The map doesn't keep all the words counted, so they can't be saved.");
+		}
+
+		WordList words = new WordList();
+		wordsMap.forEachBytes(words::add);
+
+		int[] order = words.sort();
+
+		int blocksNumber = (words.size + BLOCK_SIZE - 1) / BLOCK_SIZE;
+		int[] blockOffsets = new int[blocksNumber];
+
+		ByteArrayWriter out = new ByteArrayWriter(HEADER_SIZE + words.keysSize + words.size * 4);
+		out.position = HEADER_SIZE;
+
+		int previous = -1;
+		long totalCount = 0;
+
+		for (int i = 0; i < words.size; i++) {
+
+			int word = order[i];
+			int offset = words.offsets[word];
+			int length = words.lengths[word];
+
+			int prefix = 0;
+			if (i % BLOCK_SIZE == 0) {
+				blockOffsets[i / BLOCK_SIZE] = out.position;
+			} else {
+				int maxPrefix = Math.min(words.lengths[previous], length);
+				int previousOffset = words.offsets[previous];
+				while (prefix < maxPrefix && words.keys[previousOffset + prefix] == words.keys[offset + prefix]) {
+					prefix++;
+				}
+			}
+
+			out.writeVarint(prefix);
+			out.writeVarint(length - prefix);
+			out.write(words.keys, offset + prefix, length - prefix);
+			out.writeVarint(words.counts[word]);
+
+			previous = word;
+			totalCount += words.counts[word];
+
+		}
+
+		int indexOffset = out.position;
+		for (int blockOffset : blockOffsets) {
+			out.writeInt(blockOffset);
+		}
+
+		ByteBuffer buffer = ByteBuffer.wrap(out.bytes, 0, out.position);
+		buffer.putInt(0, MAGIC_NUMBER);
+		buffer.putInt(4, words.size);
+		buffer.putInt(8, BLOCK_SIZE);
+		buffer.putInt(12, blocksNumber);
+		buffer.putLong(16, totalCount);
+		buffer.putInt(24, indexOffset);
+
+		FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+		try {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		} finally {
+			channel.close();
+		}
+
+	}
+
+	/**
+	 * Loads a snapshot file by mapping it in memory. The words are not decoded until they
+	 * are requested.
+	 *
+	 * @param path the path of the file.
+	 * @return the snapshot.
+	 * @throws IOException if the file can't be read, or if it is not a snapshot.
+	 */
+	public static WordsSnapshot load(String path) throws IOException {
+
+		FileChannel channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+
+		try {
+
+			long fileSize = channel.size();
+			if (fileSize > FileUtils.MAX_READ_SIZE) {
+				throw new IOException("The file " + path + " is too big to be mapped in memory.");
+			}
+
+			MappedByteBuffer bytes = channel.map(MapMode.READ_ONLY, 0, fileSize);
+			return new WordsSnapshot(bytes);
+
+		} finally {
+			channel.close();
+		}
+
+	}
+
+	/**
+	 * Gets the number of words of the snapshot.
+	 *
+	 * @return the number of words.
+	 */
+	public int size() {
+
+		return wordsNumber;
+
+	}
+
+	/**
+	 * Gets the count of a word, straight from the file.
+	 *
+	 * @param word the word.
+	 * @return the number of occurrences of the word, or 0 if it is not in the snapshot.
+	 */
+	public long getCount(String word) {
+
+		ByteBuffer key = ByteBuffer.wrap(word.getBytes(StandardCharsets.UTF_8));
+		int keyLength = key.limit();
+
+		// The last block whose first word is not greater than the key
+		int low = 0;
+		int high = blocksNumber - 1;
+		int block = -1;
+		Cursor cursor = new Cursor();
+
+		while (low <= high) {
+
+			int middle = (low + high) >>> 1;
+			cursor.seek(bytes.getInt(indexOffset + middle * 4));
+			cursor.next();
+
+			int comparison = Utils.compareUtf8(bytes, cursor.suffixStart, cursor.wordLength, key, 0, keyLength);
+			if (comparison == 0) {
+				return cursor.count;
+			} else if (comparison < 0) {
+				block = middle;
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+
+		}
+
+		if (block < 0) {
+			return 0;
+		}
+
+		cursor.seek(bytes.getInt(indexOffset + block * 4));
+		ByteBuffer decoded = ByteBuffer.wrap(cursor.word);
+		int blockWords = Math.min(blockSize, wordsNumber - block * blockSize);
+
+		for (int i = 0; i < blockWords; i++) {
+			cursor.next();
+			if (cursor.word != decoded.array()) {
+				decoded = ByteBuffer.wrap(cursor.word);
+			}
+			int comparison = Utils.compareUtf8(decoded, 0, cursor.wordLength, key, 0, keyLength);
+			if (comparison == 0) {
+				return cursor.count;
+			} else if (comparison > 0) {
+				break;
+			}
+		}
+
+		return 0;
+
+	}
+
+	/**
+	 * Calls the given action for every word of the snapshot and its count, in the order
+	 * of <i>String.compareTo</i>.
+	 *
+	 * @param action the action to call.
+	 */
+	public void forEach(ObjLongConsumer<String> action) {
+
+		Cursor cursor = new Cursor();
+		cursor.seek(HEADER_SIZE);
+
+		for (int i = 0; i < wordsNumber; i++) {
+			cursor.next();
+			action.accept(new String(cursor.word, 0, cursor.wordLength, StandardCharsets.UTF_8), cursor.count);
+		}
+
+	}
+
+	// Private Classes
+	/**
+	 * Decodes the words of the snapshot one by one, from an offset. The first word
+	 * decoded must be the first word of a block, or of the file.
+	 */
+	private class Cursor {
+
+		private int position;
+
+		private byte[] word;
+		private int wordLength;
+		private int suffixStart;
+		private long count;
+
+		public Cursor() {
+
+			this.word = new byte[64];
+
+		}
+
+		/**
+		 * Moves to the first word of a block, or of the file.
+		 */
+		public void seek(int position) {
+
+			this.position = position;
+
+		}
+
+		/**
+		 * Decodes the next word and its count.
+		 */
+		public void next() {
+
+			int prefix = (int) readVarint();
+			int suffixLength = (int) readVarint();
+
+			wordLength = prefix + suffixLength;
+			if (wordLength > word.length) {
+				word = Arrays.copyOf(word, Math.max(wordLength, word.length * 2));
+			}
+
+			suffixStart = position;
+			bytes.get(position, word, prefix, suffixLength);
+			position += suffixLength;
+
+			count = readVarint();
+
+		}
+
+		private long readVarint() {
+
+			long value = 0;
+			int shift = 0;
+			byte b;
+
+			do {
+				b = bytes.get(position++);
+				value |= (long) (b & 0x7F) << shift;
+				shift += 7;
+			} while (b < 0);
+
+			return value;
+
+		}
+
+	}
+
+	/**
+	 * Words to save, with their UTF-8 bytes appended to a single array, and sorted
+	 * without comparing <i>Strings</i>.
+	 */
+	private static class WordList {
+
+		private byte[] keys;
+		private int keysSize;
+		private int[] offsets;
+		private int[] lengths;
+		private long[] counts;
+		private int size;
+
+		public WordList() {
+
+			this.keys = new byte[64 * 1024];
+			this.offsets = new int[1024];
+			this.lengths = new int[1024];
+			this.counts = new long[1024];
+
+		}
+
+		/**
+		 * Adds a word, copying its UTF-8 bytes from the given buffer.
+		 */
+		public void add(ByteBuffer bytes, int start, int end, long count) {
+
+			int length = end - start;
+
+			if (size == offsets.length) {
+				offsets = Arrays.copyOf(offsets, size * 2);
+				lengths = Arrays.copyOf(lengths, size * 2);
+				counts = Arrays.copyOf(counts, size * 2);
+			}
+			if (keysSize + length > keys.length) {
+				long capacity = Math.max((long) keys.length * 2, (long) keysSize + length);
+				if (capacity > FileUtils.MAX_READ_SIZE) {
+					throw new IllegalStateException("The words of the snapshot exceed " + FileUtils.MAX_READ_SIZE + " bytes.");
+				}
+				keys = Arrays.copyOf(keys, (int) capacity);
+			}
+
+			bytes.get(start, keys, keysSize, length);
+			offsets[size] = keysSize;
+			lengths[size] = length;
+			counts[size] = count;
+
+			keysSize += length;
+			size++;
+
+		}
+
+		/**
+		 * Sorts the words in the order of <i>String.compareTo</i>.
+		 *
+		 * <p>The first 8 bytes of every word are sorted as an unsigned long with a radix
+		 * sort, a byte at a time, moving the indexes of the words along. The bytes that are
+		 * the same for all the words are skipped. Only the words that share their first 8
+		 * bytes are compared one by one.
+		 *
+		 * @return the indexes of the words, sorted.
+		 */
+		public int[] sort() {
+
+			long[] prefixes = new long[size];
+			int[] order = new int[size];
+			for (int i = 0; i < size; i++) {
+				prefixes[i] = getPrefix(i);
+				order[i] = i;
+			}
+
+			long[] sortedPrefixes = new long[size];
+			int[] sortedOrder = new int[size];
+			int[] positions = new int[256];
+
+			for (int shift = 0; shift < 64 && size > 1; shift += 8) {
+
+				Arrays.fill(positions, 0);
+				for (int i = 0; i < size; i++) {
+					positions[(int) (prefixes[i] >>> shift) & 0xFF]++;
+				}
+				if (positions[(int) (prefixes[0] >>> shift) & 0xFF] == size) {
+					continue;
+				}
+
+				int position = 0;
+				for (int b = 0; b < positions.length; b++) {
+					int count = positions[b];
+					positions[b] = position;
+					position += count;
+				}
+				for (int i = 0; i < size; i++) {
+					int to = positions[(int) (prefixes[i] >>> shift) & 0xFF]++;
+					sortedPrefixes[to] = prefixes[i];
+					sortedOrder[to] = order[i];
+				}
+
+				long[] swapPrefixes = prefixes;
+				prefixes = sortedPrefixes;
+				sortedPrefixes = swapPrefixes;
+				int[] swapOrder = order;
+				order = sortedOrder;
+				sortedOrder = swapOrder;
+
+			}
+
+			final ByteBuffer bytes = ByteBuffer.wrap(keys);
+			int start = 0;
+
+			while (start < size) {
+
+				int end = start + 1;
+				while (end < size && prefixes[end] == prefixes[start]) {
+					end++;
+				}
+
+				if (end - start > 1) {
+					Integer[] run = new Integer[end - start];
+					for (int i = start; i < end; i++) {
+						run[i - start] = order[i];
+					}
+					Arrays.sort(run, (word1, word2) -> Utils.compareUtf8(bytes, offsets[word1], lengths[word1], bytes, offsets[word2], lengths[word2]));
+					for (int i = start; i < end; i++) {
+						order[i] = run[i - start];
+					}
+				}
+
+				start = end;
+
+			}
+
+			return order;
+
+		}
+
+		/**
+		 * Gets the first 8 bytes of a word as an unsigned long, with the first bytes of
+		 * the characters from U+E000 to U+FFFF moved after the ones of U+10000 and above,
+		 * as in <i>Utils.compareUtf8</i>.
+		 */
+		private long getPrefix(int word) {
+
+			long prefix = 0;
+			int length = Math.min(8, lengths[word]);
+
+			for (int i = 0; i < 8; i++) {
+				int b = i < length ? keys[offsets[word] + i] & 0xFF : 0;
+				if (b == 0xEE || b == 0xEF) {
+					b += 8;
+				}
+				prefix = prefix << 8 | b;
+			}
+
+			return prefix;
+
+		}
+
+	}
+
+	/**
+	 * Growable array of bytes the snapshot is encoded into.
+	 */
+	private static class ByteArrayWriter {
+
+		private byte[] bytes;
+		private int position;
+
+		public ByteArrayWriter(int capacity) {
+
+			this.bytes = new byte[Math.max(64, capacity)];
+
+		}
+
+		public void write(byte[] source, int offset, int length) {
+
+			ensureCapacity(length);
+			System.arraycopy(source, offset, bytes, position, length);
+			position += length;
+
+		}
+
+		public void writeInt(int value) {
+
+			ensureCapacity(4);
+			bytes[position++] = (byte) (value >>> 24);
+			bytes[position++] = (byte) (value >>> 16);
+			bytes[position++] = (byte) (value >>> 8);
+			bytes[position++] = (byte) value;
+
+		}
+
+		public void writeVarint(long value) {
+
+			ensureCapacity(10);
+			while ((value & ~0x7FL) != 0) {
+				bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+				value >>>= 7;
+			}
+			bytes[position++] = (byte) value;
+
+		}
+
+		private void ensureCapacity(int length) {
+
+			if (position + length > bytes.length) {
+				long capacity = Math.max((long) bytes.length * 2, (long) position + length);
+				if (capacity > FileUtils.MAX_READ_SIZE) {
+					throw new IllegalStateException("The snapshot of words exceeds " + FileUtils.MAX_READ_SIZE + " bytes.");
+				}
+				bytes = Arrays.copyOf(bytes, (int) capacity);
+			}
+
+		}
+
+	}
+
+}